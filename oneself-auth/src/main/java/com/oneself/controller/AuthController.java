@@ -69,6 +69,24 @@ public class AuthController {
         }
     }
 
+    @Operation(summary = "退出所有设备")
+    @DeleteMapping("/logout/all")
+    public Resp<Boolean> logoutAll(HttpServletRequest request) {
+        long startTime = System.currentTimeMillis();
+        String ip = getClientIp(request);
+        log.info("收到退出所有设备请求，ip={}", ip);
+        try {
+            Boolean result = authService.logoutAll(request);
+            long duration = System.currentTimeMillis() - startTime;
+            log.info("退出所有设备请求处理完成，ip={}, duration={}ms", ip, duration);
+            return Resp.success(result);
+        } catch (Exception e) {
+            long duration = System.currentTimeMillis() - startTime;
+            log.warn("退出所有设备请求处理失败，ip={}, duration={}ms, error={}", ip, duration, e.getMessage());
+            throw e;
+        }
+    }
+
     @Operation(summary = "刷新 Token")
     @PostMapping("/refresh")
     public Resp<String> refresh(HttpServletRequest request) {
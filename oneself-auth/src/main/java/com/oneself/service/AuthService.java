@@ -29,6 +29,14 @@ public interface AuthService {
      */
     Boolean logout(HttpServletRequest request);
 
+    /**
+     * 退出所有设备（当前用户此前登录的所有会话失效）
+     *
+     * @param request HTTP 请求
+     * @return 是否成功
+     */
+    Boolean logoutAll(HttpServletRequest request);
+
     /**
      * 刷新 Token
      *
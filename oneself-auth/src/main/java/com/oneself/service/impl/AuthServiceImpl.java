@@ -1,5 +1,6 @@
 package com.oneself.service.impl;
 
+import com.oneself.common.feature.security.config.JwtConfig;
 import com.oneself.common.feature.security.config.RsaKeyConfig;
 import com.oneself.common.core.exception.OneselfException;
 import com.oneself.common.core.exception.OneselfLoginException;
@@ -7,10 +8,12 @@ import com.oneself.common.feature.security.model.bo.JwtSessionBO;
 import com.oneself.common.feature.security.model.bo.LoginUserBO;
 import com.oneself.model.dto.LoginDTO;
 import com.oneself.common.infra.redis.model.enums.RedisKeyPrefixEnum;
+import com.oneself.common.infra.redis.session.LoginSessionRevoker;
 import com.oneself.model.vo.CaptchaVO;
 import com.oneself.service.AuthService;
 import com.oneself.service.CaptchaService;
 import com.oneself.common.core.utils.JacksonUtils;
+import com.oneself.common.feature.security.utils.IdentityAssertionCodec;
 import com.oneself.common.feature.security.utils.JwtUtils;
 import eu.bitwalker.useragentutils.Browser;
 import eu.bitwalker.useragentutils.OperatingSystem;
@@ -27,6 +30,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
@@ -50,8 +57,10 @@ public class AuthServiceImpl implements AuthService {
     private final AuthenticationManager authenticationManager;
     private final RedisTemplate<String, String> redisTemplate;
     private final RsaKeyConfig rsaKeyConfig;
+    private final JwtConfig jwtConfig;
     private final HttpServletRequest request;
     private final CaptchaService captchaService;
+    private final LoginSessionRevoker loginSessionRevoker;
 
 
     @Override
@@ -123,33 +132,36 @@ public class AuthServiceImpl implements AuthService {
         // 7. 生成 sessionId
         String sessionId = JwtUtils.getUUID().substring(0, 8);
 
-        // 8. 构建 JWT subject
+        // 8. 构建 JWT subject（写入用户当前会话代数，踢下线时代数递增，此前签发的 Token 随之失效）
         JwtSessionBO jwtSessionBO = JwtSessionBO.builder()
                 .userId(userId)
                 .username(authenticatedUsername)
+                .userType(bo.getType())
                 .ip(ip)
                 .device(device)
                 .browser(browser)
                 .sessionId(sessionId)
                 .loginTime(System.currentTimeMillis())
+                .epoch(loginSessionRevoker.currentEpoch(userId))
                 .build();
         String subjectJson = JacksonUtils.toJsonString(jwtSessionBO);
 
         // 9. 生成 JWT token
-        String token = JwtUtils.createJWT(subjectJson);
+        bo.setPassword(null);
+        String sessionJson = JacksonUtils.toJsonString(bo);
+        String token = issueToken(subjectJson, bo, sessionJson);
 
         // 10. 存 Redis 会话 (String + TTL)
         String redisKey = buildLoginKey(sessionId);
         long ttlSeconds = 3600; // 1 小时
-        bo.setPassword(null);
-        redisTemplate.opsForValue().set(redisKey, JacksonUtils.toJsonString(bo), ttlSeconds, TimeUnit.SECONDS);
+        redisTemplate.opsForValue().set(redisKey, sessionJson, ttlSeconds, TimeUnit.SECONDS);
 
         // 11. 用户维度存储 sessionId（SortedSet + expireAt）
         String userKey = buildUserSessionsKey(userId);
         long expireAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds);
         redisTemplate.opsForZSet().add(userKey, sessionId, expireAt);
 
-        // 12. 可选：清理过期 sessionId
+        // 12. 清理过期 sessionId（被踢下线的会话在校验时或过期后清理）
         redisTemplate.opsForZSet().removeRangeByScore(userKey, 0, System.currentTimeMillis());
 
         log.info("用户 {} 登录成功，userId={}, sessionId={}, ip={}, device={}, browser={}, ttl={}s",
@@ -189,7 +201,7 @@ public class AuthServiceImpl implements AuthService {
 
         try {
             // 解析 JWT
-            var claims = JwtUtils.parseJWT(token);
+            var claims = JwtUtils.parseJWT(token, true);
             String subject = claims.getSubject();
             JwtSessionBO bo = JacksonUtils.fromJson(subject, JwtSessionBO.class);
 
@@ -200,6 +212,9 @@ public class AuthServiceImpl implements AuthService {
             // 删除 Redis 会话
             redisTemplate.delete(buildLoginKey(sessionId));
 
+            // 发布吊销记录（短时访问令牌在网关不访问 Redis，需由网关本地过滤器拒绝）
+            loginSessionRevoker.revokeSession(sessionId);
+
             // 删除 SortedSet 中的 sessionId
             String userKey = buildUserSessionsKey(userId);
             redisTemplate.opsForZSet().remove(userKey, sessionId);
@@ -215,6 +230,40 @@ public class AuthServiceImpl implements AuthService {
         }
     }
 
+    @Override
+    public Boolean logoutAll(HttpServletRequest request) {
+        String ip = getClientIp(request);
+        String token = request.getHeader("Authorization");
+        if (StringUtils.isBlank(token)) {
+            log.warn("退出所有设备请求失败：未找到 token，ip={}", ip);
+            throw new OneselfException("未找到 token");
+        }
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+
+        try {
+            var claims = JwtUtils.parseJWT(token, true);
+            JwtSessionBO bo = JacksonUtils.fromJson(claims.getSubject(), JwtSessionBO.class);
+            String userId = bo.getUserId();
+
+            // 递增用户会话代数，所有设备上的会话在下次校验时失效
+            loginSessionRevoker.revokeAll(List.of(userId));
+
+            // 当前会话立即删除
+            redisTemplate.delete(buildLoginKey(bo.getSessionId()));
+            redisTemplate.opsForZSet().remove(buildUserSessionsKey(userId), bo.getSessionId());
+
+            SecurityContextHolder.clearContext();
+
+            log.info("用户 {} 已退出所有设备，userId={}, ip={}", bo.getUsername(), userId, ip);
+            return true;
+        } catch (Exception e) {
+            log.error("退出所有设备失败，ip={}", ip, e);
+            throw new OneselfException("退出所有设备失败，请重试");
+        }
+    }
+
     @Override
     public String refresh(HttpServletRequest request) {
         String ip = getClientIp(request);
@@ -230,7 +279,7 @@ public class AuthServiceImpl implements AuthService {
 
         try {
             // 2. 解析旧 token
-            var claims = JwtUtils.parseJWT(oldToken);
+            var claims = JwtUtils.parseJWT(oldToken, true);
             String subject = claims.getSubject();
             JwtSessionBO oldSessionBO = JacksonUtils.fromJson(subject, JwtSessionBO.class);
 
@@ -259,6 +308,15 @@ public class AuthServiceImpl implements AuthService {
                 throw new OneselfException("会话已超过最大有效期，请重新登录");
             }
 
+            // 4.1 检查是否已被踢下线
+            long epoch = oldSessionBO.getEpoch() != null ? oldSessionBO.getEpoch() : 0L;
+            if (epoch < loginSessionRevoker.currentEpoch(userId)) {
+                redisTemplate.delete(redisKey);
+                redisTemplate.opsForZSet().remove(buildUserSessionsKey(userId), sessionId);
+                log.warn("用户 {} Token刷新失败：会话已被踢下线，sessionId={}, ip={}", username, sessionId, ip);
+                throw new OneselfException("会话已失效，请重新登录");
+            }
+
             // 5. 获取用户会话信息
             LoginUserBO loginUserBO = JacksonUtils.fromJson(sessionJson, LoginUserBO.class);
 
@@ -274,16 +332,18 @@ public class AuthServiceImpl implements AuthService {
             JwtSessionBO newSessionBO = JwtSessionBO.builder()
                     .userId(userId)
                     .username(username)
+                    .userType(loginUserBO.getType())
                     .ip(newIp)
                     .device(device)
                     .browser(browser)
                     .sessionId(sessionId)
                     .loginTime(oldSessionBO.getLoginTime()) // 保持原始登录时间
+                    .epoch(oldSessionBO.getEpoch())
                     .build();
             String newSubjectJson = JacksonUtils.toJsonString(newSessionBO);
 
             // 8. 生成新的 JWT token
-            String newToken = JwtUtils.createJWT(newSubjectJson);
+            String newToken = issueToken(newSubjectJson, loginUserBO, sessionJson);
 
             // 9. 更新 Redis 会话过期时间（滑动过期，重新设置为1小时）
             long ttlSeconds = 3600; // 1 小时
@@ -311,6 +371,31 @@ public class AuthServiceImpl implements AuthService {
 
     // ------------------------ 工具方法 ------------------------
 
+    /**
+     * 签发 Token：配置了访问令牌有效期时签发携带权限的短时访问令牌（过期后通过 refresh 续签），否则签发长期 Token
+     *
+     * @param subjectJson JWT subject
+     * @param user        登录用户
+     * @param sessionJson Redis 中的会话内容（权限版本取其摘要，与网关、下游服务的计算方式一致）
+     * @return token
+     */
+    private String issueToken(String subjectJson, LoginUserBO user, String sessionJson) {
+        Duration ttl = jwtConfig.getAccessTokenTtl();
+        if (ttl.isZero()) {
+            return JwtUtils.createJWT(subjectJson);
+        }
+        if (ttl.compareTo(LoginSessionRevoker.RETENTION) > 0) {
+            log.warn("访问令牌有效期超过吊销记录保留时长，已按 {} 签发", LoginSessionRevoker.RETENTION);
+            ttl = LoginSessionRevoker.RETENTION;
+        }
+        Map<String, Object> authority = new LinkedHashMap<>();
+        authority.put("type", user.getType());
+        authority.put("roleCodes", user.getRoleCodes());
+        authority.put("permissionCodes", user.getPermissionCodes());
+        return JwtUtils.createAccessJWT(subjectJson, JacksonUtils.toJsonString(authority),
+                IdentityAssertionCodec.authorityVersion(sessionJson), ttl);
+    }
+
     private String buildLoginKey(String sessionId) {
         return RedisKeyPrefixEnum.LOGIN_SESSION.getPrefix() + sessionId;
     }
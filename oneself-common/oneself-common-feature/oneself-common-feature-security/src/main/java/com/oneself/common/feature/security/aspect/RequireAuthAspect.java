@@ -37,12 +37,12 @@ public class RequireAuthAspect {
     private final SecurityUtils securityUtils;
 
     private static final String POINTCUT_SIGN =
-            "@annotation(com.oneself.annotation.RequireLogin) || " +
-                    "@within(com.oneself.annotation.RequireLogin) || " +
-                    "@annotation(com.oneself.annotation.RequireRoles) || " +
-                    "@within(com.oneself.annotation.RequireRoles) || " +
-                    "@annotation(com.oneself.annotation.RequirePermission) || " +
-                    "@within(com.oneself.annotation.RequirePermission)";
+            "@annotation(com.oneself.common.feature.security.annotation.RequireLogin) || " +
+                    "@within(com.oneself.common.feature.security.annotation.RequireLogin) || " +
+                    "@annotation(com.oneself.common.feature.security.annotation.RequireRoles) || " +
+                    "@within(com.oneself.common.feature.security.annotation.RequireRoles) || " +
+                    "@annotation(com.oneself.common.feature.security.annotation.RequirePermission) || " +
+                    "@within(com.oneself.common.feature.security.annotation.RequirePermission)";
 
     @Pointcut(POINTCUT_SIGN)
     public void pointcut() {}
@@ -53,10 +53,10 @@ public class RequireAuthAspect {
         Method method = signature.getMethod();
         Class<?> targetClass = method.getDeclaringClass();
 
-        // 1. 尝试获取当前用户（Filter 应该已经设置了）
+        // 1. 尝试获取当前用户（经网关转发的请求已由 SecurityContextFilter 根据身份断言设置）
         JwtSessionBO user = securityUtils.getCurrentUser();
 
-        // 2. 如果 ThreadLocal 为空，则尝试解析 token（兜底逻辑）
+        // 2. 如果 ThreadLocal 为空，则尝试解析 token（兜底逻辑：未经网关直接调用服务的请求）
         if (user == null) {
             String token = securityUtils.resolveToken();
             if (StringUtils.isNotBlank(token)) {
@@ -0,0 +1,80 @@
+package com.oneself.common.feature.security.config;
+
+import com.oneself.common.feature.security.filter.SecurityContextFilter;
+import com.oneself.common.feature.security.utils.IdentityAssertionCodec;
+import com.oneself.common.feature.security.utils.SecurityUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.feature.security.config
+ * className IdentityAssertionConfig
+ * description
+ * 网关身份断言配置：
+ * - 签名密钥从环境变量 ONESELF_IDENTITY_SECRET 读取，未配置时由 JWT 密钥派生（与 JWT 签名用途隔离），
+ *   JWT 的旧密钥同样派生为校验密钥，轮换期间已签发的断言继续有效
+ * - Servlet 服务注册 SecurityContextFilter 校验断言（SecurityUtils 见 SecurityComponentConfig），Gateway 只使用编解码器签发断言
+ * version 1.0
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+public class IdentityAssertionConfig {
+
+    /**
+     * 由 JWT 密钥派生断言密钥时使用的用途标识
+     */
+    private static final String DERIVATION_LABEL = "oneself-identity-assertion";
+
+    @Bean
+    public IdentityAssertionCodec identityAssertionCodec(JwtConfig jwtConfig,
+                                                         @Value("${ONESELF_IDENTITY_SECRET:}") String identitySecret) {
+        if (identitySecret != null && identitySecret.length() >= 32) {
+            log.info("身份断言使用独立密钥 ONESELF_IDENTITY_SECRET");
+            return new IdentityAssertionCodec(identitySecret.getBytes(StandardCharsets.UTF_8), List.of());
+        }
+        List<byte[]> previousKeys = jwtConfig.getPreviousSecrets().stream()
+                .map(IdentityAssertionConfig::derive)
+                .toList();
+        log.info("身份断言使用由 JWT 密钥派生的密钥，校验旧密钥数={}", previousKeys.size());
+        return new IdentityAssertionCodec(derive(jwtConfig.getSecret()), previousKeys);
+    }
+
+    /**
+     * 派生断言密钥：HMAC-SHA256(JWT 密钥, 用途标识)
+     */
+    private static byte[] derive(String secret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac.doFinal(DERIVATION_LABEL.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("派生身份断言密钥失败", e);
+        }
+    }
+
+    /**
+     * Servlet 服务：请求进入时校验网关身份断言并设置当前用户（Gateway 等 WebFlux 应用不加载）
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = Type.SERVLET)
+    static class ServletConfig {
+
+        @Bean
+        public SecurityContextFilter securityContextFilter(IdentityAssertionCodec identityAssertionCodec,
+                                                           SecurityUtils securityUtils) {
+            return new SecurityContextFilter(identityAssertionCodec, securityUtils);
+        }
+    }
+}
@@ -5,6 +5,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * @author liuhuan
  * date 2025/1/24
@@ -23,17 +27,29 @@ public class JwtConfig {
 
     private final String secret;
     private final String issuer;
+    /** 当前签名密钥的 kid，未配置时由密钥摘要派生 */
+    private final String keyId;
+    /** 轮换前的旧密钥，只用于验签，保证轮换期间已签发的 Token 继续有效；轮换前配置了 kid 时写作 kid:secret */
+    private final List<String> previousSecrets;
+    /** 短时访问令牌有效期，大于 0 时登录与刷新签发带 exp、角色与权限版本的访问令牌，网关校验时不访问 Redis */
+    private final Duration accessTokenTtl;
 
     /**
      * JWT 配置构造函数
      *
      * @param secret JWT 密钥（从环境变量 ONESELF_JWT_SECRET 读取，至少32个字符）
      * @param issuer JWT 签发者（从环境变量 ONESELF_JWT_ISSUER 读取，默认为 "oneself"）
+     * @param keyId JWT 密钥 ID（从环境变量 ONESELF_JWT_KEY_ID 读取，可选）
+     * @param previousSecrets 旧密钥（从环境变量 ONESELF_JWT_PREVIOUS_SECRETS 读取，逗号分隔，每项为 secret 或 kid:secret，可选）
+     * @param accessTokenTtlSeconds 短时访问令牌有效期秒数（从环境变量 ONESELF_JWT_ACCESS_TOKEN_TTL 读取，默认 0 不启用）
      * @param activeProfiles 当前激活的 profile，逗号分隔（用于 dev 下允许默认密钥）
      */
     public JwtConfig(
             @Value("${ONESELF_JWT_SECRET:}") String secret,
             @Value("${ONESELF_JWT_ISSUER:oneself}") String issuer,
+            @Value("${ONESELF_JWT_KEY_ID:}") String keyId,
+            @Value("${ONESELF_JWT_PREVIOUS_SECRETS:}") String previousSecrets,
+            @Value("${ONESELF_JWT_ACCESS_TOKEN_TTL:0}") long accessTokenTtlSeconds,
             @Value("${spring.profiles.active:}") String activeProfiles) {
 
         boolean isDev = activeProfiles != null && (activeProfiles.contains("dev") || activeProfiles.contains("default"));
@@ -56,8 +72,15 @@ public class JwtConfig {
 
         this.secret = resolvedSecret;
         this.issuer = issuer;
+        this.keyId = keyId == null || keyId.isBlank() ? null : keyId.trim();
+        this.previousSecrets = previousSecrets == null ? List.of() : Arrays.stream(previousSecrets.split(","))
+                .map(String::trim)
+                .filter(s -> s.length() >= 32)
+                .toList();
+        this.accessTokenTtl = Duration.ofSeconds(Math.max(accessTokenTtlSeconds, 0));
 
-        log.info("JWT 配置初始化成功，issuer={}, secretLength={}", issuer, this.secret.length());
+        log.info("JWT 配置初始化成功，issuer={}, secretLength={}, previousSecrets={}, accessTokenTtl={}",
+                issuer, this.secret.length(), this.previousSecrets.size(), this.accessTokenTtl);
     }
 }
 
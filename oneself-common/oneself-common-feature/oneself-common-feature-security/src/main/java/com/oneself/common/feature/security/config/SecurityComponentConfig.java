@@ -0,0 +1,63 @@
+package com.oneself.common.feature.security.config;
+
+import com.oneself.common.feature.security.aspect.RequireAuthAspect;
+import com.oneself.common.feature.security.provider.SecurityCurrentUserProvider;
+import com.oneself.common.feature.security.utils.JwtUtils;
+import com.oneself.common.feature.security.utils.SecurityUtils;
+import com.oneself.common.infra.redis.script.LuaScriptRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.feature.security.config
+ * className SecurityComponentConfig
+ * description
+ * 安全组件配置：启动类不扫描 com.oneself.common 的服务（如 oneself-system）同样能获得 JwtUtils、SecurityUtils、
+ * RequireAuthAspect 与 SecurityCurrentUserProvider；已由组件扫描注册时不重复注册
+ * version 1.0
+ */
+@Configuration(proxyBeanMethods = false)
+public class SecurityComponentConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtUtils jwtUtils() {
+        // JwtConfig 通过 @Autowired 方法注入
+        return new JwtUtils();
+    }
+
+    /**
+     * Servlet 服务使用的组件（依赖 HttpServletRequest，Gateway 等 WebFlux 应用不加载）
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = Type.SERVLET)
+    static class ServletConfig {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public SecurityUtils securityUtils(HttpServletRequest request,
+                                           RedisTemplate<String, String> redisTemplate,
+                                           LuaScriptRegistry luaScriptRegistry) {
+            return new SecurityUtils(request, redisTemplate, luaScriptRegistry);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public RequireAuthAspect requireAuthAspect(SecurityUtils securityUtils) {
+            return new RequireAuthAspect(securityUtils);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public SecurityCurrentUserProvider securityCurrentUserProvider(SecurityUtils securityUtils) {
+            return new SecurityCurrentUserProvider(securityUtils);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.oneself.common.feature.security.filter;
+
+import com.oneself.common.feature.security.utils.IdentityAssertionCodec;
+import com.oneself.common.feature.security.utils.SecurityUtils;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.feature.security.filter
+ * className SecurityContextFilter
+ * description
+ * 当前用户上下文过滤器：
+ * - 经网关转发的请求携带 X-Identity-Assertion，校验签名与有效期后直接设置当前用户（一次 HMAC，不验 JWT、不访问 Redis）
+ * - 断言缺失或无效时不设置，由 RequireAuthAspect 按 Token + Redis 兜底校验（直接调用服务、绕过网关的请求）
+ * - 请求结束时统一清理当前用户 ThreadLocal
+ * version 1.0
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE + 10) // 在 TraceFilter 之后执行，日志中带 traceId
+public class SecurityContextFilter extends OncePerRequestFilter {
+
+    private final IdentityAssertionCodec identityAssertionCodec;
+    private final SecurityUtils securityUtils;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            String assertion = request.getHeader(IdentityAssertionCodec.HEADER);
+            if (assertion != null) {
+                IdentityAssertionCodec.Assertion verified = identityAssertionCodec.verify(assertion, System.currentTimeMillis());
+                if (verified != null) {
+                    securityUtils.setCurrentUser(verified.session());
+                    if (verified.authorityVersion() != null) {
+                        request.setAttribute(IdentityAssertionCodec.AUTHORITY_VERSION_ATTR, verified.authorityVersion());
+                    }
+                } else {
+                    log.warn("身份断言无效或已过期，按 Token 兜底校验，uri={}", request.getRequestURI());
+                }
+            }
+            filterChain.doFilter(request, response);
+        } finally {
+            securityUtils.clear();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.oneself.common.feature.security.model.bo;
 
+import com.oneself.common.feature.security.model.enums.UserTypeEnum;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -18,7 +19,7 @@ import java.io.Serializable;
  * version 1.0
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Schema(description = "jwt 会话信息 BO")
@@ -32,6 +33,9 @@ public class JwtSessionBO implements Serializable {
     @Schema(description = "用户名")
     private String username;
 
+    @Schema(description = "用户类型（网关过载时按用户类型决定请求优先级）")
+    private UserTypeEnum userType;
+
     @Schema(description = "登录 IP")
     private String ip;
 
@@ -46,4 +50,7 @@ public class JwtSessionBO implements Serializable {
 
     @Schema(description = "登录时间，毫秒时间戳")
     private Long loginTime;
+
+    @Schema(description = "用户会话代数（登录时的代数，小于用户当前代数时会话已被踢下线）")
+    private Long epoch;
 }
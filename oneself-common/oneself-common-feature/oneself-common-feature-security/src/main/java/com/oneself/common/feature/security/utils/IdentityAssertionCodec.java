@@ -0,0 +1,211 @@
+package com.oneself.common.feature.security.utils;
+
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+import com.oneself.common.feature.security.model.enums.UserTypeEnum;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.feature.security.utils
+ * className IdentityAssertionCodec
+ * description
+ * 网关身份断言的签发与校验：网关校验会话后签发，下游服务只需一次 HMAC 即可确认身份，不再验 JWT、不再访问 Redis
+ * - 格式：v1.{Base64URL(载荷)}.{Base64URL(HMAC-SHA256 前 16 字节)}
+ * - 载荷：userId、username、sessionId、userType、loginTime、权限版本、过期时间（毫秒），以 0x1F 分隔
+ * - 签名密钥之外可配置旧密钥，只用于校验，密钥轮换期间网关与服务不必同时更新
+ * 实例线程安全（每个线程持有自己的 Mac）
+ * version 1.0
+ */
+public final class IdentityAssertionCodec {
+
+    /**
+     * 网关转发给下游的身份断言请求头
+     */
+    public static final String HEADER = "X-Identity-Assertion";
+
+    /**
+     * 下游校验通过后保存权限版本的请求属性名
+     */
+    public static final String AUTHORITY_VERSION_ATTR = IdentityAssertionCodec.class.getName() + ".authorityVersion";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String PREFIX = "v1.";
+    private static final char SEPARATOR = '\u001F';
+    private static final int FIELDS = 7;
+    private static final int SIGNATURE_BYTES = 16;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * 每个密钥一个 Mac，第一个为签名密钥
+     */
+    private final List<ThreadLocal<Mac>> macs;
+
+    /**
+     * @param signingKey       签名密钥
+     * @param verificationKeys 只用于校验的旧密钥
+     */
+    public IdentityAssertionCodec(byte[] signingKey, List<byte[]> verificationKeys) {
+        List<ThreadLocal<Mac>> list = new ArrayList<>();
+        list.add(macFor(signingKey));
+        for (byte[] key : verificationKeys) {
+            list.add(macFor(key));
+        }
+        this.macs = List.copyOf(list);
+    }
+
+    /**
+     * 由会话内容计算权限版本：SHA-256 前 16 字节（十六进制），会话中的角色、权限变化时随之变化，
+     * 网关、auth 服务（访问令牌 av）与下游权限缓存使用同一算法
+     *
+     * @param sessionJson Redis 中的会话内容
+     * @return 权限版本
+     */
+    public static String authorityVersion(String sessionJson) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sessionJson.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前 JVM 不支持 SHA-256", e);
+        }
+    }
+
+    /**
+     * 签发身份断言
+     *
+     * @param session          会话信息
+     * @param authorityVersion 权限版本（会话中的角色、权限变化时改变）
+     * @param expiresAt        过期时间（毫秒时间戳）
+     * @return 身份断言
+     */
+    public String sign(JwtSessionBO session, String authorityVersion, long expiresAt) {
+        String payload = String.join(String.valueOf(SEPARATOR),
+                StringUtils.defaultString(session.getUserId()),
+                StringUtils.defaultString(session.getUsername()),
+                StringUtils.defaultString(session.getSessionId()),
+                session.getUserType() != null ? session.getUserType().name() : "",
+                session.getLoginTime() != null ? String.valueOf(session.getLoginTime()) : "",
+                StringUtils.defaultString(authorityVersion),
+                String.valueOf(expiresAt));
+        String encoded = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return PREFIX + encoded + "." + ENCODER.encodeToString(signature(macs.get(0).get(), encoded));
+    }
+
+    /**
+     * 校验身份断言
+     *
+     * @param assertion 身份断言
+     * @param now       当前时间（毫秒时间戳）
+     * @return 校验通过时返回断言内容；格式错误、签名不符或已过期时返回 null
+     */
+    public Assertion verify(String assertion, long now) {
+        if (assertion == null || !assertion.startsWith(PREFIX)) {
+            return null;
+        }
+        int dot = assertion.indexOf('.', PREFIX.length());
+        if (dot < 0) {
+            return null;
+        }
+        String encoded = assertion.substring(PREFIX.length(), dot);
+        byte[] actual;
+        String payload;
+        try {
+            actual = DECODER.decode(assertion.substring(dot + 1));
+            if (!matches(encoded, actual)) {
+                return null;
+            }
+            payload = new String(DECODER.decode(encoded), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return parse(payload, now);
+    }
+
+    private boolean matches(String encoded, byte[] actual) {
+        if (actual.length != SIGNATURE_BYTES) {
+            return false;
+        }
+        for (ThreadLocal<Mac> mac : macs) {
+            if (MessageDigest.isEqual(signature(mac.get(), encoded), actual)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Assertion parse(String payload, long now) {
+        String[] fields = new String[FIELDS];
+        int start = 0;
+        for (int i = 0; i < FIELDS; i++) {
+            int end = i == FIELDS - 1 ? payload.length() : payload.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                return null;
+            }
+            fields[i] = payload.substring(start, end);
+            start = end + 1;
+        }
+        try {
+            long expiresAt = Long.parseLong(fields[6]);
+            if (expiresAt < now || fields[0].isEmpty() || fields[2].isEmpty()) {
+                return null;
+            }
+            JwtSessionBO session = JwtSessionBO.builder()
+                    .userId(fields[0])
+                    .username(StringUtils.defaultIfEmpty(fields[1], null))
+                    .sessionId(fields[2])
+                    .userType(fields[3].isEmpty() ? null : UserTypeEnum.valueOf(fields[3]))
+                    .loginTime(fields[4].isEmpty() ? null : Long.parseLong(fields[4]))
+                    .build();
+            return new Assertion(session, StringUtils.defaultIfEmpty(fields[5], null), expiresAt);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] signature(Mac mac, String encoded) {
+        byte[] full = mac.doFinal(encoded.getBytes(StandardCharsets.US_ASCII));
+        byte[] truncated = new byte[SIGNATURE_BYTES];
+        System.arraycopy(full, 0, truncated, 0, SIGNATURE_BYTES);
+        return truncated;
+    }
+
+    private static ThreadLocal<Mac> macFor(byte[] key) {
+        Mac prototype;
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(key, ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化身份断言签名密钥失败", e);
+        }
+        return ThreadLocal.withInitial(() -> {
+            try {
+                return (Mac) prototype.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException("当前 JVM 的 HmacSHA256 实现不支持复制", e);
+            }
+        });
+    }
+
+    /**
+     * 校验通过的身份断言
+     *
+     * @param session          会话信息（userId、username、sessionId、userType、loginTime）
+     * @param authorityVersion 权限版本，未携带时为 null
+     * @param expiresAt        过期时间（毫秒时间戳）
+     */
+    public record Assertion(JwtSessionBO session, String authorityVersion, long expiresAt) {
+    }
+}
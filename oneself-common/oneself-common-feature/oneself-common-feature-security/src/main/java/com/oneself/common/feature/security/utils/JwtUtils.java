@@ -4,7 +4,12 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.oneself.common.core.utils.JacksonUtils;
 import com.oneself.common.feature.security.config.JwtConfig;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import lombok.extern.slf4j.Slf4j;
@@ -13,6 +18,18 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -21,34 +38,53 @@ import java.util.UUID;
  * date 2025/9/9
  * packageName com.oneself.utils
  * className JwtUtils
- * description JWT 工具类，从配置类读取密钥
+ * description JWT 工具类，从配置类读取密钥，密钥与解析器在初始化时构建一次，支持按 kid 轮换密钥
  * version 1.0
  */
 @Slf4j
 @Component
 public class JwtUtils {
 
+    /**
+     * 访问令牌中的用户权限（JSON：type、roleCodes、permissionCodes）
+     */
+    public static final String CLAIM_AUTHORITY = "authority";
+
+    /**
+     * 访问令牌中的权限版本（与会话内容摘要一致）
+     */
+    public static final String CLAIM_AUTHORITY_VERSION = "av";
+
     private static JwtConfig jwtConfig;
 
+    /**
+     * 密钥环（配置注入时构建一次，之后只读）
+     */
+    private static volatile KeyRing keyRing;
+
     /**
      * 通过静态方法注入 JwtConfig（Spring 会在初始化后调用）
      */
     @Autowired
     public void setJwtConfig(JwtConfig jwtConfig) {
         JwtUtils.jwtConfig = jwtConfig;
-        log.info("JwtUtils 已初始化，使用配置的 JWT 密钥");
+        JwtUtils.keyRing = KeyRing.build(jwtConfig);
+        // 密钥变更后旧的验签结果不再可信
+        VerifiedTokenCache.invalidateAll();
+        log.info("JwtUtils 已初始化，当前密钥 kid={}，验签密钥数={}", keyRing.primaryKeyId(), keyRing.keys().size());
     }
 
     /**
-     * 获取 JWT 密钥
+     * 获取密钥环
      *
-     * @return JWT 密钥
+     * @return 密钥环
      */
-    private static String getJwtSecret() {
-        if (jwtConfig == null) {
+    private static KeyRing getKeyRing() {
+        KeyRing ring = keyRing;
+        if (ring == null) {
             throw new IllegalStateException("JwtConfig 未初始化，请确保 JwtUtils 已被 Spring 管理");
         }
-        return jwtConfig.getSecret();
+        return ring;
     }
 
     /**
@@ -83,13 +119,46 @@ public class JwtUtils {
         }
 
         try {
-            SecretKey signingKey = generateSigningKey();
+            KeyRing ring = getKeyRing();
 
-            // 不设置 exp / iat，只签名 + subject
+            // 不设置 exp / iat，只签名 + subject；JwtBuilder 本身有状态不可复用，密钥与 kid 已预先构建
             return Jwts.builder()
+                    .header().keyId(ring.primaryKeyId()).and() // 密钥 ID（kid），验签时据此选择密钥
                     .subject(subject)      // 主题（sub字段，存放业务数据）
                     .issuer(getJwtIssuer())    // 签发者
-                    .signWith(signingKey)  // 签名配置
+                    .signWith(ring.primaryKey())  // 签名配置
+                    .compact();
+        } catch (Exception e) {
+            throw new RuntimeException("生成 JWT 失败", e);
+        }
+    }
+
+    /**
+     * 生成短时访问令牌（带 iat / exp，携带用户权限与权限版本，网关校验时无需访问 Redis）
+     *
+     * @param subject          令牌主题（会话信息 JSON）
+     * @param authority        用户权限（JSON）
+     * @param authorityVersion 权限版本
+     * @param ttl              有效期
+     * @return 加密后的 JWT 字符串
+     */
+    public static String createAccessJWT(String subject, String authority, String authorityVersion, Duration ttl) {
+        if (Objects.isNull(subject) || subject.trim().isEmpty()) {
+            throw new IllegalArgumentException("JWT 主题（subject）不能为空");
+        }
+
+        try {
+            KeyRing ring = getKeyRing();
+            long now = System.currentTimeMillis();
+            return Jwts.builder()
+                    .header().keyId(ring.primaryKeyId()).and()
+                    .subject(subject)
+                    .issuer(getJwtIssuer())
+                    .issuedAt(new Date(now))
+                    .expiration(new Date(now + ttl.toMillis()))
+                    .claim(CLAIM_AUTHORITY, authority)
+                    .claim(CLAIM_AUTHORITY_VERSION, authorityVersion)
+                    .signWith(ring.primaryKey())
                     .compact();
         } catch (Exception e) {
             throw new RuntimeException("生成 JWT 失败", e);
@@ -97,17 +166,12 @@ public class JwtUtils {
     }
 
     /**
-     * 生成安全签名密钥（适配JJWT 0.13.x，确保密钥≥256位）
+     * 获取当前签名密钥（密钥环构建时生成，不再每次调用重新计算）
      *
      * @return 符合HS256算法的SecretKey
      */
     public static SecretKey generateSigningKey() {
-        String secret = getJwtSecret();
-        if (Objects.isNull(secret) || secret.length() < 32) {
-            throw new IllegalArgumentException("JWT 密钥不能为空且长度不能小于 32 个字符（256 位）");
-        }
-        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(secretBytes);
+        return getKeyRing().primaryKey();
     }
 
     /**
@@ -118,18 +182,32 @@ public class JwtUtils {
      * @throws Exception 解析失败（签名无效、格式错误等）
      */
     public static Claims parseJWT(String jwt) throws Exception {
+        return parseJWT(jwt, false);
+    }
+
+    /**
+     * 解析JWT
+     *
+     * @param jwt          待解析的 JWT 字符串
+     * @param allowExpired 是否接受已过期的访问令牌（刷新、登出时使用，签名仍会校验）
+     * @return Claims JWT 负载
+     * @throws Exception 解析失败（签名无效、格式错误、已过期等）
+     */
+    public static Claims parseJWT(String jwt, boolean allowExpired) throws Exception {
         if (Objects.isNull(jwt) || jwt.trim().isEmpty()) {
             throw new IllegalArgumentException("待解析的 JWT 字符串不能为空");
         }
 
         try {
-            SecretKey signingKey = generateSigningKey();
-
-            return Jwts.parser()
-                    .verifyWith(signingKey)          // 验证签名
-                    .build()                         // 构建解析器
-                    .parseSignedClaims(jwt)          // 解析带签名的JWT
-                    .getPayload();                   // 获取负载（不含 exp）
+            return getKeyRing().parse(jwt)       // 解析带签名的JWT（按 kid 选择验签密钥）
+                    .getPayload();                   // 获取负载
+        } catch (ExpiredJwtException e) {
+            // 过期检查在验签之后，能拿到 claims 说明签名有效
+            if (allowExpired) {
+                return e.getClaims();
+            }
+            log.debug("JWT 已过期，exp={}", e.getClaims().getExpiration());
+            throw new Exception("令牌已过期，请刷新", e);
         } catch (SignatureException e) {
             log.error("JWT 签名验证失败：JWT= {}, 原因 = {}", jwt, e.getMessage(), e);
             throw new Exception("令牌签名无效，可能已被篡改，请重新登录", e);
@@ -145,6 +223,124 @@ public class JwtUtils {
         }
     }
 
+    /**
+     * 密钥环：当前签名密钥 + 轮换前的旧密钥，按 kid 索引，构建后不可变
+     *
+     * @param primaryKeyId    当前签名密钥 kid
+     * @param primaryKey      当前签名密钥
+     * @param keys            kid -> 验签密钥（包含当前密钥）
+     * @param parser          线程安全的解析器，按 Token 头部 kid 选择验签密钥，无 kid 或 kid 未知时使用当前密钥
+     * @param fallbackParsers 旧密钥解析器，无 kid 或 kid 未知的 Token 用当前密钥验签失败时依次尝试
+     */
+    private record KeyRing(String primaryKeyId, SecretKey primaryKey, Map<String, SecretKey> keys, JwtParser parser,
+                           List<JwtParser> fallbackParsers) {
+
+        /**
+         * 旧密钥中 kid 与密钥的分隔符（kid:secret）
+         */
+        private static final char KEY_ID_SEPARATOR = ':';
+
+        static KeyRing build(JwtConfig config) {
+            SecretKey primaryKey = toKey(config.getSecret());
+            String primaryKeyId = config.getKeyId() != null ? config.getKeyId() : deriveKeyId(config.getSecret());
+
+            Map<String, SecretKey> keys = new LinkedHashMap<>();
+            keys.put(primaryKeyId, primaryKey);
+            List<JwtParser> fallbackParsers = new ArrayList<>();
+            for (String previousSecret : config.getPreviousSecrets()) {
+                // 轮换前使用了显式 kid（ONESELF_JWT_KEY_ID）时以 kid:secret 配置，否则 kid 由密钥派生
+                String keyId;
+                String secret;
+                int separator = previousSecret.indexOf(KEY_ID_SEPARATOR);
+                if (separator > 0 && previousSecret.length() - separator - 1 >= 32) {
+                    keyId = previousSecret.substring(0, separator);
+                    secret = previousSecret.substring(separator + 1);
+                } else {
+                    keyId = deriveKeyId(previousSecret);
+                    secret = previousSecret;
+                }
+                SecretKey key = toKey(secret);
+                if (keys.putIfAbsent(keyId, key) == null) {
+                    fallbackParsers.add(Jwts.parser().verifyWith(key).build());
+                }
+            }
+            Map<String, SecretKey> immutableKeys = Collections.unmodifiableMap(keys);
+
+            JwtParser parser = Jwts.parser()
+                    .keyLocator(new LocatorAdapter<Key>() {
+                        @Override
+                        protected Key locate(ProtectedHeader header) {
+                            String kid = header.getKeyId();
+                            // 兼容轮换前签发的无 kid Token；当前密钥验签失败时再尝试旧密钥
+                            return kid == null ? primaryKey : immutableKeys.getOrDefault(kid, primaryKey);
+                        }
+                    })
+                    .build();
+            return new KeyRing(primaryKeyId, primaryKey, immutableKeys, parser, List.copyOf(fallbackParsers));
+        }
+
+        /**
+         * 解析并验签：按 kid 选择密钥；无 kid 或 kid 未知的 Token 用当前密钥验签失败时依次尝试旧密钥
+         */
+        Jws<Claims> parse(String jwt) {
+            try {
+                return parser.parseSignedClaims(jwt);
+            } catch (SignatureException e) {
+                if (fallbackParsers.isEmpty() || keys.containsKey(readKeyId(jwt))) {
+                    throw e;
+                }
+                for (JwtParser fallback : fallbackParsers) {
+                    try {
+                        return fallback.parseSignedClaims(jwt);
+                    } catch (SignatureException ignored) {
+                        // 继续尝试下一个旧密钥
+                    }
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * 读取 Token 头部的 kid（仅在验签失败时调用），无 kid 或头部无法解析时返回 null
+         */
+        private static String readKeyId(String jwt) {
+            int dot = jwt.indexOf('.');
+            if (dot <= 0) {
+                return null;
+            }
+            try {
+                JsonNode header = JacksonUtils.fromJsonToNode(
+                        new String(Base64.getUrlDecoder().decode(jwt.substring(0, dot)), StandardCharsets.UTF_8));
+                JsonNode kid = header != null ? header.get("kid") : null;
+                return kid != null && kid.isTextual() ? kid.asText() : null;
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        /**
+         * 生成安全签名密钥（适配JJWT 0.13.x，确保密钥≥256位）
+         */
+        private static SecretKey toKey(String secret) {
+            if (Objects.isNull(secret) || secret.length() < 32) {
+                throw new IllegalArgumentException("JWT 密钥不能为空且长度不能小于 32 个字符（256 位）");
+            }
+            return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * 由密钥摘要派生 kid（SHA-256 前 8 字节），同一密钥在所有节点上得到相同 kid
+         */
+        private static String deriveKeyId(String secret) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(digest, 0, 8);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("当前 JVM 不支持 SHA-256", e);
+            }
+        }
+    }
+
     /**
      * 测试方法
      */
@@ -1,12 +1,15 @@
 package com.oneself.common.feature.security.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.oneself.common.core.exception.OneselfException;
 import com.oneself.common.core.utils.JacksonUtils;
 import com.oneself.common.feature.security.model.bo.JwtSessionBO;
 import com.oneself.common.feature.security.model.bo.LoginUserBO;
 import com.oneself.common.infra.redis.model.enums.RedisKeyPrefixEnum;
+import com.oneself.common.infra.redis.script.LoginSessionScript;
+import com.oneself.common.infra.redis.script.LuaScriptRegistry;
 import com.oneself.common.feature.security.model.enums.UserTypeEnum;
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,8 +17,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author liuhuan
@@ -26,7 +29,7 @@ import java.util.concurrent.TimeUnit;
  * Security 工具类，提供：
  * - JWT 解析 / 会话管理
  * - ThreadLocal 缓存当前用户
- * - 角色 / 权限校验
+ * - 角色 / 权限校验（经网关转发的请求按 会话 + 权限版本 本地缓存用户信息，权限版本不变时不访问 Redis）
  * version 1.0
  */
 @Slf4j
@@ -36,13 +39,22 @@ public class SecurityUtils {
 
     private final HttpServletRequest request;
     private final RedisTemplate<String, String> redisTemplate;
+    private final LuaScriptRegistry luaScriptRegistry;
 
     private static final ThreadLocal<JwtSessionBO> USER_HOLDER = new ThreadLocal<>();
     private static final String DEFAULT_USER = "system";
 
-    private static final long SESSION_TIMEOUT_HOURS = 1; // 滑动过期时长
-    private static final long RENEW_THRESHOLD_MINUTES = 10; // 滑动续期阈值
-    private static final long ABSOLUTE_EXPIRE_DAYS = 7; // 最大绝对过期天数
+    private static final Duration SESSION_TIMEOUT = Duration.ofHours(1); // 滑动过期时长
+    private static final Duration RENEW_THRESHOLD = Duration.ofMinutes(10); // 滑动续期阈值
+    private static final Duration ABSOLUTE_EXPIRE = Duration.ofDays(7); // 最大绝对过期时长
+
+    /**
+     * 会话 ID + 权限版本 -> 用户信息（角色、权限），权限变化后版本随之变化，旧条目不再命中
+     */
+    private static final Cache<String, LoginUserBO> AUTHORITY_CACHE = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
 
     // ================== JWT & Session ==================
     public String resolveToken() {
@@ -55,37 +67,22 @@ public class SecurityUtils {
         if (StringUtils.isBlank(token)) return null;
 
         try {
-            Claims claims = JwtUtils.parseJWT(token);
-            String subject = claims.getSubject();
-            JwtSessionBO sessionBO = JacksonUtils.fromJson(subject, JwtSessionBO.class);
+            JwtSessionBO sessionBO = VerifiedTokenCache.resolve(token);
+            if (sessionBO == null) return null;
 
             String sessionId = sessionBO.getSessionId();
             String userId = sessionBO.getUserId();
-            String redisKey = RedisKeyPrefixEnum.LOGIN_SESSION.getPrefix() + sessionId;
-            String userKey = RedisKeyPrefixEnum.LOGIN_USER.getPrefix() + userId;
-
-            // 清理已过期 session（ZSet 中的老数据）
-            redisTemplate.opsForZSet().removeRangeByScore(userKey, 0, System.currentTimeMillis());
-
-            Long expire = redisTemplate.getExpire(redisKey, TimeUnit.MILLISECONDS);
-            if (expire > 0) {
-                // 绝对过期检查
-                long absoluteExpireMillis = TimeUnit.DAYS.toMillis(ABSOLUTE_EXPIRE_DAYS);
-                if (System.currentTimeMillis() - sessionBO.getLoginTime() > absoluteExpireMillis) {
-                    redisTemplate.delete(redisKey);
-                    redisTemplate.opsForZSet().remove(userKey, sessionId);
-                    log.warn("用户 [{}] 的 session [{}] 已超过 {} 天，强制过期", userId, sessionId, ABSOLUTE_EXPIRE_DAYS);
-                    return null;
-                }
-
-                // 滑动过期：必要时续期
-                refreshSessionIfNecessary(userId, sessionId, redisKey, userKey);
 
+            // 校验会话、绝对过期检查、滑动续期在同一个 Lua 脚本中完成（与 Gateway 共用）
+            String sessionJson = luaScriptRegistry.execute(redisTemplate, LoginSessionScript.NAME, String.class,
+                    LoginSessionScript.keys(sessionId, userId),
+                    LoginSessionScript.args(sessionId, sessionBO.getLoginTime(),
+                            ABSOLUTE_EXPIRE, SESSION_TIMEOUT, RENEW_THRESHOLD, sessionBO.getEpoch()));
+            if (StringUtils.isNotBlank(sessionJson)) {
                 USER_HOLDER.set(sessionBO);
                 return sessionBO;
-            } else {
-                redisTemplate.opsForZSet().remove(userKey, sessionId);
             }
+            log.debug("用户 [{}] 的 session [{}] 不存在或已过期", userId, sessionId);
 
         } catch (Exception e) {
             log.warn("token 解析失败", e);
@@ -93,18 +90,6 @@ public class SecurityUtils {
         return null;
     }
 
-    private void refreshSessionIfNecessary(String userId, String sessionId, String redisKey, String userKey) {
-        long ttlMinutes = redisTemplate.getExpire(redisKey, TimeUnit.MINUTES);
-        if (ttlMinutes > 0 && ttlMinutes < RENEW_THRESHOLD_MINUTES) {
-            redisTemplate.expire(redisKey, SESSION_TIMEOUT_HOURS, TimeUnit.HOURS);
-            redisTemplate.expire(userKey, SESSION_TIMEOUT_HOURS, TimeUnit.HOURS);
-
-            long newExpireAt = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(SESSION_TIMEOUT_HOURS);
-            redisTemplate.opsForZSet().add(userKey, sessionId, newExpireAt);
-            log.debug("用户 [{}] 的 session [{}] 已滑动续期 {} 小时", userId, sessionId, SESSION_TIMEOUT_HOURS);
-        }
-    }
-
     public JwtSessionBO getCurrentUser() {
         return USER_HOLDER.get();
     }
@@ -131,7 +116,7 @@ public class SecurityUtils {
 
     public void checkRole(String[] requiredRoles, boolean strict) {
         checkLogin();
-        LoginUserBO user = loadUserFromRedis(getCurrentUser().getSessionId());
+        LoginUserBO user = loadUser(getCurrentUser().getSessionId());
         if (user == null) {
             if (strict) throw new OneselfException("用户信息不存在");
             return;
@@ -148,7 +133,7 @@ public class SecurityUtils {
 
     public void checkPermission(String[] requiredPerms, boolean strict) {
         checkLogin();
-        LoginUserBO user = loadUserFromRedis(getCurrentUser().getSessionId());
+        LoginUserBO user = loadUser(getCurrentUser().getSessionId());
         if (user == null) {
             if (strict) throw new OneselfException("用户信息不存在");
             return;
@@ -163,6 +148,25 @@ public class SecurityUtils {
         }
     }
 
+    /**
+     * 读取当前会话的用户信息：请求携带网关身份断言时按权限版本使用本地缓存，否则读取 Redis
+     */
+    private LoginUserBO loadUser(String sessionId) {
+        Object authorityVersion = request.getAttribute(IdentityAssertionCodec.AUTHORITY_VERSION_ATTR);
+        if (authorityVersion == null) {
+            return loadUserFromRedis(sessionId);
+        }
+        String cacheKey = sessionId + ":" + authorityVersion;
+        LoginUserBO user = AUTHORITY_CACHE.getIfPresent(cacheKey);
+        if (user == null) {
+            user = loadUserFromRedis(sessionId);
+            if (user != null) {
+                AUTHORITY_CACHE.put(cacheKey, user);
+            }
+        }
+        return user;
+    }
+
     private LoginUserBO loadUserFromRedis(String userId) {
         String sessionKey = RedisKeyPrefixEnum.LOGIN_SESSION.getPrefix() + userId;
         String json = redisTemplate.opsForValue().get(sessionKey);
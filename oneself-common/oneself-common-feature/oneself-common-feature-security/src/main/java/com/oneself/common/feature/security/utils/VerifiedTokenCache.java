@@ -0,0 +1,191 @@
+package com.oneself.common.feature.security.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.oneself.common.core.utils.JacksonUtils;
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.feature.security.utils
+ * className VerifiedTokenCache
+ * description
+ * 已验签 Token 缓存，同一个 Token 重复请求时跳过 HMAC 验签与 subject JSON 解析：
+ * - 正向缓存：Token 摘要 -> 已验签的会话信息，容量与 TTL 均有上限
+ * - 负向缓存：伪造 / 格式错误的 Token 在短时间内直接拒绝，不再做任何密码学计算
+ * - 缓存 key 为 Token 的 SHA-256 摘要，堆内不保留 Token 原文
+ * - 缓存中的会话信息不对外暴露，每次返回副本，调用方修改不会影响其他请求
+ * 注意：只缓存签名校验结果，会话是否有效仍需由调用方校验 Redis（短时访问令牌由调用方决定是否跳过）
+ * version 1.0
+ */
+@Slf4j
+public final class VerifiedTokenCache {
+
+    private static final long POSITIVE_MAXIMUM_SIZE = 10_000; // 正向缓存最大条目数
+    private static final Duration POSITIVE_TTL = Duration.ofMinutes(10); // 正向缓存存活时长
+    private static final long NEGATIVE_MAXIMUM_SIZE = 10_000; // 负向缓存最大条目数
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds(30); // 负向缓存存活时长
+
+    /**
+     * 正向缓存（value 只在本类内读取，返回给调用方的是副本）
+     */
+    private static final Cache<ByteBuffer, VerifiedToken> VERIFIED = Caffeine.newBuilder()
+            .maximumSize(POSITIVE_MAXIMUM_SIZE)
+            .expireAfterWrite(POSITIVE_TTL)
+            .build();
+
+    /**
+     * 负向缓存
+     */
+    private static final Cache<ByteBuffer, Boolean> REJECTED = Caffeine.newBuilder()
+            .maximumSize(NEGATIVE_MAXIMUM_SIZE)
+            .expireAfterWrite(NEGATIVE_TTL)
+            .build();
+
+    private VerifiedTokenCache() {
+        throw new AssertionError("此工具类不允许实例化");
+    }
+
+    /**
+     * 解析并验签 Token，得到会话信息
+     *
+     * @param token JWT 字符串
+     * @return 会话信息，Token 非法或缺少会话必要字段时返回 null
+     */
+    public static JwtSessionBO resolve(String token) {
+        VerifiedToken verified = resolveToken(token);
+        return verified != null ? verified.session() : null;
+    }
+
+    /**
+     * 解析并验签 Token，得到会话信息与访问令牌中的权限
+     *
+     * @param token JWT 字符串
+     * @return 验签结果，Token 非法、已过期或缺少会话必要字段时返回 null
+     */
+    public static VerifiedToken resolveToken(String token) {
+        if (StringUtils.isBlank(token)) {
+            return null;
+        }
+
+        ByteBuffer digest = digest(token);
+        VerifiedToken cached = VERIFIED.getIfPresent(digest);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                return cached.copy();
+            }
+            VERIFIED.invalidate(digest);
+            return null;
+        }
+        if (REJECTED.getIfPresent(digest) != null) {
+            return null;
+        }
+
+        VerifiedToken verified = verify(token);
+        if (verified == null) {
+            REJECTED.put(digest, Boolean.TRUE);
+            return null;
+        }
+        if (verified.isExpired()) {
+            return null;
+        }
+        VERIFIED.put(digest, verified);
+        return verified.copy();
+    }
+
+    /**
+     * 清空缓存（密钥轮换等场景使用）
+     */
+    public static void invalidateAll() {
+        VERIFIED.invalidateAll();
+        REJECTED.invalidateAll();
+    }
+
+    /**
+     * 完整验签并解析 subject
+     *
+     * @param token JWT 字符串
+     * @return 验签结果，Token 非法时返回 null
+     */
+    private static VerifiedToken verify(String token) {
+        try {
+            Claims claims = JwtUtils.parseJWT(token);
+            JwtSessionBO sessionBO = JacksonUtils.fromJson(claims.getSubject(), JwtSessionBO.class);
+            if (sessionBO == null || StringUtils.isAnyBlank(sessionBO.getSessionId(), sessionBO.getUserId())
+                    || sessionBO.getLoginTime() == null) {
+                log.warn("JWT subject 缺少会话必要字段");
+                return null;
+            }
+            Date issuedAt = claims.getIssuedAt();
+            Date expiration = claims.getExpiration();
+            return new VerifiedToken(sessionBO, issuedAt == null ? 0L : issuedAt.getTime(),
+                    expiration == null ? Long.MAX_VALUE : expiration.getTime(),
+                    claims.get(JwtUtils.CLAIM_AUTHORITY, String.class),
+                    claims.get(JwtUtils.CLAIM_AUTHORITY_VERSION, String.class));
+        } catch (Exception e) {
+            log.warn("Token解析失败，error={}, message={}", e.getClass().getSimpleName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 计算 Token 的 SHA-256 摘要
+     */
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前 JVM 不支持 SHA-256", e);
+        }
+    }
+
+    /**
+     * 已验签的 Token
+     *
+     * @param session          会话信息
+     * @param issuedAt         Token 签发时间戳（毫秒），未设置 iat 时为 0
+     * @param expiresAt        Token 过期时间戳（毫秒），未设置 exp 时为 Long.MAX_VALUE
+     * @param authority        访问令牌中的用户权限（JSON），普通 Token 为 null
+     * @param authorityVersion 访问令牌中的权限版本，普通 Token 为 null
+     */
+    public record VerifiedToken(JwtSessionBO session, long issuedAt, long expiresAt, String authority,
+                                String authorityVersion) {
+
+        /**
+         * 复制会话信息（JwtSessionBO 可变，缓存实例不能交给调用方）
+         */
+        VerifiedToken copy() {
+            return new VerifiedToken(session.toBuilder().build(), issuedAt, expiresAt, authority, authorityVersion);
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+
+        /**
+         * 是否为短时访问令牌（带过期时间与用户权限，可不访问 Redis 直接校验）
+         */
+        public boolean isAccessToken() {
+            return expiresAt != Long.MAX_VALUE && authority != null && authorityVersion != null;
+        }
+
+        /**
+         * 令牌有效期（毫秒），未设置 iat 或 exp 时为 Long.MAX_VALUE
+         */
+        public long lifetimeMillis() {
+            return issuedAt == 0L || expiresAt == Long.MAX_VALUE ? Long.MAX_VALUE : expiresAt - issuedAt;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.oneself.common.feature.security.config;
+
+import com.oneself.common.feature.security.aspect.RequireAuthAspect;
+import com.oneself.common.feature.security.filter.SecurityContextFilter;
+import com.oneself.common.feature.security.provider.SecurityCurrentUserProvider;
+import com.oneself.common.feature.security.utils.JwtUtils;
+import com.oneself.common.feature.security.utils.SecurityUtils;
+import com.oneself.common.infra.redis.script.LuaScriptRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.feature.security.config
+ * className SecurityComponentConfigTest
+ * description 安全组件自动配置测试：启动类不扫描 com.oneself.common 时 Servlet 服务同样注册 SecurityContextFilter
+ * version 1.0
+ */
+class SecurityComponentConfigTest {
+
+    private static final String SECRET = "security-component-config-test-secret!!";
+
+    private static AutoConfigurations securityConfigurations() {
+        return AutoConfigurations.of(JwtConfig.class, IdentityAssertionConfig.class, SecurityComponentConfig.class);
+    }
+
+    private static RedisTemplate<String, String> redisTemplate() {
+        RedisTemplate<String, String> template = new RedisTemplate<>();
+        // 只用于满足依赖，测试中不建立连接
+        template.setConnectionFactory(new LettuceConnectionFactory());
+        return template;
+    }
+
+    @Test
+    void servletContextRegistersSecurityContextFilterWithoutComponentScan() {
+        new WebApplicationContextRunner()
+                .withConfiguration(securityConfigurations())
+                .withPropertyValues("ONESELF_JWT_SECRET=" + SECRET)
+                .withBean("redisTemplate", RedisTemplate.class, SecurityComponentConfigTest::redisTemplate)
+                .withBean(LuaScriptRegistry.class, () -> new LuaScriptRegistry(null, null))
+                .run(context -> {
+                    assertNull(context.getStartupFailure());
+                    assertEquals(1, context.getBeansOfType(SecurityContextFilter.class).size());
+                    assertEquals(1, context.getBeansOfType(SecurityUtils.class).size());
+                    assertEquals(1, context.getBeansOfType(RequireAuthAspect.class).size());
+                    assertEquals(1, context.getBeansOfType(SecurityCurrentUserProvider.class).size());
+                    assertEquals(1, context.getBeansOfType(JwtUtils.class).size());
+                });
+    }
+
+    @Test
+    void componentScannedSecurityUtilsIsNotRegisteredTwice() {
+        new WebApplicationContextRunner()
+                .withConfiguration(securityConfigurations())
+                .withPropertyValues("ONESELF_JWT_SECRET=" + SECRET)
+                .withBean("redisTemplate", RedisTemplate.class, SecurityComponentConfigTest::redisTemplate)
+                .withBean(LuaScriptRegistry.class, () -> new LuaScriptRegistry(null, null))
+                .withUserConfiguration(SecurityUtils.class, JwtUtils.class)
+                .run(context -> {
+                    assertNull(context.getStartupFailure());
+                    assertEquals(1, context.getBeansOfType(SecurityUtils.class).size());
+                    assertEquals(1, context.getBeansOfType(JwtUtils.class).size());
+                    assertEquals(1, context.getBeansOfType(SecurityContextFilter.class).size());
+                });
+    }
+
+    @Test
+    void reactiveContextOnlyRegistersJwtUtils() {
+        new ReactiveWebApplicationContextRunner()
+                .withConfiguration(securityConfigurations())
+                .withPropertyValues("ONESELF_JWT_SECRET=" + SECRET)
+                .run(context -> {
+                    assertNull(context.getStartupFailure());
+                    assertEquals(1, context.getBeansOfType(JwtUtils.class).size());
+                    assertTrue(context.getBeansOfType(SecurityUtils.class).isEmpty());
+                    assertTrue(context.getBeansOfType(SecurityContextFilter.class).isEmpty());
+                });
+    }
+}
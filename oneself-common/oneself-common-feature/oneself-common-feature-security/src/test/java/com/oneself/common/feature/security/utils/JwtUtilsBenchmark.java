@@ -0,0 +1,117 @@
+package com.oneself.common.feature.security.utils;
+
+import com.oneself.common.core.utils.JacksonUtils;
+import com.oneself.common.feature.security.config.JwtConfig;
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.feature.security.utils
+ * className JwtUtilsBenchmark
+ * description
+ * JwtUtils 签发与验签吞吐量基准测试，main 方法依次以 1、8、32 个线程运行：
+ * - createJWT / parseJWT：密钥环与解析器在初始化时构建一次
+ * - parseJWTWithPreviousKey：轮换后验签旧密钥签发的 Token（按 kid 直接选中旧密钥）
+ * - createJWTPerCallKey / parseJWTPerCallParser：改造前的做法，每次调用都由密钥字符串生成 SecretKey 并新建解析器
+ * 运行方式：mvn -pl oneself-common/oneself-common-feature/oneself-common-feature-security test-compile exec:exec
+ * -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-cp %classpath com.oneself.common.feature.security.utils.JwtUtilsBenchmark"
+ * version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    private static final int[] THREADS = {1, 8, 32};
+
+    private static final String SECRET = "oneself-jwt-benchmark-secret-32chars!!";
+    private static final String PREVIOUS_SECRET = "oneself-jwt-benchmark-previous-secret!!";
+
+    private String subject;
+    private String token;
+    private String previousKeyToken;
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREADS) {
+            new Runner(new OptionsBuilder()
+                    .include(JwtUtilsBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        subject = JacksonUtils.toJsonString(JwtSessionBO.builder()
+                .userId("1")
+                .username("admin")
+                .sessionId(JwtUtils.getUUID())
+                .loginTime(System.currentTimeMillis())
+                .epoch(0L)
+                .build());
+
+        // 先用旧密钥签发，再轮换为新密钥（旧密钥保留用于验签）
+        new JwtUtils().setJwtConfig(new JwtConfig(PREVIOUS_SECRET, "oneself", "", "", 0, ""));
+        previousKeyToken = JwtUtils.createJWT(subject);
+        new JwtUtils().setJwtConfig(new JwtConfig(SECRET, "oneself", "", PREVIOUS_SECRET, 0, ""));
+        token = JwtUtils.createJWT(subject);
+    }
+
+    @Benchmark
+    public String createJWT() {
+        return JwtUtils.createJWT(subject);
+    }
+
+    @Benchmark
+    public Claims parseJWT() throws Exception {
+        return JwtUtils.parseJWT(token);
+    }
+
+    @Benchmark
+    public Claims parseJWTWithPreviousKey() throws Exception {
+        return JwtUtils.parseJWT(previousKeyToken);
+    }
+
+    @Benchmark
+    public String createJWTPerCallKey() {
+        return Jwts.builder()
+                .subject(subject)
+                .issuer("oneself")
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    @Benchmark
+    public Claims parseJWTPerCallParser() {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
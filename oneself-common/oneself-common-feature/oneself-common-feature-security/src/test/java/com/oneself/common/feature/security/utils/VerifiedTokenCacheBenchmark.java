@@ -0,0 +1,124 @@
+package com.oneself.common.feature.security.utils;
+
+import com.oneself.common.core.utils.JacksonUtils;
+import com.oneself.common.feature.security.config.JwtConfig;
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.feature.security.utils
+ * className VerifiedTokenCacheBenchmark
+ * description
+ * 已验签 Token 缓存基准测试：
+ * - hit：正向缓存命中，只计算 SHA-256 摘要并返回会话副本
+ * - miss：缓存被清空后首次请求，完整验签、解析 subject 并写入缓存
+ * - parseEveryRequest：引入缓存前的做法，每次 JwtUtils.parseJWT + JacksonUtils.fromJson
+ * - forgedTokenRejected：伪造 Token 命中负向缓存，不做任何验签
+ * 运行方式：mvn -pl oneself-common/oneself-common-feature/oneself-common-feature-security test-compile exec:exec
+ * -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-cp %classpath com.oneself.common.feature.security.utils.VerifiedTokenCacheBenchmark"
+ * version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VerifiedTokenCacheBenchmark {
+
+    private static final String SECRET = "oneself-jwt-benchmark-secret-32chars!!";
+
+    /**
+     * 活跃 Token 数，小于正向缓存容量，预热后全部命中
+     */
+    private static final int TOKENS = 1_000;
+
+    private String[] tokens;
+    private String forgedToken;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VerifiedTokenCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        new JwtUtils().setJwtConfig(new JwtConfig(SECRET, "oneself", "", "", 0, ""));
+        long now = System.currentTimeMillis();
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            JwtSessionBO sessionBO = JwtSessionBO.builder()
+                    .userId(String.valueOf(i))
+                    .username("user" + i)
+                    .sessionId(JwtUtils.getUUID())
+                    .loginTime(now)
+                    .epoch(0L)
+                    .build();
+            tokens[i] = JwtUtils.createJWT(JacksonUtils.toJsonString(sessionBO));
+            VerifiedTokenCache.resolveToken(tokens[i]);
+        }
+
+        // 改写签名中间的一个字符得到伪造 Token（末尾字符含填充位，改写后可能仍能通过验签），首次校验失败后进入负向缓存
+        String token = tokens[0];
+        int index = token.length() - 10;
+        char replaced = token.charAt(index) == 'A' ? 'B' : 'A';
+        forgedToken = token.substring(0, index) + replaced + token.substring(index + 1);
+        VerifiedTokenCache.resolveToken(forgedToken);
+    }
+
+    private String nextToken() {
+        return tokens[ThreadLocalRandom.current().nextInt(TOKENS)];
+    }
+
+    @Benchmark
+    public VerifiedTokenCache.VerifiedToken hit() {
+        return VerifiedTokenCache.resolveToken(nextToken());
+    }
+
+    @Benchmark
+    public VerifiedTokenCache.VerifiedToken miss(ColdCache coldCache) {
+        return VerifiedTokenCache.resolveToken(nextToken());
+    }
+
+    @Benchmark
+    public JwtSessionBO parseEveryRequest() throws Exception {
+        return JacksonUtils.fromJson(JwtUtils.parseJWT(nextToken()).getSubject(), JwtSessionBO.class);
+    }
+
+    @Benchmark
+    public VerifiedTokenCache.VerifiedToken forgedTokenRejected() {
+        return VerifiedTokenCache.resolveToken(forgedToken);
+    }
+
+    /**
+     * 每次调用前清空缓存，保证 miss 走完整验签
+     */
+    @State(Scope.Thread)
+    public static class ColdCache {
+
+        @Setup(Level.Invocation)
+        public void invalidate() {
+            VerifiedTokenCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.oneself.common.infra.redis.cache;
+
+import com.oneself.common.infra.redis.model.enums.RedisKeyPrefixEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.infra.redis.cache
+ * className ResponseCachePurger
+ * description
+ * 网关响应缓存清理：下游服务写数据后按标签通知网关清理缓存的响应。
+ * 网关缓存的每个响应默认带有 {路由 ID} 与 {路由 ID}:{资源名} 两个标签，
+ * 例如 /oneself-system/dept/tree 的标签为 oneself-system 与 oneself-system:dept。
+ * 存在事务时在事务提交后发送，避免回滚后缓存被提前清理又被旧数据回填
+ * version 1.0
+ */
+@Slf4j
+public class ResponseCachePurger {
+
+    /**
+     * 清理通知频道，消息内容为逗号分隔的标签
+     */
+    public static final String PURGE_CHANNEL = RedisKeyPrefixEnum.RESPONSE_CACHE.getPrefix() + "purge";
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public ResponseCachePurger(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 按标签清理网关响应缓存
+     *
+     * @param tags 标签
+     */
+    public void purge(String... tags) {
+        String message = Arrays.stream(tags)
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(tag -> !tag.isEmpty())
+                .distinct()
+                .collect(Collectors.joining(","));
+        if (message.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(message);
+                }
+            });
+        } else {
+            publish(message);
+        }
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(PURGE_CHANNEL, message);
+            log.debug("已发送网关响应缓存清理通知，tags={}", message);
+        } catch (Exception e) {
+            // 通知失败不影响业务写入，缓存最迟在 TTL 到期后失效
+            log.warn("网关响应缓存清理通知发送失败，tags={}, error={}", message, e.getMessage());
+        }
+    }
+}
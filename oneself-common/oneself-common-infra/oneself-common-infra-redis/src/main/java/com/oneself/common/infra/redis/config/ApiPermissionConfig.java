@@ -0,0 +1,23 @@
+package com.oneself.common.infra.redis.config;
+
+import com.oneself.common.infra.redis.permission.ApiPermissionPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.infra.redis.config
+ * className ApiPermissionConfig
+ * description 网关接口权限规则发布配置
+ * version 1.0
+ */
+@Configuration
+public class ApiPermissionConfig {
+
+    @Bean
+    public ApiPermissionPublisher apiPermissionPublisher(RedisTemplate<String, String> redisTemplate) {
+        return new ApiPermissionPublisher(redisTemplate);
+    }
+}
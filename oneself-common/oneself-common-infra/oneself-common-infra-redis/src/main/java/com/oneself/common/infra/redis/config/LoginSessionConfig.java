@@ -0,0 +1,23 @@
+package com.oneself.common.infra.redis.config;
+
+import com.oneself.common.infra.redis.session.LoginSessionRevoker;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.infra.redis.config
+ * className LoginSessionConfig
+ * description 用户会话代数（踢下线）配置
+ * version 1.0
+ */
+@Configuration
+public class LoginSessionConfig {
+
+    @Bean
+    public LoginSessionRevoker loginSessionRevoker(RedisTemplate<String, String> redisTemplate) {
+        return new LoginSessionRevoker(redisTemplate);
+    }
+}
@@ -0,0 +1,26 @@
+package com.oneself.common.infra.redis.config;
+
+import com.oneself.common.infra.redis.script.LuaScriptRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.infra.redis.config
+ * className LuaScriptConfig
+ * description Lua 脚本注册中心配置
+ * version 1.0
+ */
+@Configuration
+public class LuaScriptConfig {
+
+    @Bean
+    public LuaScriptRegistry luaScriptRegistry(RedisConnectionFactory connectionFactory,
+                                               ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new LuaScriptRegistry(connectionFactory, meterRegistryProvider);
+    }
+}
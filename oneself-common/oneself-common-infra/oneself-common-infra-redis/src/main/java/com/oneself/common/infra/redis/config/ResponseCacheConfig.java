@@ -0,0 +1,23 @@
+package com.oneself.common.infra.redis.config;
+
+import com.oneself.common.infra.redis.cache.ResponseCachePurger;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.infra.redis.config
+ * className ResponseCacheConfig
+ * description 网关响应缓存清理配置
+ * version 1.0
+ */
+@Configuration
+public class ResponseCacheConfig {
+
+    @Bean
+    public ResponseCachePurger responseCachePurger(RedisTemplate<String, String> redisTemplate) {
+        return new ResponseCachePurger(redisTemplate);
+    }
+}
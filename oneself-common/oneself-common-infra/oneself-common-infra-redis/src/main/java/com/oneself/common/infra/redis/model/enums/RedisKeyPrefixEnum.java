@@ -15,8 +15,12 @@ public enum RedisKeyPrefixEnum {
     SYSTEM_NAME("oneself:", "系统名称"),
     LOGIN_SESSION("oneself:login:session:", "登录会话"),
     LOGIN_USER("oneself:login:user:", "登录用户"),
+    LOGIN_EPOCH("oneself:login:epoch:", "用户会话代数"),
+    LOGIN_REVOCATION("oneself:login:revocation:", "登录会话吊销记录"),
     CAPTCHA("oneself:captcha:", "验证码"),
-    LOGIN_FAILURE("oneself:login:failure:", "登录失败次数");
+    LOGIN_FAILURE("oneself:login:failure:", "登录失败次数"),
+    RESPONSE_CACHE("oneself:gateway:response-cache:", "网关响应缓存"),
+    API_PERMISSION("oneself:gateway:api-permission:", "网关接口权限规则");
 
     private final String prefix;
     private final String desc;
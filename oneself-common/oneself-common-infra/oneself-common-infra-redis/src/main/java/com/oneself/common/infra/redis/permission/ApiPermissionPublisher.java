@@ -0,0 +1,117 @@
+package com.oneself.common.infra.redis.permission;
+
+import com.oneself.common.infra.redis.model.enums.RedisKeyPrefixEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.infra.redis.permission
+ * className ApiPermissionPublisher
+ * description
+ * 接口权限规则发布：系统服务把接口类型权限的路径规则整体写入 Redis 并发送变更通知，网关据此在转发前预先鉴权。
+ * - 规则以文本保存，每行一条：{权限编码}\t{路径规则}，网关只需按行拆分，不依赖 JSON 结构
+ * - 存在事务时在事务提交后读取并发布，避免发布未提交或已回滚的数据
+ * version 1.0
+ */
+@Slf4j
+public class ApiPermissionPublisher {
+
+    /**
+     * 规则 key
+     */
+    public static final String RULES_KEY = RedisKeyPrefixEnum.API_PERMISSION.getPrefix() + "rules";
+
+    /**
+     * 变更通知频道，消息内容为发布时间戳
+     */
+    public static final String CHANGE_CHANNEL = RedisKeyPrefixEnum.API_PERMISSION.getPrefix() + "changed";
+
+    private static final char FIELD_SEPARATOR = '\t';
+    private static final char LINE_SEPARATOR = '\n';
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public ApiPermissionPublisher(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 发布全部接口权限规则（整体替换）
+     *
+     * @param rules 规则查询，存在事务时在事务提交后执行
+     */
+    public void publish(Supplier<List<ApiPermissionRule>> rules) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doPublish(rules);
+                }
+            });
+        } else {
+            doPublish(rules);
+        }
+    }
+
+    /**
+     * 编码规则（忽略编码或路径为空的规则）
+     *
+     * @param rules 规则
+     * @return 文本
+     */
+    public static String encode(List<ApiPermissionRule> rules) {
+        StringBuilder builder = new StringBuilder();
+        for (ApiPermissionRule rule : rules) {
+            if (isBlank(rule.code()) || isBlank(rule.path())) {
+                continue;
+            }
+            builder.append(rule.code().trim()).append(FIELD_SEPARATOR).append(rule.path().trim()).append(LINE_SEPARATOR);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 解码规则（忽略格式错误的行）
+     *
+     * @param text 文本
+     * @return 规则
+     */
+    public static List<ApiPermissionRule> decode(String text) {
+        List<ApiPermissionRule> rules = new ArrayList<>();
+        if (text == null) {
+            return rules;
+        }
+        for (String line : text.split(String.valueOf(LINE_SEPARATOR))) {
+            int separator = line.indexOf(FIELD_SEPARATOR);
+            if (separator <= 0 || separator == line.length() - 1) {
+                continue;
+            }
+            rules.add(new ApiPermissionRule(line.substring(0, separator), line.substring(separator + 1)));
+        }
+        return rules;
+    }
+
+    private void doPublish(Supplier<List<ApiPermissionRule>> rules) {
+        try {
+            List<ApiPermissionRule> list = rules.get();
+            redisTemplate.opsForValue().set(RULES_KEY, encode(list));
+            redisTemplate.convertAndSend(CHANGE_CHANNEL, String.valueOf(System.currentTimeMillis()));
+            log.info("已发布网关接口权限规则，规则数={}", list.size());
+        } catch (Exception e) {
+            // 发布失败不影响业务写入，网关定期重新读取规则，下游服务仍会校验权限
+            log.warn("网关接口权限规则发布失败，error={}", e.getMessage());
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
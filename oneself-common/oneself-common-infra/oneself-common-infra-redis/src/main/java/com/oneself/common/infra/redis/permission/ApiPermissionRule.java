@@ -0,0 +1,15 @@
+package com.oneself.common.infra.redis.permission;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.infra.redis.permission
+ * className ApiPermissionRule
+ * description 接口权限规则：访问匹配 path 的接口需要拥有 code 权限
+ * version 1.0
+ *
+ * @param code 权限编码
+ * @param path 网关侧的接口路径规则（可带 HTTP 方法前缀，例如 "POST /oneself-system/user"）
+ */
+public record ApiPermissionRule(String code, String path) {
+}
@@ -0,0 +1,76 @@
+package com.oneself.common.infra.redis.script;
+
+import com.oneself.common.infra.redis.model.enums.RedisKeyPrefixEnum;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.infra.redis.script
+ * className LoginSessionScript
+ * description
+ * 登录会话校验 + 滑动续期脚本，Gateway 与 SecurityUtils 共用，一次 Redis 往返完成：
+ * - 校验会话存在性、绝对过期时间与用户会话代数（Token 中的代数小于当前代数即已被踢下线）
+ * - 必要时滑动续期（同时清理用户会话集合中的过期 sessionId）并返回会话内容
+ * version 1.0
+ */
+public final class LoginSessionScript {
+
+    /**
+     * 脚本名（lua/login-session-validate.lua），通过 LuaScriptRegistry 执行
+     */
+    public static final String NAME = "login-session-validate";
+
+    private LoginSessionScript() {
+        throw new AssertionError("此工具类不允许实例化");
+    }
+
+    /**
+     * 构建脚本 KEYS
+     *
+     * @param sessionId 会话 ID
+     * @param userId    用户 ID
+     * @return [会话 key, 用户会话集合 key, 用户会话代数 key]
+     */
+    public static List<String> keys(String sessionId, String userId) {
+        return List.of(RedisKeyPrefixEnum.LOGIN_SESSION.getPrefix() + sessionId,
+                RedisKeyPrefixEnum.LOGIN_USER.getPrefix() + userId,
+                epochKey(userId));
+    }
+
+    /**
+     * 用户会话代数 key
+     *
+     * @param userId 用户 ID
+     * @return 代数 key
+     */
+    public static String epochKey(String userId) {
+        return RedisKeyPrefixEnum.LOGIN_EPOCH.getPrefix() + userId;
+    }
+
+    /**
+     * 构建脚本 ARGV
+     *
+     * @param sessionId      会话 ID
+     * @param loginTime      登录时间戳（毫秒）
+     * @param absoluteExpire 最大绝对过期时长
+     * @param sessionTimeout 滑动过期时长
+     * @param renewThreshold 滑动续期阈值
+     * @param epoch          Token 中的用户会话代数（未携带时为 null，按 0 处理）
+     * @return 脚本参数
+     */
+    public static Object[] args(String sessionId, long loginTime, Duration absoluteExpire,
+                                Duration sessionTimeout, Duration renewThreshold, Long epoch) {
+        return new Object[]{
+                sessionId,
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(loginTime),
+                String.valueOf(absoluteExpire.toMillis()),
+                String.valueOf(sessionTimeout.toMillis()),
+                String.valueOf(renewThreshold.toMillis()),
+                String.valueOf(epoch != null ? epoch : 0L)
+        };
+    }
+}
@@ -0,0 +1,214 @@
+package com.oneself.common.infra.redis.script;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.StreamUtils;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.infra.redis.script
+ * className LuaScriptRegistry
+ * description
+ * Lua 脚本注册中心，所有 Redis Lua 脚本统一从这里执行：
+ * - 启动时扫描 classpath*:lua/*.lua，脚本名为文件名（不含 .lua），脚本内容与 SHA1 只计算一次
+ * - 启动后对 Redis 执行 SCRIPT LOAD 预加载（集群模式下 Lettuce 会广播到所有节点）
+ * - 执行时使用 EVALSHA，Redis 重启 / 故障切换后返回 NOSCRIPT 时自动回退 EVAL 并重新缓存
+ * - 记录每个脚本的耗时与错误数（redis.script，标签 script / outcome）
+ * version 1.0
+ */
+@Slf4j
+public class LuaScriptRegistry implements SmartInitializingSingleton {
+
+    /**
+     * 脚本扫描路径
+     */
+    public static final String SCRIPT_LOCATION = "classpath*:lua/*.lua";
+
+    private static final String METRIC_NAME = "redis.script";
+
+    private final RedisConnectionFactory connectionFactory;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    /**
+     * 脚本名 -> 脚本内容
+     */
+    private final Map<String, String> sources;
+
+    /**
+     * 脚本名 + 返回类型 -> 脚本（同一脚本可按不同返回类型执行）
+     */
+    private final Map<ScriptKey, RedisScript<?>> scripts = new ConcurrentHashMap<>();
+
+    /**
+     * 脚本名 + 执行结果 -> 计时器，避免每次执行都重新注册 Meter
+     */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public LuaScriptRegistry(RedisConnectionFactory connectionFactory, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.connectionFactory = connectionFactory;
+        this.meterRegistryProvider = meterRegistryProvider;
+        this.sources = Collections.unmodifiableMap(discover());
+    }
+
+    /**
+     * 启动完成后预加载所有脚本，Redis 暂不可用时不影响启动（执行时会自动回退 EVAL）
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (sources.isEmpty()) {
+            return;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            for (Map.Entry<String, String> entry : sources.entrySet()) {
+                String sha1 = connection.scriptingCommands().scriptLoad(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                log.debug("Lua 脚本预加载成功，script={}, sha1={}", entry.getKey(), sha1);
+            }
+            log.info("Lua 脚本预加载完成，scripts={}", sources.keySet());
+        } catch (Exception e) {
+            log.warn("Lua 脚本预加载失败，首次执行时将回退 EVAL，scripts={}, error={}", sources.keySet(), e.getMessage());
+        }
+    }
+
+    /**
+     * 获取脚本
+     *
+     * @param name       脚本名（lua 目录下的文件名，不含 .lua）
+     * @param resultType 返回类型
+     * @return 脚本
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RedisScript<T> get(String name, Class<T> resultType) {
+        return (RedisScript<T>) scripts.computeIfAbsent(new ScriptKey(name, resultType), key -> {
+            String source = sources.get(name);
+            if (source == null) {
+                throw new IllegalArgumentException("Lua 脚本不存在：" + name + "，已注册：" + sources.keySet());
+            }
+            DefaultRedisScript<T> script = new DefaultRedisScript<>(source, resultType);
+            // 提前计算 SHA1
+            script.getSha1();
+            return script;
+        });
+    }
+
+    /**
+     * 已注册的脚本名
+     */
+    public Set<String> names() {
+        return sources.keySet();
+    }
+
+    /**
+     * 同步执行脚本
+     *
+     * @param template   RedisTemplate
+     * @param name       脚本名
+     * @param resultType 返回类型
+     * @param keys       KEYS
+     * @param args       ARGV
+     * @return 执行结果
+     */
+    public <T> T execute(RedisTemplate<String, ?> template, String name, Class<T> resultType,
+                         List<String> keys, Object... args) {
+        RedisScript<T> script = get(name, resultType);
+        long start = System.nanoTime();
+        try {
+            T result = template.execute(script, keys, args);
+            record(name, "success", start);
+            return result;
+        } catch (RuntimeException e) {
+            record(name, "error", start);
+            throw e;
+        }
+    }
+
+    /**
+     * 响应式执行脚本
+     *
+     * @param template   ReactiveRedisTemplate
+     * @param name       脚本名
+     * @param resultType 返回类型
+     * @param keys       KEYS
+     * @param args       ARGV
+     * @return 执行结果（脚本返回 nil 时为空）
+     */
+    public <T> Mono<T> execute(ReactiveRedisTemplate<String, ?> template, String name, Class<T> resultType,
+                               List<String> keys, List<?> args) {
+        RedisScript<T> script = get(name, resultType);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return template.execute(script, keys, args)
+                    .next()
+                    .doOnSuccess(result -> record(name, "success", start))
+                    .doOnError(e -> record(name, "error", start));
+        });
+    }
+
+    private void record(String name, String outcome, long startNanos) {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry == null) {
+            return;
+        }
+        timers.computeIfAbsent(name + ":" + outcome, k -> Timer.builder(METRIC_NAME)
+                        .description("Redis Lua 脚本执行耗时")
+                        .tag("script", name)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 扫描 classpath 下的所有 Lua 脚本
+     */
+    private static Map<String, String> discover() {
+        Map<String, String> discovered = new LinkedHashMap<>();
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver().getResources(SCRIPT_LOCATION);
+            for (Resource resource : resources) {
+                String filename = resource.getFilename();
+                if (filename == null) {
+                    continue;
+                }
+                String name = filename.substring(0, filename.length() - ".lua".length());
+                if (discovered.containsKey(name)) {
+                    log.warn("Lua 脚本重名，忽略：{}", resource.getDescription());
+                    continue;
+                }
+                try (InputStream in = resource.getInputStream()) {
+                    discovered.put(name, StreamUtils.copyToString(in, StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("扫描 Lua 脚本失败：" + SCRIPT_LOCATION, e);
+        }
+        log.info("发现 Lua 脚本 {} 个：{}", discovered.size(), discovered.keySet());
+        return discovered;
+    }
+
+    private record ScriptKey(String name, Class<?> resultType) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.oneself.common.infra.redis.session;
+
+import com.oneself.common.infra.redis.model.enums.RedisKeyPrefixEnum;
+import com.oneself.common.infra.redis.script.LoginSessionScript;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.common.infra.redis.session
+ * className LoginSessionRevoker
+ * description
+ * 用户会话代数：登录时把用户当前代数写入 Token，会话校验时 Token 中的代数小于当前代数即视为已被踢下线。
+ * - 踢下线（退出所有设备、禁用、删除用户）只需对代数 INCR 一次，不必逐个删除会话 key、逐个移出用户会话集合
+ * - 被踢下线的会话 key 与集合成员在下次校验时清理，未再访问的随会话过期自然清理
+ * - 代数 key 不设置过期时间：过期后代数从 0 重新开始，再次踢下线只能递增到已签发过的代数，仍在有效期内的旧会话不会失效
+ * 短时访问令牌在网关不访问 Redis，吊销（登出、踢下线）另外以记录的形式发布：
+ * - 记录写入 {@link #RECENT_KEY}（ZSet，分值为吊销时间）并通过 {@link #CHANNEL} 推送，网关据此维护本地过滤器，
+ *   启动或重新订阅时读取最近 {@link #RETENTION} 内的记录补齐
+ * - 记录格式：s:{sessionId}（单个会话）、e:{userId}:{代数}（该代数签发的全部会话）
+ * version 1.0
+ */
+@Slf4j
+public class LoginSessionRevoker {
+
+    /**
+     * 最近吊销记录（ZSet，member 为记录，score 为吊销时间戳）
+     */
+    public static final String RECENT_KEY = RedisKeyPrefixEnum.LOGIN_REVOCATION.getPrefix() + "recent";
+
+    /**
+     * 吊销记录推送频道，消息内容为记录
+     */
+    public static final String CHANNEL = RedisKeyPrefixEnum.LOGIN_REVOCATION.getPrefix() + "events";
+
+    /**
+     * 吊销记录保留时长，访问令牌有效期不能超过该值
+     */
+    public static final Duration RETENTION = Duration.ofHours(1);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public LoginSessionRevoker(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 用户当前会话代数（登录时写入 Token）
+     *
+     * @param userId 用户 ID
+     * @return 当前代数，未踢过下线时为 0
+     */
+    public long currentEpoch(String userId) {
+        String value = redisTemplate.opsForValue().get(LoginSessionScript.epochKey(userId));
+        if (value == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            log.warn("用户会话代数格式错误，按 0 处理，userId={}, value={}", userId, value);
+            return 0L;
+        }
+    }
+
+    /**
+     * 单个会话吊销记录
+     *
+     * @param sessionId 会话 ID
+     * @return 记录
+     */
+    public static String sessionRecord(String sessionId) {
+        return "s:" + sessionId;
+    }
+
+    /**
+     * 用户某一代数的吊销记录
+     *
+     * @param userId 用户 ID
+     * @param epoch  被吊销的代数
+     * @return 记录
+     */
+    public static String epochRecord(String userId, long epoch) {
+        return "e:" + userId + ":" + epoch;
+    }
+
+    /**
+     * 发布单个会话的吊销记录（登出时调用，会话 key 由调用方删除）
+     *
+     * @param sessionId 会话 ID
+     */
+    public void revokeSession(String sessionId) {
+        publish(List.of(sessionRecord(sessionId)));
+    }
+
+    /**
+     * 使用户此前登录的所有会话失效（立即执行；事务内的调用方需在事务提交后调用，避免回滚后用户仍被踢下线）
+     *
+     * @param userIds 用户 ID
+     */
+    public void revokeAll(Collection<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        doRevoke(List.copyOf(userIds));
+    }
+
+    private void doRevoke(List<String> userIds) {
+        List<Object> results;
+        try {
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String userId : userIds) {
+                    connection.stringCommands().incr(LoginSessionScript.epochKey(userId).getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+            log.info("用户会话已全部失效，userIds={}", userIds);
+        } catch (Exception e) {
+            log.error("用户会话失效失败，userIds={}", userIds, e);
+            return;
+        }
+
+        // 每个用户一条结果：INCR 后的代数；吊销的是递增前的代数
+        List<String> records = new ArrayList<>(userIds.size());
+        for (int i = 0; i < userIds.size(); i++) {
+            if (results.get(i) instanceof Long epoch) {
+                records.add(epochRecord(userIds.get(i), epoch - 1));
+            }
+        }
+        publish(records);
+    }
+
+    /**
+     * 写入吊销记录、清理超过保留时长的记录并推送
+     */
+    private void publish(List<String> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                byte[] key = RECENT_KEY.getBytes(StandardCharsets.UTF_8);
+                byte[] channel = CHANNEL.getBytes(StandardCharsets.UTF_8);
+                for (String record : records) {
+                    byte[] value = record.getBytes(StandardCharsets.UTF_8);
+                    connection.zSetCommands().zAdd(key, now, value);
+                    connection.publish(channel, value);
+                }
+                connection.zSetCommands().zRemRangeByScore(key, 0, now - RETENTION.toMillis());
+                connection.keyCommands().pExpire(key, RETENTION.toMillis());
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("发布会话吊销记录失败，records={}, error={}", records, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+-- 登录会话校验 + 滑动续期 Lua 脚本（一次往返完成校验、续期并返回会话内容）
+-- KEYS[1]: 会话 key（oneself:login:session:{sessionId}）
+-- KEYS[2]: 用户会话集合 key（oneself:login:user:{userId}）
+-- KEYS[3]: 用户会话代数 key（oneself:login:epoch:{userId}）
+-- ARGV[1]: sessionId
+-- ARGV[2]: 当前时间戳（毫秒）
+-- ARGV[3]: 登录时间戳（毫秒）
+-- ARGV[4]: 最大绝对过期时长（毫秒）
+-- ARGV[5]: 滑动过期时长（毫秒）
+-- ARGV[6]: 滑动续期阈值（毫秒）
+-- ARGV[7]: Token 中的用户会话代数
+-- 返回值: 会话有效时返回会话内容（JSON），否则返回空字符串
+
+local sessionKey = KEYS[1]
+local userKey = KEYS[2]
+local epochKey = KEYS[3]
+local sessionId = ARGV[1]
+local now = tonumber(ARGV[2])
+local loginTime = tonumber(ARGV[3])
+local absoluteExpire = tonumber(ARGV[4])
+local sessionTimeout = tonumber(ARGV[5])
+local renewThreshold = tonumber(ARGV[6])
+local tokenEpoch = tonumber(ARGV[7])
+
+-- 会话不存在或已过期
+local ttl = redis.call('PTTL', sessionKey)
+if ttl <= 0 then
+    redis.call('ZREM', userKey, sessionId)
+    return ''
+end
+
+-- 绝对过期检查
+if now - loginTime > absoluteExpire then
+    redis.call('DEL', sessionKey)
+    redis.call('ZREM', userKey, sessionId)
+    return ''
+end
+
+-- 用户会话代数检查：踢下线只递增代数，此前签发的会话在这里被发现时才清理
+local epoch = tonumber(redis.call('GET', epochKey) or '0')
+if tokenEpoch < epoch then
+    redis.call('DEL', sessionKey)
+    redis.call('ZREM', userKey, sessionId)
+    return ''
+end
+
+-- 滑动过期：剩余时间小于阈值时续期，顺带清理已过期 session（ZSet 中的老数据）
+if ttl < renewThreshold then
+    redis.call('PEXPIRE', sessionKey, sessionTimeout)
+    redis.call('ZREMRANGEBYSCORE', userKey, 0, now)
+    redis.call('ZADD', userKey, now + sessionTimeout, sessionId)
+    redis.call('PEXPIRE', userKey, sessionTimeout)
+end
+
+local payload = redis.call('GET', sessionKey)
+if not payload then
+    return ''
+end
+return payload
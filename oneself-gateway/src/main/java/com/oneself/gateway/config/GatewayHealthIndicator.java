@@ -1,56 +1,184 @@
 package com.oneself.gateway.config;
 
-import lombok.RequiredArgsConstructor;
+import com.oneself.gateway.properties.GatewayHealthProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.actuate.health.Health;
-import org.springframework.boot.actuate.health.HealthIndicator;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author liuhuan
  * date 2025/12/25
  * packageName com.oneself.config
  * className GatewayHealthIndicator
- * description Gateway 健康检查指示器
+ * description
+ * Gateway 健康检查指示器（响应式）：
+ * - 通过共享的响应式连接 PING Redis，不占用连接池、不阻塞事件循环；Redis 不可用时为 DOWN
+ * - 检查结果缓存 gateway.health.cache-ttl，期间的探测（包括并发探测）共用同一次检查
+ * - 详情中包含 Redis 延迟（最近一次与 p50/p95/p99）以及每个 lb:// 路由在注册中心的实例数，
+ *   下游服务无实例只在详情中标记，不影响网关自身的健康状态
  * version 1.0
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
-public class GatewayHealthIndicator implements HealthIndicator {
+public class GatewayHealthIndicator implements ReactiveHealthIndicator {
+
+    private static final String LOAD_BALANCER_SCHEME = "lb";
 
-    private final RedisTemplate<String, String> redisTemplate;
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+    private final RouteLocator routeLocator;
+    private final ObjectProvider<ReactiveDiscoveryClient> discoveryClientProvider;
+    private final GatewayHealthProperties healthProperties;
+    private final Timer redisLatency;
+
+    /**
+     * 缓存的检查结果，成功的结果按 cacheTtl 缓存，异常不缓存
+     */
+    private final Mono<Health> cachedHealth;
+
+    public GatewayHealthIndicator(ReactiveStringRedisTemplate reactiveRedisTemplate, RouteLocator routeLocator,
+                                  ObjectProvider<ReactiveDiscoveryClient> discoveryClientProvider,
+                                  GatewayHealthProperties healthProperties, MeterRegistry meterRegistry) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.routeLocator = routeLocator;
+        this.discoveryClientProvider = discoveryClientProvider;
+        this.healthProperties = healthProperties;
+        this.redisLatency = Timer.builder("gateway.health.redis.latency")
+                .description("健康检查 Redis PING 耗时")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.cachedHealth = Mono.defer(this::check)
+                .cache(health -> healthProperties.getCacheTtl(), error -> Duration.ZERO, () -> Duration.ZERO);
+    }
 
     @Override
-    public Health health() {
-        try {
-            // 检查 Redis 连接
-            String ping = null;
-            if (redisTemplate.getConnectionFactory() != null) {
-                ping = redisTemplate.getConnectionFactory()
-                        .getConnection()
-                        .ping();
-            }
+    public Mono<Health> health() {
+        return cachedHealth;
+    }
 
-            if ("PONG".equals(ping)) {
-                return Health.up()
-                        .withDetail("redis", "连接正常")
-                        .withDetail("status", "UP")
-                        .build();
-            } else {
-                return Health.down()
-                        .withDetail("redis", "连接异常")
-                        .withDetail("status", "DOWN")
-                        .build();
-            }
-        } catch (Exception e) {
-            log.error("健康检查失败", e);
-            return Health.down()
-                    .withDetail("redis", "连接失败: " + e.getMessage())
-                    .withDetail("status", "DOWN")
-                    .build();
+    private Mono<Health> check() {
+        Mono<Map<String, Object>> routes = healthProperties.isCheckRoutes() ? checkRoutes() : Mono.just(Map.of());
+        return Mono.zip(checkRedis(), routes)
+                .map(tuple -> {
+                    RedisCheck redis = tuple.getT1();
+                    Map<String, Object> routeDetails = tuple.getT2();
+                    Health.Builder builder = redis.up() ? Health.up() : Health.down();
+                    builder.withDetail("redis", redis.details());
+                    if (!routeDetails.isEmpty()) {
+                        builder.withDetail("routes", routeDetails);
+                        builder.withDetail("unreachableRoutes", unreachableRoutes(routeDetails));
+                    }
+                    return builder.build();
+                });
+    }
+
+    /**
+     * PING Redis（由 ReactiveRedisTemplate 管理连接，使用共享的原生连接）
+     */
+    private Mono<RedisCheck> checkRedis() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return reactiveRedisTemplate.execute(ReactiveRedisConnection::ping)
+                    .next()
+                    .timeout(healthProperties.getRedisTimeout())
+                    .map(pong -> {
+                        long elapsed = System.nanoTime() - start;
+                        redisLatency.record(elapsed, TimeUnit.NANOSECONDS);
+                        Map<String, Object> details = latencyDetails();
+                        details.put("status", "UP");
+                        details.put("latencyMs", TimeUnit.NANOSECONDS.toMillis(elapsed));
+                        return new RedisCheck(true, details);
+                    })
+                    .switchIfEmpty(Mono.fromSupplier(() -> redisDown("PING 无响应")))
+                    .onErrorResume(e -> {
+                        log.warn("健康检查 Redis PING 失败：{}", e.toString());
+                        return Mono.just(redisDown(e.toString()));
+                    });
+        });
+    }
+
+    private RedisCheck redisDown(String error) {
+        Map<String, Object> details = latencyDetails();
+        details.put("status", "DOWN");
+        details.put("error", error);
+        return new RedisCheck(false, details);
+    }
+
+    /**
+     * 最近的 PING 延迟分位数（毫秒）
+     */
+    private Map<String, Object> latencyDetails() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        for (ValueAtPercentile percentile : redisLatency.takeSnapshot().percentileValues()) {
+            details.put("p" + Math.round(percentile.percentile() * 100) + "Ms",
+                    Math.round(percentile.value(TimeUnit.MILLISECONDS) * 100) / 100.0);
         }
+        return details;
+    }
+
+    /**
+     * 查询每个 lb:// 路由在注册中心的实例数
+     */
+    private Mono<Map<String, Object>> checkRoutes() {
+        ReactiveDiscoveryClient discoveryClient = discoveryClientProvider.getIfAvailable();
+        if (discoveryClient == null) {
+            return Mono.just(Map.of());
+        }
+        return routeLocator.getRoutes()
+                .filter(route -> LOAD_BALANCER_SCHEME.equalsIgnoreCase(route.getUri().getScheme()))
+                .flatMap(route -> routeDetails(discoveryClient, route))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new);
+    }
+
+    private Mono<Map.Entry<String, Object>> routeDetails(ReactiveDiscoveryClient discoveryClient, Route route) {
+        String serviceId = route.getUri().getHost();
+        return discoveryClient.getInstances(serviceId)
+                .count()
+                .timeout(healthProperties.getDiscoveryTimeout())
+                .onErrorResume(e -> {
+                    log.warn("健康检查查询服务实例失败，serviceId={}, error={}", serviceId, e.toString());
+                    return Mono.just(-1L);
+                })
+                .map(instances -> {
+                    Map<String, Object> details = new LinkedHashMap<>();
+                    details.put("serviceId", serviceId);
+                    details.put("instances", instances);
+                    details.put("status", instances > 0 ? "UP" : instances == 0 ? "DOWN" : "UNKNOWN");
+                    return Map.<String, Object>entry(route.getId(), details);
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> unreachableRoutes(Map<String, Object> routeDetails) {
+        List<String> unreachable = new ArrayList<>();
+        routeDetails.forEach((routeId, details) -> {
+            if ("DOWN".equals(((Map<String, Object>) details).get("status"))) {
+                unreachable.add(routeId);
+            }
+        });
+        return unreachable;
     }
-}
 
+    /**
+     * Redis 检查结果
+     */
+    private record RedisCheck(boolean up, Map<String, Object> details) {
+    }
+}
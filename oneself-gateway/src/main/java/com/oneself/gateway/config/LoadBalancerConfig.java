@@ -0,0 +1,18 @@
+package com.oneself.gateway.config;
+
+import com.oneself.gateway.loadbalancer.PeakEwmaLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.config
+ * className LoadBalancerConfig
+ * description 所有 lb:// 服务默认使用延迟感知负载均衡（每个服务一个独立的负载均衡器）
+ * version 1.0
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -0,0 +1,306 @@
+package com.oneself.gateway.filter;
+
+import com.oneself.gateway.properties.GatewayCompressionProperties;
+import com.oneself.gateway.service.CpuLoadService;
+import com.oneself.gateway.utils.StreamingCompressor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.filter
+ * className CompressionGlobalFilter
+ * description
+ * 响应压缩过滤器：
+ * - 根据 Accept-Encoding（含 q 值）协商 gzip / deflate
+ * - 只压缩可压缩的内容类型，Content-Length 小于阈值时不压缩；下游已压缩、204/206/304、HEAD 请求不处理
+ * - 逐个 DataBuffer 流式压缩，不缓冲整个响应体
+ * - CPU 使用率达到阈值时自动跳过压缩
+ * - 指标：gateway.compression.ratio（压缩后 / 压缩前）、gateway.compression.cpu（压缩占用的线程 CPU 时间）、
+ *   gateway.compression.bytes（direction=in/out）、gateway.compression.skipped（reason=cpu/size）
+ * version 1.0
+ */
+@Slf4j
+@Component
+public class CompressionGlobalFilter implements GlobalFilter, Ordered {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final GatewayCompressionProperties compressionProperties;
+    private final CpuLoadService cpuLoadService;
+    private final boolean cpuTimeSupported;
+
+    private final Map<StreamingCompressor.Encoding, Meters> meters = new EnumMap<>(StreamingCompressor.Encoding.class);
+    private final Counter skippedCpu;
+    private final Counter skippedSize;
+
+    public CompressionGlobalFilter(GatewayCompressionProperties compressionProperties, CpuLoadService cpuLoadService,
+                                   MeterRegistry meterRegistry) {
+        this.compressionProperties = compressionProperties;
+        this.cpuLoadService = cpuLoadService;
+        this.cpuTimeSupported = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+        for (StreamingCompressor.Encoding encoding : StreamingCompressor.Encoding.values()) {
+            meters.put(encoding, new Meters(
+                    DistributionSummary.builder("gateway.compression.ratio")
+                            .description("响应压缩率（压缩后字节数 / 压缩前字节数）")
+                            .tag("encoding", encoding.token())
+                            .publishPercentiles(0.5, 0.9)
+                            .register(meterRegistry),
+                    Timer.builder("gateway.compression.cpu")
+                            .description("单个响应压缩占用的线程 CPU 时间")
+                            .tag("encoding", encoding.token())
+                            .register(meterRegistry),
+                    Counter.builder("gateway.compression.bytes")
+                            .description("压缩前字节数")
+                            .baseUnit("bytes")
+                            .tags("encoding", encoding.token(), "direction", "in")
+                            .register(meterRegistry),
+                    Counter.builder("gateway.compression.bytes")
+                            .description("压缩后字节数")
+                            .baseUnit("bytes")
+                            .tags("encoding", encoding.token(), "direction", "out")
+                            .register(meterRegistry)));
+        }
+        this.skippedCpu = skippedCounter(meterRegistry, "cpu");
+        this.skippedSize = skippedCounter(meterRegistry, "size");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!compressionProperties.isEnabled() || exchange.getRequest().getMethod() == HttpMethod.HEAD) {
+            return chain.filter(exchange);
+        }
+        StreamingCompressor.Encoding encoding = negotiate(exchange.getRequest().getHeaders().get(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null) {
+            return chain.filter(exchange);
+        }
+        if (cpuLoadService.currentLoad() >= compressionProperties.getCpuThreshold()) {
+            skippedCpu.increment();
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange.mutate().response(new CompressingResponse(exchange.getResponse(), encoding)).build());
+    }
+
+    /**
+     * 按 Accept-Encoding 选择压缩格式，q 值相同时优先 gzip
+     *
+     * @return 压缩格式，客户端不接受压缩时返回 null
+     */
+    static StreamingCompressor.Encoding negotiate(List<String> acceptEncodings) {
+        if (acceptEncodings == null || acceptEncodings.isEmpty()) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String header : acceptEncodings) {
+            for (String item : header.split(",")) {
+                String[] parts = item.trim().split(";");
+                String token = parts[0].trim().toLowerCase(Locale.ROOT);
+                double q = 1;
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim();
+                    if (param.startsWith("q=")) {
+                        try {
+                            q = Double.parseDouble(param.substring(2));
+                        } catch (NumberFormatException e) {
+                            q = 0;
+                        }
+                    }
+                }
+                switch (token) {
+                    case "gzip", "x-gzip" -> gzip = Math.max(gzip, q);
+                    case "deflate" -> deflate = Math.max(deflate, q);
+                    case "*" -> any = Math.max(any, q);
+                    default -> {
+                    }
+                }
+            }
+        }
+        // 未单独列出的格式按 * 的 q 值处理
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (deflate < 0) {
+            deflate = any;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? StreamingCompressor.Encoding.GZIP : StreamingCompressor.Encoding.DEFLATE;
+    }
+
+    /**
+     * 是否需要压缩（在响应头确定后、写响应体时判断）
+     */
+    private boolean shouldCompress(HttpStatusCode status, HttpHeaders headers) {
+        if (status != null && (status.is1xxInformational() || status.value() == 204 || status.value() == 206
+                || status.value() == 304)) {
+            return false;
+        }
+        if (headers.containsKey(HttpHeaders.CONTENT_ENCODING) || headers.containsKey(HttpHeaders.CONTENT_RANGE)) {
+            return false;
+        }
+        if (!isCompressible(headers.getContentType())) {
+            return false;
+        }
+        long contentLength = headers.getContentLength();
+        if (contentLength >= 0 && contentLength < compressionProperties.getMinResponseSize().toBytes()) {
+            skippedSize.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isCompressible(MediaType contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String subtype = contentType.getSubtype().toLowerCase(Locale.ROOT);
+        if (subtype.endsWith("+json") || subtype.endsWith("+xml")) {
+            return true;
+        }
+        for (String mimeType : compressionProperties.getMimeTypes()) {
+            if (StringUtils.isNotBlank(mimeType) && MediaType.parseMediaType(mimeType).includes(contentType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Counter skippedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("gateway.compression.skipped")
+                .description("因 CPU 过载或响应过小未压缩的响应数")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        // 早于响应缓存、请求合并执行（包在它们外层），缓存与合并处理的都是未压缩的原始响应
+        return -200;
+    }
+
+    /**
+     * 压缩响应
+     */
+    private final class CompressingResponse extends ServerHttpResponseDecorator {
+
+        private final StreamingCompressor.Encoding encoding;
+
+        private CompressingResponse(ServerHttpResponse delegate, StreamingCompressor.Encoding encoding) {
+            super(delegate);
+            this.encoding = encoding;
+        }
+
+        @Override
+        @NonNull
+        public Mono<Void> writeWith(@NonNull Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            if (!shouldCompress(getStatusCode(), headers)) {
+                return super.writeWith(body);
+            }
+
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.set(HttpHeaders.CONTENT_ENCODING, encoding.token());
+            if (!headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING)) {
+                headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            // 压缩后内容与原始 ETag 不再逐字节一致，改为弱 ETag
+            String etag = headers.getETag();
+            if (etag != null && !etag.startsWith("W/")) {
+                headers.setETag("W/" + etag);
+            }
+
+            DataBufferFactory bufferFactory = bufferFactory();
+            StreamingCompressor compressor = new StreamingCompressor(encoding, compressionProperties.getLevel());
+            long[] cpuNanos = new long[1];
+            Flux<DataBuffer> compressed = Flux.from(body)
+                    .map(buffer -> {
+                        long start = cpuTime();
+                        try {
+                            return bufferFactory.wrap(compress(compressor, buffer));
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                            cpuNanos[0] += cpuTime() - start;
+                        }
+                    })
+                    .concatWith(Mono.fromCallable(() -> {
+                        long start = cpuTime();
+                        byte[] tail = compressor.finish();
+                        cpuNanos[0] += cpuTime() - start;
+                        return bufferFactory.wrap(tail);
+                    }))
+                    .doOnComplete(() -> record(compressor, cpuNanos[0]))
+                    .doFinally(signalType -> compressor.close());
+            return super.writeWith(compressed);
+        }
+
+        private byte[] compress(StreamingCompressor compressor, DataBuffer buffer) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, buffer.readableByteCount() / 2));
+            try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                while (iterator.hasNext()) {
+                    ByteBuffer byteBuffer = iterator.next();
+                    byte[] bytes = compressor.compress(byteBuffer);
+                    out.write(bytes, 0, bytes.length);
+                }
+            }
+            return out.toByteArray();
+        }
+
+        private void record(StreamingCompressor compressor, long cpuNanos) {
+            Meters encodingMeters = meters.get(compressor.encoding());
+            encodingMeters.bytesIn().increment(compressor.bytesIn());
+            encodingMeters.bytesOut().increment(compressor.bytesOut());
+            if (compressor.bytesIn() > 0) {
+                encodingMeters.ratio().record((double) compressor.bytesOut() / compressor.bytesIn());
+            }
+            if (cpuTimeSupported) {
+                encodingMeters.cpu().record(cpuNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private long cpuTime() {
+            return cpuTimeSupported ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+        }
+    }
+
+    /**
+     * 一种压缩格式对应的指标
+     */
+    private record Meters(DistributionSummary ratio, Timer cpu, Counter bytesIn, Counter bytesOut) {
+    }
+}
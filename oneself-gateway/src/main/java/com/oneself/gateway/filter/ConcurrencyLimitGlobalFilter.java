@@ -0,0 +1,90 @@
+package com.oneself.gateway.filter;
+
+import com.oneself.gateway.model.GatewayRequestContext;
+import com.oneself.gateway.model.RequestPriority;
+import com.oneself.gateway.properties.GatewayConcurrencyLimitProperties;
+import com.oneself.gateway.service.ConcurrencyLimitService;
+import com.oneself.gateway.utils.RejectionResponses;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.filter
+ * className ConcurrencyLimitGlobalFilter
+ * description
+ * 自适应并发限制过滤器：每个路由的并发上限随下游响应时间自动调整，
+ * 超过当前优先级可用额度的请求直接返回 503 + Retry-After，不再转发到下游
+ * version 1.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitGlobalFilter implements GlobalFilter, Ordered {
+
+    private final ConcurrencyLimitService concurrencyLimitService;
+    private final GatewayConcurrencyLimitProperties limitProperties;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!limitProperties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        GatewayRequestContext context = GatewayRequestContext.of(exchange);
+        String routeId = context.routeId();
+        if (routeId == null) {
+            return chain.filter(exchange);
+        }
+
+        RequestPriority priority = concurrencyLimitService.resolvePriority(exchange);
+        if (!concurrencyLimitService.tryAcquire(routeId, priority)) {
+            if (log.isDebugEnabled()) {
+                log.debug("超过路由并发上限，拒绝请求，route={}, priority={}, path={}, ip={}",
+                        routeId, priority, exchange.getRequest().getURI().getPath(), context.clientIp());
+            }
+            ServerHttpResponse response = exchange.getResponse();
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(Math.max(1, limitProperties.getRetryAfter().toSeconds())));
+            return RejectionResponses.write(response, RejectionResponses.OVERLOADED);
+        }
+
+        return chain.filter(exchange)
+                .doFinally(signalType -> {
+                    Long upstreamNanos = signalType == SignalType.CANCEL
+                            ? null : exchange.getAttribute(UpstreamTimingFilter.UPSTREAM_NANOS_ATTR);
+                    concurrencyLimitService.release(routeId, upstreamNanos, isFailure(signalType, exchange));
+                });
+    }
+
+    /**
+     * 下游是否失败（异常、超时，或下游 / 负载均衡返回 502、503、504）
+     */
+    private static boolean isFailure(SignalType signalType, ServerWebExchange exchange) {
+        if (signalType == SignalType.ON_ERROR) {
+            return true;
+        }
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        if (status == null) {
+            return false;
+        }
+        int value = status.value();
+        return value == 502 || value == 503 || value == 504;
+    }
+
+    @Override
+    public int getOrder() {
+        // 在响应缓存、请求合并之后执行，缓存命中与合并等待的请求不占用下游并发额度
+        return -70;
+    }
+}
@@ -1,23 +1,34 @@
 package com.oneself.gateway.filter;
 
+import com.oneself.gateway.model.GatewayRequestContext;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author liuhuan
  * date 2025/12/25
  * packageName com.oneself.filter
  * className GatewayMetricsFilter
- * description Gateway 指标收集过滤器
+ * description
+ * Gateway 指标收集过滤器：
+ * - 按 路由 ID + 请求方法 + 状态码 打标签（不使用原始路径，避免用户 ID、记录 ID 导致指标数量无限增长）
+ * - 每组标签的 Timer / Counter 只创建一次并缓存
+ * - 最先执行、请求结束时记录，得到真实的端到端耗时，并拆分为下游耗时与网关自身耗时
  * version 1.0
  */
 @Slf4j
@@ -25,45 +36,90 @@ import reactor.core.publisher.Mono;
 @RequiredArgsConstructor
 public class GatewayMetricsFilter implements GlobalFilter, Ordered {
 
+    /**
+     * 未匹配到路由时的路由标签
+     */
+    private static final String UNKNOWN_ROUTE = "unknown";
+
     private final MeterRegistry meterRegistry;
 
+    /**
+     * 标签组合 -> 指标
+     */
+    private final Map<MeterKey, Meters> meters = new ConcurrentHashMap<>();
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        long startTime = System.currentTimeMillis();
-        String path = exchange.getRequest().getURI().getPath();
-        exchange.getRequest().getMethod();
-        String method = exchange.getRequest().getMethod().name();
+        long startTime = System.nanoTime();
 
         return chain.filter(exchange)
                 .doFinally(signalType -> {
-                    long duration = System.currentTimeMillis() - startTime;
+                    long duration = System.nanoTime() - startTime;
                     HttpStatusCode status = exchange.getResponse().getStatusCode();
                     int statusCode = status != null ? status.value() : 0;
+                    Route route = GatewayRequestContext.of(exchange).route();
+                    String routeId = route != null ? route.getId() : UNKNOWN_ROUTE;
+                    String method = exchange.getRequest().getMethod().name();
 
-                    // 记录请求指标
-                    Timer.Sample sample = Timer.start(meterRegistry);
-                    sample.stop(Timer.builder("gateway.request.duration")
-                            .description("Gateway 请求处理时间")
-                            .tag("method", method)
-                            .tag("path", path)
-                            .tag("status", String.valueOf(statusCode))
-                            .register(meterRegistry));
+                    Meters requestMeters = meters.computeIfAbsent(new MeterKey(routeId, method, statusCode), this::register);
+                    requestMeters.duration().record(duration, TimeUnit.NANOSECONDS);
+                    requestMeters.count().increment();
 
-                    // 记录请求计数
-                    meterRegistry.counter("gateway.request.count",
-                            "method", method,
-                            "path", path,
-                            "status", String.valueOf(statusCode))
-                            .increment();
+                    // 请求转发到下游时，拆分下游耗时与网关自身耗时
+                    Long upstream = exchange.getAttribute(UpstreamTimingFilter.UPSTREAM_NANOS_ATTR);
+                    if (upstream != null) {
+                        requestMeters.upstream().record(upstream, TimeUnit.NANOSECONDS);
+                        requestMeters.gateway().record(Math.max(0, duration - upstream), TimeUnit.NANOSECONDS);
+                    }
 
-                    log.debug("记录指标，path={}, method={}, status={}, duration={}ms", 
-                            path, method, statusCode, duration);
+                    if (log.isDebugEnabled()) {
+                        log.debug("记录指标，route={}, method={}, status={}, duration={}ms",
+                                routeId, method, statusCode, TimeUnit.NANOSECONDS.toMillis(duration));
+                    }
                 });
     }
 
+    /**
+     * 注册一组标签对应的指标（每组标签只调用一次）
+     */
+    private Meters register(MeterKey key) {
+        String status = String.valueOf(key.status());
+        return new Meters(
+                Timer.builder("gateway.request.duration")
+                        .description("Gateway 请求端到端处理时间")
+                        .tags("route", key.route(), "method", key.method(), "status", status)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                Counter.builder("gateway.request.count")
+                        .description("Gateway 请求数")
+                        .tags("route", key.route(), "method", key.method(), "status", status)
+                        .register(meterRegistry),
+                Timer.builder("gateway.request.upstream.duration")
+                        .description("下游服务耗时（发起请求到收到响应头）")
+                        .tags("route", key.route(), "method", key.method(), "status", status)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                Timer.builder("gateway.request.gateway.duration")
+                        .description("网关自身耗时（端到端耗时减去下游耗时）")
+                        .tags("route", key.route(), "method", key.method(), "status", status)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+
     @Override
     public int getOrder() {
-        return Ordered.LOWEST_PRECEDENCE; // 最后执行，确保能获取到响应状态码
+        return Ordered.HIGHEST_PRECEDENCE; // 最先执行，请求结束时记录，覆盖所有过滤器与下游的耗时
+    }
+
+    /**
+     * 指标标签组合
+     */
+    private record MeterKey(String route, String method, int status) {
     }
-}
 
+    /**
+     * 一组标签对应的指标
+     */
+    private record Meters(Timer duration, Counter count, Timer upstream, Timer gateway) {
+    }
+}
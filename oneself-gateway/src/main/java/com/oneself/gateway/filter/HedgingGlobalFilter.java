@@ -0,0 +1,512 @@
+package com.oneself.gateway.filter;
+
+import com.oneself.gateway.model.GatewayRequestContext;
+import com.oneself.gateway.properties.GatewayHedgingProperties;
+import com.oneself.gateway.service.InstanceLoadService;
+import com.oneself.gateway.utils.RetryBudget;
+import com.oneself.gateway.utils.RollingPercentile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.netty.Connection;
+import reactor.netty.http.client.PrematureCloseException;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.filter
+ * className HedgingGlobalFilter
+ * description
+ * 对冲请求与重试过滤器，按路由 metadata.hedging: true 启用，只处理不带请求体的 GET / HEAD 请求（幂等，可安全重复发送）：
+ * - 对冲：超过路由下游响应时间的分位数（默认 p95）仍未收到响应头时，向负载最低的另一个实例再发一次，先响应的生效，另一个取消
+ * - 重试：连接失败（连接被拒绝、连接超时、收到响应前连接关闭）时立即换一个实例重试
+ * - 对冲与重试共用全局重试预算，额外请求最多为正常请求的 budget-ratio 倍，下游整体故障时不会放大流量
+ * - 每次尝试使用独立的请求属性与响应头，只有最终生效的一次写回原请求，未生效的下游连接直接关闭
+ * - 指标：gateway.hedging.requests（type=hedge/retry）、gateway.hedging.wins（额外请求先于原请求响应）、
+ *   gateway.hedging.budget-exhausted、gateway.hedging.budget
+ * version 1.0
+ */
+@Slf4j
+@Component
+public class HedgingGlobalFilter implements GlobalFilter, Ordered {
+
+    /**
+     * 路由 metadata 中的对冲配置项
+     */
+    private static final String METADATA_HEDGING = "hedging";
+
+    private final GatewayHedgingProperties hedgingProperties;
+    private final LoadBalancerClientFactory loadBalancerClientFactory;
+    private final InstanceLoadService instanceLoadService;
+
+    private final RetryBudget budget = new RetryBudget();
+
+    /**
+     * 路由 ID → 原请求的下游响应时间统计
+     */
+    private final Map<String, RollingPercentile> latencies = new ConcurrentHashMap<>();
+
+    private final Counter hedges;
+    private final Counter retries;
+    private final Counter hedgeWins;
+    private final Counter retryWins;
+    private final Counter budgetExhausted;
+
+    public HedgingGlobalFilter(GatewayHedgingProperties hedgingProperties, LoadBalancerClientFactory loadBalancerClientFactory,
+                               InstanceLoadService instanceLoadService, MeterRegistry meterRegistry) {
+        this.hedgingProperties = hedgingProperties;
+        this.loadBalancerClientFactory = loadBalancerClientFactory;
+        this.instanceLoadService = instanceLoadService;
+        this.hedges = counter(meterRegistry, "gateway.hedging.requests", Kind.HEDGE, "发出的额外请求数");
+        this.retries = counter(meterRegistry, "gateway.hedging.requests", Kind.RETRY, "发出的额外请求数");
+        this.hedgeWins = counter(meterRegistry, "gateway.hedging.wins", Kind.HEDGE, "额外请求最终生效的次数");
+        this.retryWins = counter(meterRegistry, "gateway.hedging.wins", Kind.RETRY, "额外请求最终生效的次数");
+        this.budgetExhausted = Counter.builder("gateway.hedging.budget-exhausted")
+                .description("因重试预算不足未发出的额外请求数")
+                .register(meterRegistry);
+        Gauge.builder("gateway.hedging.budget", budget, RetryBudget::balance)
+                .description("当前可用的额外请求数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!hedgingProperties.isEnabled() || !isIdempotent(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        Route route = GatewayRequestContext.of(exchange).route();
+        if (route == null || !isEnabled(route)) {
+            return chain.filter(exchange);
+        }
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        URI requestUrl = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (lbResponse == null || !lbResponse.hasServer() || requestUrl == null) {
+            return chain.filter(exchange);
+        }
+
+        budget.deposit(hedgingProperties.getBudgetRatio(), hedgingProperties.getMaxBudget());
+        RollingPercentile latency = latencies.computeIfAbsent(route.getId(),
+                id -> new RollingPercentile(hedgingProperties.getWindow()));
+        return new HedgedCall(exchange, chain, route.getUri().getHost(), lbResponse.getServer(), requestUrl, latency)
+                .execute();
+    }
+
+    /**
+     * 对冲阈值：路由响应时间分位数，限制在 [minDelay, maxDelay]，样本不足时返回 -1（不对冲）
+     */
+    private long hedgeDelayNanos(RollingPercentile latency) {
+        long percentile = latency.percentileNanos(hedgingProperties.getPercentile(), hedgingProperties.getMinSamples());
+        if (percentile < 0) {
+            return -1;
+        }
+        long min = hedgingProperties.getMinDelay().toNanos();
+        long max = hedgingProperties.getMaxDelay().toNanos();
+        return Math.min(Math.max(percentile, min), max);
+    }
+
+    /**
+     * 是否可以安全重复发送：GET / HEAD，且不带请求体、不是 WebSocket 升级请求
+     */
+    private static boolean isIdempotent(ServerHttpRequest request) {
+        HttpMethod method = request.getMethod();
+        if (method != HttpMethod.GET && method != HttpMethod.HEAD) {
+            return false;
+        }
+        HttpHeaders headers = request.getHeaders();
+        return headers.getContentLength() <= 0 && !headers.containsKey(HttpHeaders.TRANSFER_ENCODING)
+                && !headers.containsKey(HttpHeaders.UPGRADE);
+    }
+
+    private static boolean isEnabled(Route route) {
+        Object value = route.getMetadata().get(METADATA_HEDGING);
+        return value != null && Boolean.parseBoolean(value.toString().trim());
+    }
+
+    /**
+     * 连接失败（请求未被下游处理或未收到任何响应），GET 请求可安全换实例重试
+     */
+    private static boolean isConnectFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof PrematureCloseException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, Kind kind, String description) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("type", kind.tag)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1; // 负载均衡选出实例之后执行
+    }
+
+    /**
+     * 一次对冲调用：原请求 + 最多一个额外请求（对冲或重试）
+     */
+    private final class HedgedCall {
+
+        private final ServerWebExchange exchange;
+        private final GatewayFilterChain chain;
+        private final String serviceId;
+        private final ServiceInstance primaryInstance;
+        private final URI requestUrl;
+        private final RollingPercentile latency;
+
+        /**
+         * 转发前的请求属性，每次尝试各复制一份
+         */
+        private final Map<String, Object> baseAttributes;
+
+        /**
+         * 空请求体的请求（原请求体只能订阅一次，GET 请求本身也没有请求体）
+         */
+        private final ServerHttpRequest request;
+
+        private final AtomicReference<Attempt> winner = new AtomicReference<>();
+        private final AtomicReference<Throwable> lastError = new AtomicReference<>();
+        private final Sinks.One<Throwable> primaryError = Sinks.one();
+        private volatile boolean applied;
+
+        private HedgedCall(ServerWebExchange exchange, GatewayFilterChain chain, String serviceId,
+                           ServiceInstance primaryInstance, URI requestUrl, RollingPercentile latency) {
+            this.exchange = exchange;
+            this.chain = chain;
+            this.serviceId = serviceId;
+            this.primaryInstance = primaryInstance;
+            this.requestUrl = requestUrl;
+            this.latency = latency;
+            this.baseAttributes = new HashMap<>(exchange.getAttributes());
+            this.request = new ServerHttpRequestDecorator(exchange.getRequest()) {
+                @Override
+                @NonNull
+                public Flux<DataBuffer> getBody() {
+                    return Flux.empty();
+                }
+            };
+        }
+
+        private Mono<Void> execute() {
+            Mono<Attempt> primary = run(new Attempt(Kind.PRIMARY, attemptExchange(null)));
+            Mono<Attempt> secondary = secondaryTrigger().flatMap(this::launch);
+            return Flux.merge(primary, secondary)
+                    .next()
+                    .switchIfEmpty(Mono.defer(() -> Mono.error(Objects.requireNonNull(lastError.get()))))
+                    .doOnNext(this::apply)
+                    .doFinally(signalType -> {
+                        Attempt won = winner.get();
+                        if (signalType == SignalType.CANCEL && won != null && !applied) {
+                            won.dispose();
+                        }
+                    })
+                    .then();
+        }
+
+        /**
+         * 发起额外请求的时机：原请求超过对冲阈值未响应（对冲），或原请求连接失败（重试），
+         * 原请求其他失败时不发起额外请求
+         */
+        private Mono<Kind> secondaryTrigger() {
+            Mono<Kind> retry = primaryError.asMono()
+                    .filter(error -> hedgingProperties.isRetryOnConnectFailure() && isConnectFailure(error))
+                    .map(error -> Kind.RETRY);
+            long delayNanos = hedgeDelayNanos(latency);
+            if (delayNanos < 0) {
+                return retry;
+            }
+            return Mono.firstWithSignal(Mono.delay(Duration.ofNanos(delayNanos)).map(tick -> Kind.HEDGE), retry);
+        }
+
+        /**
+         * 发起额外请求：选择负载最低的另一个实例，并扣减重试预算
+         */
+        private Mono<Attempt> launch(Kind kind) {
+            return alternativeInstance()
+                    .flatMap(instance -> {
+                        if (!budget.tryWithdraw()) {
+                            budgetExhausted.increment();
+                            return Mono.empty();
+                        }
+                        (kind == Kind.HEDGE ? hedges : retries).increment();
+                        log.debug("发起{}请求，serviceId={}, instance={}:{}", kind.tag, serviceId,
+                                instance.getHost(), instance.getPort());
+                        return run(new Attempt(kind, attemptExchange(instance)));
+                    });
+        }
+
+        private Mono<ServiceInstance> alternativeInstance() {
+            ServiceInstanceListSupplier supplier = loadBalancerClientFactory
+                    .getLazyProvider(serviceId, ServiceInstanceListSupplier.class)
+                    .getIfAvailable();
+            if (supplier == null) {
+                return Mono.empty();
+            }
+            return supplier.get()
+                    .next()
+                    .flatMap(instances -> Mono.justOrEmpty(leastLoaded(instances)))
+                    .onErrorResume(e -> {
+                        log.debug("获取对冲实例失败，serviceId={}, error={}", serviceId, e.toString());
+                        return Mono.empty();
+                    });
+        }
+
+        private ServiceInstance leastLoaded(List<ServiceInstance> instances) {
+            ServiceInstance best = null;
+            double bestScore = Double.MAX_VALUE;
+            for (ServiceInstance instance : instances) {
+                if (instance.getHost().equals(primaryInstance.getHost()) && instance.getPort() == primaryInstance.getPort()) {
+                    continue;
+                }
+                double score = instanceLoadService.score(instance, instances);
+                if (score < bestScore) {
+                    best = instance;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * 执行一次尝试：收到下游响应头后完成，只有第一个完成的尝试生效
+         */
+        private Mono<Attempt> run(Attempt attempt) {
+            return Mono.defer(() -> {
+                        attempt.start = System.nanoTime();
+                        return chain.filter(attempt.exchange);
+                    })
+                    .then(Mono.fromSupplier(() -> {
+                        attempt.elapsed = System.nanoTime() - attempt.start;
+                        return attempt;
+                    }))
+                    .doOnSuccess(done -> {
+                        if (attempt.kind == Kind.PRIMARY) {
+                            latency.record(attempt.elapsed);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        // 被对冲取消的原请求也计入统计（实际耗时至少为此刻），避免分位数只统计到快的请求
+                        if (attempt.kind == Kind.PRIMARY) {
+                            latency.record(System.nanoTime() - attempt.start);
+                        }
+                    })
+                    .doOnError(error -> {
+                        lastError.set(error);
+                        if (attempt.kind == Kind.PRIMARY) {
+                            primaryError.tryEmitValue(error);
+                        }
+                    })
+                    .onErrorResume(error -> Mono.empty())
+                    .filter(this::claim);
+        }
+
+        private boolean claim(Attempt attempt) {
+            if (winner.compareAndSet(null, attempt)) {
+                return true;
+            }
+            // 另一个尝试已生效，关闭本次的下游连接（响应体不再读取）
+            attempt.dispose();
+            return false;
+        }
+
+        /**
+         * 把生效的尝试写回原请求：状态码、响应头、请求属性（下游连接、所选实例等，供写响应体与日志使用）
+         */
+        private void apply(Attempt won) {
+            ServerHttpResponse response = exchange.getResponse();
+            if (won.response.status != null) {
+                response.setStatusCode(won.response.status);
+            }
+            HttpHeaders headers = won.response.getHeaders();
+            if (headers.containsKey(HttpHeaders.CONTENT_LENGTH) && !headers.containsKey(HttpHeaders.TRANSFER_ENCODING)) {
+                response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+            }
+            response.getHeaders().addAll(headers);
+            exchange.getAttributes().putAll(won.exchange.getAttributes());
+            exchange.getAttributes().put(UpstreamTimingFilter.UPSTREAM_NANOS_ATTR, won.elapsed);
+            applied = true;
+            if (won.kind == Kind.HEDGE) {
+                hedgeWins.increment();
+            } else if (won.kind == Kind.RETRY) {
+                retryWins.increment();
+            }
+        }
+
+        /**
+         * 创建一次尝试的请求：独立的请求属性与响应头，额外请求改为转发到指定实例
+         */
+        private ServerWebExchange attemptExchange(ServiceInstance instance) {
+            Map<String, Object> attributes = new ConcurrentHashMap<>(baseAttributes);
+            if (instance != null) {
+                URI url = UriComponentsBuilder.fromUri(requestUrl)
+                        .host(instance.getHost())
+                        .port(instance.getPort())
+                        .build(true)
+                        .toUri();
+                attributes.put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, url);
+                attributes.put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(instance));
+            }
+            return new AttemptExchange(exchange, request, new AttemptResponse(exchange.getResponse()), attributes);
+        }
+    }
+
+    /**
+     * 尝试类型
+     */
+    private enum Kind {
+
+        PRIMARY("primary"),
+        HEDGE("hedge"),
+        RETRY("retry");
+
+        private final String tag;
+
+        Kind(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * 一次尝试
+     */
+    private static final class Attempt {
+
+        private final Kind kind;
+        private final AttemptExchange exchange;
+        private final AttemptResponse response;
+        private long start;
+        private long elapsed;
+
+        private Attempt(Kind kind, ServerWebExchange exchange) {
+            this.kind = kind;
+            this.exchange = (AttemptExchange) exchange;
+            this.response = this.exchange.response;
+        }
+
+        /**
+         * 关闭本次尝试的下游连接
+         */
+        private void dispose() {
+            Object connection = exchange.attributes.get(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+            if (connection instanceof Connection conn) {
+                conn.dispose();
+            }
+        }
+    }
+
+    /**
+     * 一次尝试的请求：请求属性与响应独立，其余委托给原请求
+     */
+    private static final class AttemptExchange extends ServerWebExchangeDecorator {
+
+        private final ServerHttpRequest request;
+        private final AttemptResponse response;
+        private final Map<String, Object> attributes;
+
+        private AttemptExchange(ServerWebExchange delegate, ServerHttpRequest request, AttemptResponse response,
+                                Map<String, Object> attributes) {
+            super(delegate);
+            this.request = request;
+            this.response = response;
+            this.attributes = attributes;
+        }
+
+        @Override
+        @NonNull
+        public ServerHttpRequest getRequest() {
+            return request;
+        }
+
+        @Override
+        @NonNull
+        public ServerHttpResponse getResponse() {
+            return response;
+        }
+
+        @Override
+        @NonNull
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+    }
+
+    /**
+     * 一次尝试的响应：状态码与响应头先记录在这里，生效后再写回原响应
+     * （下游返回非标准状态码时 NettyRoutingFilter 会直接设置到原响应上，不影响标准状态码）
+     */
+    private static final class AttemptResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private volatile HttpStatusCode status;
+
+        private AttemptResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            this.status = status;
+            return true;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public boolean setRawStatusCode(Integer value) {
+            this.status = value != null ? HttpStatusCode.valueOf(value) : null;
+            return true;
+        }
+
+        @Override
+        @NonNull
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.oneself.gateway.filter;
+
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+import com.oneself.gateway.model.GatewayRequestContext;
+import com.oneself.gateway.properties.GatewayCoalescingProperties;
+import com.oneself.gateway.utils.BodyCaptureResponseDecorator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.filter
+ * className RequestCoalescingGlobalFilter
+ * description
+ * 请求合并过滤器（single-flight），按路由 metadata.coalescing: true 启用，只处理 GET 请求：
+ * - 请求方法 + 路径 + 查询参数 + 用户范围相同的并发请求，只有第一个转发到下游，其余请求等待并复用其响应
+ * - 等待数超过上限、响应体超过上限、首个请求失败或等待超时时，等待的请求各自转发，不影响正确性
+ * - 指标：gateway.coalescing.requests（result=leader/collapsed/overflow/fallback）、gateway.coalescing.in-flight
+ * version 1.0
+ */
+@Slf4j
+@Component
+public class RequestCoalescingGlobalFilter implements GlobalFilter, Ordered {
+
+    /**
+     * 路由 metadata 中的请求合并配置项
+     */
+    private static final String METADATA_COALESCING = "coalescing";
+
+    /**
+     * 不复制给等待请求的响应头（长度重新计算，Trace ID 与 Cookie 属于首个请求）
+     */
+    private static final Set<String> EXCLUDED_HEADERS = Set.of(
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(), HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.SET_COOKIE.toLowerCase(), HttpHeaders.CONNECTION.toLowerCase(), "x-trace-id");
+
+    private final GatewayCoalescingProperties coalescingProperties;
+
+    /**
+     * 合并 key → 进行中的请求
+     */
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+    private final Counter leaders;
+    private final Counter collapsed;
+    private final Counter overflow;
+    private final Counter fallback;
+
+    public RequestCoalescingGlobalFilter(GatewayCoalescingProperties coalescingProperties, MeterRegistry meterRegistry) {
+        this.coalescingProperties = coalescingProperties;
+        this.leaders = requestCounter(meterRegistry, "leader");
+        this.collapsed = requestCounter(meterRegistry, "collapsed");
+        this.overflow = requestCounter(meterRegistry, "overflow");
+        this.fallback = requestCounter(meterRegistry, "fallback");
+        Gauge.builder("gateway.coalescing.in-flight", flights, Map::size)
+                .description("正在进行中、可被合并的下游请求数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!coalescingProperties.isEnabled() || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        Route route = GatewayRequestContext.of(exchange).route();
+        if (route == null || !isEnabled(route)) {
+            return chain.filter(exchange);
+        }
+
+        String key = coalescingKey(exchange);
+        Flight flight = new Flight();
+        Flight existing = flights.putIfAbsent(key, flight);
+        if (existing == null) {
+            leaders.increment();
+            return lead(exchange, chain, key, flight);
+        }
+        if (existing.waiters.incrementAndGet() > coalescingProperties.getMaxWaiters()) {
+            existing.waiters.decrementAndGet();
+            overflow.increment();
+            return chain.filter(exchange);
+        }
+        return follow(exchange, chain, existing);
+    }
+
+    /**
+     * 首个请求：转发到下游，响应体旁路复制后分发给等待的请求
+     */
+    private Mono<Void> lead(ServerWebExchange exchange, GatewayFilterChain chain, String key, Flight flight) {
+        BodyCaptureResponseDecorator decorator = new BodyCaptureResponseDecorator(exchange.getResponse(),
+                (int) coalescingProperties.getMaxResponseSize().toBytes(),
+                new BodyCaptureResponseDecorator.Listener() {
+                    @Override
+                    public void captured(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+                        if (headers.containsKey(HttpHeaders.SET_COOKIE)) {
+                            // 带 Cookie 的响应不能共享
+                            flight.sink.tryEmitEmpty();
+                            return;
+                        }
+                        flight.sink.tryEmitValue(new SharedResponse(status, headers, body));
+                    }
+
+                    @Override
+                    public void skipped() {
+                        flight.sink.tryEmitEmpty();
+                    }
+                });
+        return chain.filter(exchange.mutate().response(decorator).build())
+                .doFinally(signalType -> {
+                    flights.remove(key, flight);
+                    // 异常或取消时通知等待的请求各自转发
+                    flight.sink.tryEmitEmpty();
+                });
+    }
+
+    /**
+     * 等待的请求：复用首个请求的响应，无法复用时单独转发
+     */
+    private Mono<Void> follow(ServerWebExchange exchange, GatewayFilterChain chain, Flight flight) {
+        return flight.sink.asMono()
+                .timeout(coalescingProperties.getMaxWait(), Mono.empty())
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(shared -> {
+                    if (shared.isEmpty()) {
+                        fallback.increment();
+                        return chain.filter(exchange);
+                    }
+                    collapsed.increment();
+                    return write(exchange.getResponse(), shared.get());
+                });
+    }
+
+    private Mono<Void> write(ServerHttpResponse response, SharedResponse shared) {
+        HttpHeaders headers = response.getHeaders();
+        shared.headers().forEach((name, values) -> {
+            // 已有的响应头（如本请求自己的 CORS 头）保持不变
+            if (!EXCLUDED_HEADERS.contains(name.toLowerCase()) && !headers.containsKey(name)) {
+                headers.put(name, values);
+            }
+        });
+        response.setStatusCode(shared.status());
+        headers.setContentLength(shared.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    /**
+     * 合并 key：用户范围 + 路径 + 查询参数
+     */
+    private String coalescingKey(ServerWebExchange exchange) {
+        JwtSessionBO session = exchange.getAttribute(JwtAuthenticationGlobalFilter.SESSION_ATTR);
+        String scope = session != null ? "u:" + session.getUserId() : "anon";
+        String query = exchange.getRequest().getURI().getRawQuery();
+        String path = exchange.getRequest().getURI().getRawPath();
+        return StringUtils.isEmpty(query) ? scope + " " + path : scope + " " + path + "?" + query;
+    }
+
+    private static boolean isEnabled(Route route) {
+        Object value = route.getMetadata().get(METADATA_COALESCING);
+        return value != null && Boolean.parseBoolean(value.toString().trim());
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.coalescing.requests")
+                .description("参与请求合并判定的请求数（collapsed 为复用其他请求响应的请求）")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return -75; // 在响应缓存之后执行，只合并缓存未命中的请求
+    }
+
+    /**
+     * 进行中的下游请求
+     */
+    private static final class Flight {
+
+        /**
+         * 首个请求的响应，无法共享时为空
+         */
+        private final Sinks.One<SharedResponse> sink = Sinks.one();
+
+        /**
+         * 等待的请求数
+         */
+        private final AtomicInteger waiters = new AtomicInteger();
+    }
+
+    /**
+     * 可共享的响应
+     */
+    private record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+}
@@ -0,0 +1,428 @@
+package com.oneself.gateway.filter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.oneself.common.core.utils.JacksonUtils;
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+import com.oneself.gateway.model.CachedResponse;
+import com.oneself.gateway.model.GatewayRequestContext;
+import com.oneself.gateway.properties.GatewayPublicPathProperties;
+import com.oneself.gateway.properties.GatewayResponseCacheProperties;
+import com.oneself.gateway.service.ResponseCacheService;
+import com.oneself.gateway.utils.BodyCaptureResponseDecorator;
+import com.oneself.gateway.utils.PathPatternTrie;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.filter
+ * className ResponseCacheGlobalFilter
+ * description
+ * 网关响应缓存过滤器，按路由 metadata.response-cache 启用，只缓存 GET 请求：
+ * - 缓存 key：路径 + 排序后的查询参数 + 用户范围（scope=user 时按用户隔离，scope=public 时所有用户共享）
+ * - 只缓存 HTTP 200 且 Resp 响应体 msgCode 为 200 的响应（下游异常处理返回 HTTP 200 + msgCode 500，不能只看状态码）
+ * - 遵循 Cache-Control：下游返回 no-store / no-cache（scope=public 时还包括 private）不缓存，
+ *   缓存时长依次取 s-maxage、max-age、路由 ttl-seconds、全局 default-ttl；客户端 no-cache 时跳过查询
+ * - 命中时直接返回并支持 If-None-Match（304）；下游未返回 ETag 时由网关根据响应体生成
+ * - 每个缓存条目带 {路由 ID}、{路由 ID}:{资源名} 以及下游 X-Cache-Tags 中的标签，下游写数据后按标签清理
+ * version 1.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ResponseCacheGlobalFilter implements GlobalFilter, Ordered {
+
+    /**
+     * 路由 metadata 中的响应缓存配置项
+     */
+    private static final String METADATA_RESPONSE_CACHE = "response-cache";
+
+    /**
+     * 响应头：缓存结果（HIT / MISS）
+     */
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    /**
+     * 响应头：下游指定的额外清理标签（逗号分隔）
+     */
+    private static final String CACHE_TAGS_HEADER = "X-Cache-Tags";
+
+    /**
+     * 需要随缓存回放的响应头（ETag 单独保存）
+     */
+    private static final List<String> REPLAY_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LANGUAGE, HttpHeaders.LAST_MODIFIED, HttpHeaders.CACHE_CONTROL);
+
+    /**
+     * 不影响响应内容的 Vary 取值（CORS 相关与压缩协商）
+     */
+    private static final Set<String> IGNORED_VARY = Set.of(
+            "origin", "access-control-request-method", "access-control-request-headers", "accept-encoding");
+
+    private final GatewayResponseCacheProperties cacheProperties;
+    private final GatewayPublicPathProperties publicPathProperties;
+    private final ResponseCacheService responseCacheService;
+
+    /**
+     * 路由 → 解析后的缓存策略（路由刷新后生成新的 Route 对象，旧条目随之被回收）
+     */
+    private final Cache<Route, Optional<Policy>> policies = Caffeine.newBuilder().weakKeys().build();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!cacheProperties.isEnabled() || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        Route route = GatewayRequestContext.of(exchange).route();
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        Policy policy = policies.get(route, this::parsePolicy).orElse(null);
+        String path = request.getURI().getPath();
+        if (policy == null || (policy.paths() != null && !policy.paths().matches(path))) {
+            return chain.filter(exchange);
+        }
+
+        String requestCacheControl = StringUtils.defaultString(request.getHeaders().getCacheControl()).toLowerCase(Locale.ROOT);
+        if (requestCacheControl.contains("no-store")) {
+            return chain.filter(exchange);
+        }
+        boolean skipLookup = requestCacheControl.contains("no-cache")
+                || "no-cache".equalsIgnoreCase(request.getHeaders().getPragma());
+
+        String key = cacheKey(exchange, policy);
+        Mono<CachedResponse> lookup = skipLookup ? Mono.empty() : responseCacheService.get(key);
+        return lookup
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(cached -> cached.isPresent()
+                        ? writeCached(exchange, cached.get())
+                        : forward(exchange, chain, route, policy, key));
+    }
+
+    /**
+     * 未命中：转发到下游，响应体旁路复制，写完后判断是否可缓存
+     */
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, Route route, Policy policy, String key) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+        String path = exchange.getRequest().getURI().getPath();
+        BodyCaptureResponseDecorator decorator = new BodyCaptureResponseDecorator(response,
+                (int) cacheProperties.getMaxEntrySize().toBytes(),
+                (status, headers, body) -> store(route, policy, key, path, status, headers, body));
+        return chain.filter(exchange.mutate().response(decorator).build());
+    }
+
+    /**
+     * 下游响应可缓存时写入缓存
+     */
+    private void store(Route route, Policy policy, String key, String path,
+                       HttpStatusCode status, HttpHeaders headers, byte[] body) {
+        if (status == null || status.value() != HttpStatus.OK.value()
+                || headers.containsKey(HttpHeaders.SET_COOKIE)
+                || headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                || !isVaryIgnorable(headers.getVary())
+                || !isSuccessBody(headers.getContentType(), body)) {
+            return;
+        }
+        Duration ttl = resolveTtl(headers.getCacheControl(), policy);
+        if (ttl == null) {
+            return;
+        }
+
+        Map<String, List<String>> replayHeaders = new LinkedHashMap<>();
+        for (String name : REPLAY_HEADERS) {
+            List<String> values = headers.get(name);
+            if (values != null && !values.isEmpty()) {
+                replayHeaders.put(name, List.copyOf(values));
+            }
+        }
+        String etag = StringUtils.isNotBlank(headers.getETag()) ? headers.getETag() : generateEtag(body);
+        long now = System.currentTimeMillis();
+        CachedResponse cached = new CachedResponse(status.value(), replayHeaders, body, etag,
+                resolveTags(route, path, headers.getFirst(CACHE_TAGS_HEADER)), now, now + ttl.toMillis());
+        responseCacheService.put(key, cached);
+        if (log.isDebugEnabled()) {
+            log.debug("响应已缓存，key={}, size={}, ttl={}", key, body.length, ttl);
+        }
+    }
+
+    /**
+     * 命中：直接返回缓存的响应
+     */
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        cached.headers().forEach(headers::put);
+        headers.setETag(cached.etag());
+        headers.set(CACHE_STATUS_HEADER, "HIT");
+        headers.set(HttpHeaders.AGE, String.valueOf((System.currentTimeMillis() - cached.createdAt()) / 1000));
+
+        if (etagMatches(exchange.getRequest().getHeaders().getIfNoneMatch(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatusCode.valueOf(cached.status()));
+        headers.setContentLength(cached.body().length);
+        DataBuffer buffer = response.bufferFactory().wrap(cached.body());
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    /**
+     * 缓存 key：用户范围 + 路径 + 排序后的查询参数
+     */
+    private String cacheKey(ServerWebExchange exchange, Policy policy) {
+        String scope = "*";
+        if (policy.userScope()) {
+            JwtSessionBO session = exchange.getAttribute(JwtAuthenticationGlobalFilter.SESSION_ATTR);
+            scope = session != null ? "u:" + session.getUserId() : "anon";
+        }
+        StringBuilder key = new StringBuilder(scope).append(' ').append(exchange.getRequest().getURI().getRawPath());
+        String query = exchange.getRequest().getURI().getRawQuery();
+        if (StringUtils.isNotEmpty(query)) {
+            String[] params = query.split("&");
+            Arrays.sort(params);
+            key.append('?').append(String.join("&", params));
+        }
+        return key.toString();
+    }
+
+    /**
+     * 根据下游 Cache-Control 计算缓存时长
+     *
+     * @return 缓存时长，不可缓存时返回 null
+     */
+    private Duration resolveTtl(String cacheControl, Policy policy) {
+        Long maxAge = null;
+        Long sharedMaxAge = null;
+        if (StringUtils.isNotBlank(cacheControl)) {
+            for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+                String value = directive.trim();
+                if (value.equals("no-store") || value.equals("no-cache")
+                        || (value.equals("private") && !policy.userScope())) {
+                    return null;
+                }
+                if (value.startsWith("s-maxage=")) {
+                    sharedMaxAge = parseSeconds(value.substring("s-maxage=".length()));
+                } else if (value.startsWith("max-age=")) {
+                    maxAge = parseSeconds(value.substring("max-age=".length()));
+                }
+            }
+        }
+        Duration ttl;
+        if (sharedMaxAge != null) {
+            ttl = Duration.ofSeconds(sharedMaxAge);
+        } else if (maxAge != null) {
+            ttl = Duration.ofSeconds(maxAge);
+        } else if (policy.ttl() != null) {
+            ttl = policy.ttl();
+        } else {
+            ttl = cacheProperties.getDefaultTtl();
+        }
+        if (ttl.compareTo(cacheProperties.getMaxTtl()) > 0) {
+            ttl = cacheProperties.getMaxTtl();
+        }
+        return ttl.isZero() || ttl.isNegative() ? null : ttl;
+    }
+
+    /**
+     * 清理标签：{路由 ID}、{路由 ID}:{资源名}（路径第二段，如 /oneself-system/dept/tree 的 dept）以及下游指定的标签
+     */
+    private static Set<String> resolveTags(Route route, String path, String extraTags) {
+        Set<String> tags = new LinkedHashSet<>();
+        tags.add(route.getId());
+        String[] segments = StringUtils.split(path, '/');
+        if (segments.length > 1) {
+            tags.add(route.getId() + ":" + segments[1]);
+        }
+        if (StringUtils.isNotBlank(extraTags)) {
+            for (String tag : extraTags.split(",")) {
+                if (StringUtils.isNotBlank(tag)) {
+                    tags.add(tag.trim());
+                }
+            }
+        }
+        return Set.copyOf(tags);
+    }
+
+    /**
+     * JSON 响应体顶层带 msgCode（Resp 包装）时，只有 msgCode 为 200 才算成功；非 JSON 或无 msgCode 的响应按 HTTP 状态判断
+     */
+    private static boolean isSuccessBody(MediaType contentType, byte[] body) {
+        if (contentType == null || !contentType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+            return true;
+        }
+        try (JsonParser parser = JacksonUtils.getObjectMapper().getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return true;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("msgCode".equals(field)) {
+                    return value == JsonToken.VALUE_NUMBER_INT && parser.getIntValue() == HttpStatus.OK.value();
+                }
+                parser.skipChildren();
+            }
+            return true;
+        } catch (IOException e) {
+            log.debug("响应体不是合法 JSON，不缓存，error={}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean isVaryIgnorable(List<String> vary) {
+        for (String value : vary) {
+            if (!IGNORED_VARY.contains(value.trim().toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean etagMatches(List<String> ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch) {
+            String value = candidate.trim();
+            if ("*".equals(value) || value.equals(etag) || value.equals("W/" + etag) || ("W/" + value).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String generateEtag(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private static Long parseSeconds(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 从路由 metadata 读取响应缓存配置，例如：
+     * <pre>
+     * metadata:
+     *   response-cache:
+     *     ttl-seconds: 60
+     *     scope: user          # user：按用户隔离（默认）；public：所有用户共享
+     *     paths:               # 只缓存这些路径，未配置时缓存该路由下所有 GET 请求
+     *       - /oneself-system/dept/tree
+     * </pre>
+     */
+    private Optional<Policy> parsePolicy(Route route) {
+        Map<String, Object> metadata = route.getMetadata();
+        if (metadata == null || !(metadata.get(METADATA_RESPONSE_CACHE) instanceof Map<?, ?> config)) {
+            return Optional.empty();
+        }
+        Duration ttl = null;
+        Object ttlSeconds = config.get("ttl-seconds");
+        if (ttlSeconds != null) {
+            Long seconds = parseSeconds(ttlSeconds.toString());
+            if (seconds == null || seconds <= 0) {
+                log.warn("路由响应缓存 ttl-seconds 非法，忽略该路由的缓存配置，route={}, value={}", route.getId(), ttlSeconds);
+                return Optional.empty();
+            }
+            ttl = Duration.ofSeconds(seconds);
+        }
+        boolean userScope = !"public".equalsIgnoreCase(String.valueOf(config.get("scope")).trim());
+
+        PathPatternTrie paths = null;
+        List<String> patterns = toStringList(config.get("paths"));
+        if (!patterns.isEmpty()) {
+            try {
+                paths = PathPatternTrie.compile(patterns, publicPathProperties.getServices());
+            } catch (IllegalArgumentException e) {
+                log.warn("路由响应缓存 paths 非法，忽略该路由的缓存配置，route={}, error={}", route.getId(), e.getMessage());
+                return Optional.empty();
+            }
+        }
+        log.info("路由已启用响应缓存，route={}, ttl={}, scope={}, paths={}",
+                route.getId(), ttl, userScope ? "user" : "public", patterns);
+        return Optional.of(new Policy(ttl, userScope, paths));
+    }
+
+    /**
+     * metadata 中的列表可能绑定为 List、以下标为 key 的 Map 或逗号分隔的字符串
+     */
+    private static List<String> toStringList(Object value) {
+        Collection<?> values;
+        if (value instanceof Collection<?> collection) {
+            values = collection;
+        } else if (value instanceof Map<?, ?> map) {
+            values = map.values();
+        } else if (value != null) {
+            values = Arrays.asList(value.toString().split(","));
+        } else {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>(values.size());
+        for (Object item : values) {
+            if (item != null && StringUtils.isNotBlank(item.toString())) {
+                result.add(item.toString().trim());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int getOrder() {
+        return -80; // 在认证与限流之后执行：缓存命中同样计入限流配额，且按用户隔离时需要会话信息
+    }
+
+    /**
+     * 路由缓存策略
+     *
+     * @param ttl       路由配置的缓存时长，未配置时为 null
+     * @param userScope 是否按用户隔离
+     * @param paths     允许缓存的路径，未配置时为 null（全部）
+     */
+    private record Policy(Duration ttl, boolean userScope, PathPatternTrie paths) {
+    }
+}
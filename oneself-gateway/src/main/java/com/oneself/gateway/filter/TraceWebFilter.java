@@ -1,38 +1,56 @@
 package com.oneself.gateway.filter;
 
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+import com.oneself.gateway.model.AccessLogEntry;
+import com.oneself.gateway.model.GatewayRequestContext;
+import com.oneself.gateway.service.AccessLogService;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.MDC;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
 
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author liuhuan
  * date 2025/12/25
  * packageName com.oneself.filter
  * className TraceWebFilter
- * description Gateway 响应式 Trace Filter，生成唯一的 Trace ID 并存储在 Logback MDC 中用于分布式跟踪
+ * description
+ * Gateway 响应式 Trace Filter：
+ * - 生成（或沿用请求头中的）Trace ID，写入响应头，并放入 Reactor Context，由自动上下文传播恢复到 MDC
+ * - 请求结束时生成一条结构化访问日志，按采样率记录（错误请求与慢请求始终记录），异步写入，不占用事件循环
  * version 1.0
  */
 @Slf4j
 @Order(Ordered.HIGHEST_PRECEDENCE)
 @Component
+@RequiredArgsConstructor
 public class TraceWebFilter implements WebFilter {
     
     public static final String TRACE_ID = "traceId";
     private static final String TRACE_ID_HEADER = "X-Trace-Id";
 
+    private final AccessLogService accessLogService;
+
     @Override
     public Mono<Void> filter(@NonNull ServerWebExchange exchange, WebFilterChain chain) {
         long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
 
         // 获取或生成 traceId
         String traceId = getOrGenerateTraceId(exchange);
@@ -40,25 +58,61 @@ public class TraceWebFilter implements WebFilter {
         // 设置响应头
         exchange.getResponse().getHeaders().set(TRACE_ID_HEADER, traceId);
 
-        // 记录请求详情
-        logRequestDetails(exchange, traceId);
+        // 过滤器链的组装在当前线程同步执行，期间的日志同样需要 traceId
+        Mono<Void> result;
+        MDC.put(TRACE_ID, traceId);
+        try {
+            result = chain.filter(exchange);
+        } finally {
+            MDC.remove(TRACE_ID);
+        }
 
-        // 在响应式上下文中设置 MDC
-        return chain.filter(exchange)
-                .contextWrite(context -> {
-                    // 将 traceId 放入响应式上下文
-                    MDC.put(TRACE_ID, traceId);
-                    return context;
-                })
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        return result
+                .doOnError(error::set)
                 .doFinally(signalType -> {
-                    // 记录处理时间
-                    long duration = System.currentTimeMillis() - startTime;
-                    log.info("Request completed in {} ms", duration);
-                    log.info("===== Request End =====");
+                    long durationNanos = System.nanoTime() - startNanos;
+                    logAccess(exchange, traceId, startTime, durationNanos, signalType, error.get());
+                })
+                // traceId 放入 Reactor Context，异步执行的各阶段由 TraceIdThreadLocalAccessor 恢复到 MDC
+                .contextWrite(Context.of(TRACE_ID, traceId));
+    }
 
-                    // 清理 MDC
-                    MDC.clear();
-                });
+    /**
+     * 记录访问日志（采样判定后投递到异步缓冲区）
+     */
+    private void logAccess(ServerWebExchange exchange, String traceId, long startTime, long durationNanos,
+                           SignalType signalType, Throwable error) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        int statusCode = status != null ? status.value() : 0;
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        boolean failed = signalType == SignalType.ON_ERROR;
+        if (!accessLogService.shouldLog(statusCode, durationMs, failed)) {
+            return;
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        GatewayRequestContext context = GatewayRequestContext.of(exchange);
+        JwtSessionBO session = exchange.getAttribute(JwtAuthenticationGlobalFilter.SESSION_ATTR);
+        Long upstreamNanos = exchange.getAttribute(UpstreamTimingFilter.UPSTREAM_NANOS_ATTR);
+        accessLogService.submit(new AccessLogEntry(
+                startTime,
+                traceId,
+                request.getMethod().name(),
+                request.getURI().getPath(),
+                context.routeId(),
+                statusCode,
+                durationMs,
+                upstreamNanos != null ? TimeUnit.NANOSECONDS.toMillis(upstreamNanos) : null,
+                context.clientIp(),
+                session != null ? session.getUserId() : null,
+                request.getHeaders().getFirst("User-Agent"),
+                switch (signalType) {
+                    case ON_ERROR -> "error";
+                    case CANCEL -> "cancel";
+                    default -> "complete";
+                },
+                error != null ? error.getClass().getName() : null));
     }
 
     /**
@@ -77,43 +131,4 @@ public class TraceWebFilter implements WebFilter {
         // 生成新的Trace ID
         return UUID.randomUUID().toString().replace("-", "");
     }
-
-    /**
-     * 记录请求详情
-     *
-     * @param exchange ServerWebExchange
-     * @param traceId Trace ID
-     */
-    private void logRequestDetails(ServerWebExchange exchange, String traceId) {
-        log.info("=== Request Details ===");
-        log.info("Trace ID: {}", traceId);
-        log.info("Request Method: {}", exchange.getRequest().getMethod());
-        log.info("Request URL: {}", exchange.getRequest().getURI());
-        log.info("Query String: {}", exchange.getRequest().getQueryParams());
-        log.info("Client IP: {}", getClientIpAddress(exchange));
-        log.info("User Agent: {}", exchange.getRequest().getHeaders().getFirst("User-Agent"));
-    }
-
-    /**
-     * 获取客户端 IP 地址
-     *
-     * @param exchange ServerWebExchange
-     * @return 客户端 IP
-     */
-    private String getClientIpAddress(ServerWebExchange exchange) {
-        String xForwardedFor = exchange.getRequest().getHeaders().getFirst("X-Forwarded-For");
-        if (StringUtils.isNotBlank(xForwardedFor)) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-
-        String xRealIp = exchange.getRequest().getHeaders().getFirst("X-Real-IP");
-        if (StringUtils.isNotBlank(xRealIp)) {
-            return xRealIp;
-        }
-
-        return exchange.getRequest().getRemoteAddress() != null 
-                ? exchange.getRequest().getRemoteAddress().getAddress().getHostAddress() 
-                : "unknown";
-    }
 }
-
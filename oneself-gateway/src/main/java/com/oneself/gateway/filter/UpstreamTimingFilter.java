@@ -0,0 +1,73 @@
+package com.oneself.gateway.filter;
+
+import com.oneself.gateway.service.InstanceLoadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.filter
+ * className UpstreamTimingFilter
+ * description
+ * 下游服务耗时过滤器，紧挨着 NettyRoutingFilter 执行：
+ * - 从发起下游请求到收到下游响应头的耗时写入请求属性，由 GatewayMetricsFilter 拆分出网关自身耗时
+ * - lb:// 路由同时把耗时与进行中请求数计入所选实例的负载统计，供负载均衡选择实例（请求取消时同样结束统计）
+ * version 1.0
+ */
+@Component
+@RequiredArgsConstructor
+public class UpstreamTimingFilter implements GlobalFilter, Ordered {
+
+    /**
+     * 下游耗时（纳秒）请求属性名
+     */
+    public static final String UPSTREAM_NANOS_ATTR = UpstreamTimingFilter.class.getName() + ".upstreamNanos";
+
+    private final InstanceLoadService instanceLoadService;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        ServiceInstance instance = lbResponse != null && lbResponse.hasServer() ? lbResponse.getServer() : null;
+        if (instance != null) {
+            instanceLoadService.onStart(instance);
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signalType -> {
+                    long elapsed = System.nanoTime() - start;
+                    exchange.getAttributes().put(UPSTREAM_NANOS_ATTR, elapsed);
+                    if (instance != null) {
+                        instanceLoadService.onComplete(instance, elapsed, isFailure(signalType, exchange));
+                    }
+                });
+    }
+
+    /**
+     * 下游是否失败（异常、超时，或下游返回 502、503、504）
+     */
+    private static boolean isFailure(SignalType signalType, ServerWebExchange exchange) {
+        if (signalType == SignalType.ON_ERROR) {
+            return true;
+        }
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null && (status.value() == 502 || status.value() == 503 || status.value() == 504);
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyRoutingFilter.ORDER - 1;
+    }
+}
@@ -0,0 +1,79 @@
+package com.oneself.gateway.filter;
+
+import com.oneself.gateway.model.GatewayRequestContext;
+import com.oneself.gateway.model.RateLimitQuota;
+import com.oneself.gateway.properties.GatewayRateLimitProperties;
+import com.oneself.gateway.service.PublicPathService;
+import com.oneself.gateway.service.RateLimitPolicyService;
+import com.oneself.gateway.service.RateLimitService;
+import com.oneself.gateway.utils.RejectionResponses;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.filter
+ * className UserRateLimitGlobalFilter
+ * description Gateway 用户与接口限流全局过滤器，在 JWT 认证之后执行，以便按登录用户计数；
+ * 用户配额与接口配额一次 Redis 调用完成判定，IP 配额已由 {@link RateLimitGlobalFilter} 在认证之前判定
+ * version 1.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserRateLimitGlobalFilter implements GlobalFilter, Ordered {
+
+    private final RateLimitService rateLimitService;
+    private final RateLimitPolicyService rateLimitPolicyService;
+    private final PublicPathService publicPathService;
+    private final GatewayRateLimitProperties rateLimitProperties;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        // 如果限流未启用，直接放行
+        if (!rateLimitProperties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getURI().getPath();
+        
+        // 跳过公开路径的限流
+        if (publicPathService.isRateLimitExempt(path)) {
+            return chain.filter(exchange);
+        }
+
+        // 计算本次请求需要满足的用户与接口配额
+        String clientIp = GatewayRequestContext.of(exchange).clientIp();
+        List<RateLimitQuota> quotas = rateLimitPolicyService.resolve(exchange, clientIp);
+        if (quotas.isEmpty()) {
+            return chain.filter(exchange);
+        }
+
+        // 执行限流检查
+        return rateLimitService.tryAcquire(quotas)
+                .flatMap(decision -> {
+                    if (decision.allowed()) {
+                        return chain.filter(exchange);
+                    } else {
+                        log.warn("请求被限流（用户 / 接口），ip={}, path={}", clientIp, path);
+                        return RejectionResponses.tooManyRequests(exchange.getResponse(), decision.retryAfterMs());
+                    }
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        return -90; // 在 JWT 认证与接口鉴权之后执行，以便按登录用户限流
+    }
+}
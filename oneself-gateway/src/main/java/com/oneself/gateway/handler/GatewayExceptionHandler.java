@@ -1,22 +1,17 @@
 package com.oneself.gateway.handler;
 
-import com.oneself.common.core.resp.Resp;
-import com.oneself.common.core.utils.JacksonUtils;
+import com.oneself.gateway.utils.RejectionResponses;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
 import org.springframework.core.annotation.Order;
-import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-
 /**
  * @author liuhuan
  * date 2025/12/25
@@ -33,10 +28,7 @@ public class GatewayExceptionHandler implements ErrorWebExceptionHandler {
     @Override
     public Mono<Void> handle(ServerWebExchange exchange, @NonNull Throwable ex) {
         ServerHttpResponse response = exchange.getResponse();
-        
-        // 设置响应头
-        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
-        
+
         // 根据异常类型设置状态码和错误信息
         HttpStatus status = HttpStatus.INTERNAL_SERVER_ERROR;
         String message = "系统异常，请稍后重试";
@@ -56,15 +48,8 @@ public class GatewayExceptionHandler implements ErrorWebExceptionHandler {
                     exchange.getRequest().getPath(), ex.getMessage(), ex);
         }
         
-        response.setStatusCode(status);
-        
-        // 构建错误响应
-        Resp<String> resp = Resp.failure(message, status);
-        String json = JacksonUtils.toJsonString(resp);
-        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
-        DataBuffer buffer = response.bufferFactory().wrap(bytes);
-        
-        return response.writeWith(Mono.just(buffer));
+        // 构建错误响应（相同状态码与错误信息的响应体只序列化一次）
+        return RejectionResponses.write(response, RejectionResponses.of(status, message));
     }
 }
 
@@ -0,0 +1,81 @@
+package com.oneself.gateway.loadbalancer;
+
+import com.oneself.gateway.service.InstanceLoadService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.loadbalancer
+ * className PeakEwmaLoadBalancer
+ * description
+ * 延迟感知负载均衡（Power of Two Choices）：随机取两个实例，选择负载评分较低的一个。
+ * 评分由 InstanceLoadService 计算（Peak EWMA 延迟 × 进行中请求数 / 预热权重），
+ * GC 停顿、JIT 未预热等导致变慢的实例会自动少分流量，又不会像“总选最快”那样把流量集中到单个实例
+ * version 1.0
+ */
+@Slf4j
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final String serviceId;
+    private final InstanceLoadService instanceLoadService;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider, String serviceId,
+                                InstanceLoadService instanceLoadService) {
+        this.supplierProvider = supplierProvider;
+        this.serviceId = serviceId;
+        this.instanceLoadService = instanceLoadService;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request)
+                .next()
+                .map(instances -> {
+                    Response<ServiceInstance> response = choose(instances);
+                    if (supplier instanceof SelectedInstanceCallback callback && response.hasServer()) {
+                        callback.selectedServiceInstance(response.getServer());
+                    }
+                    return response;
+                });
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        int size = instances.size();
+        if (size == 0) {
+            log.warn("没有可用的服务实例，serviceId={}", serviceId);
+            return new EmptyResponse();
+        }
+        if (size == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        double scoreA = instanceLoadService.score(a, instances);
+        double scoreB = instanceLoadService.score(b, instances);
+        return new DefaultResponse(scoreA <= scoreB ? a : b);
+    }
+}
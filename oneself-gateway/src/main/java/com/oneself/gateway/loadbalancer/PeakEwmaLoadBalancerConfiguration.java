@@ -0,0 +1,38 @@
+package com.oneself.gateway.loadbalancer;
+
+import com.oneself.gateway.properties.GatewayLoadBalancerProperties;
+import com.oneself.gateway.service.InstanceLoadService;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.loadbalancer
+ * className PeakEwmaLoadBalancerConfiguration
+ * description
+ * 每个服务的负载均衡子容器配置（由 LoadBalancerConfig 通过 @LoadBalancerClients 注册）。
+ * 不能加 @Configuration，否则会被主容器扫描，所有服务共用同一个负载均衡器
+ * version 1.0
+ */
+public class PeakEwmaLoadBalancerConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(
+            Environment environment, LoadBalancerClientFactory loadBalancerClientFactory,
+            InstanceLoadService instanceLoadService, GatewayLoadBalancerProperties loadBalancerProperties) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        if (!loadBalancerProperties.isEnabled()) {
+            return new RoundRobinLoadBalancer(
+                    loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), serviceId);
+        }
+        return new PeakEwmaLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId, instanceLoadService);
+    }
+}
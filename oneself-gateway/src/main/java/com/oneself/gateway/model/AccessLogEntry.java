@@ -0,0 +1,38 @@
+package com.oneself.gateway.model;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.model
+ * className AccessLogEntry
+ * description 访问日志记录（每个请求一条，在写日志线程中序列化为 JSON）
+ * version 1.0
+ *
+ * @param timestamp  请求开始时间（epoch 毫秒）
+ * @param traceId    Trace ID
+ * @param method     请求方法
+ * @param path       请求路径（不含查询参数，避免记录敏感参数）
+ * @param route      路由 ID，未匹配路由时为 null
+ * @param status     响应状态码，未知时为 0
+ * @param durationMs 端到端耗时（毫秒）
+ * @param upstreamMs 下游耗时（毫秒），未转发到下游时为 null
+ * @param clientIp   客户端 IP
+ * @param userId     登录用户 ID，未登录时为 null
+ * @param userAgent  User-Agent
+ * @param outcome    处理结果：complete / error / cancel
+ * @param error      异常类型，正常完成时为 null
+ */
+public record AccessLogEntry(long timestamp,
+                             String traceId,
+                             String method,
+                             String path,
+                             String route,
+                             int status,
+                             long durationMs,
+                             Long upstreamMs,
+                             String clientIp,
+                             String userId,
+                             String userAgent,
+                             String outcome,
+                             String error) {
+}
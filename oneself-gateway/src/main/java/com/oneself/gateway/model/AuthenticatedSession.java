@@ -0,0 +1,41 @@
+package com.oneself.gateway.model;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+import com.oneself.common.feature.security.utils.IdentityAssertionCodec;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.model
+ * className AuthenticatedSession
+ * description 会话校验结果
+ * version 1.0
+ *
+ * @param session          会话信息（Token 中的字段）
+ * @param authorityVersion 权限版本：Redis 中会话内容（角色、权限等）的摘要，内容变化时随之变化
+ * @param sessionJson      Redis 中的会话内容（网关预先鉴权时读取其中的权限编码）
+ */
+public record AuthenticatedSession(JwtSessionBO session, String authorityVersion, String sessionJson) {
+
+    /**
+     * 会话内容 -> 权限版本（weakKeys 按实例比较，本地缓存命中时同一个会话字符串只计算一次摘要）
+     */
+    private static final Cache<String, String> VERSIONS = Caffeine.newBuilder()
+            .weakKeys()
+            .maximumSize(10_000)
+            .build();
+
+    /**
+     * 由会话内容计算权限版本
+     *
+     * @param session     会话信息
+     * @param sessionJson Redis 中的会话内容
+     * @return 会话校验结果
+     */
+    public static AuthenticatedSession of(JwtSessionBO session, String sessionJson) {
+        return new AuthenticatedSession(session,
+                VERSIONS.get(sessionJson, IdentityAssertionCodec::authorityVersion), sessionJson);
+    }
+}
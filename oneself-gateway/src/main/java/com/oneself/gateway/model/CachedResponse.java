@@ -0,0 +1,37 @@
+package com.oneself.gateway.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.model
+ * className CachedResponse
+ * description 缓存的下游响应（本地缓存直接保存对象，Redis 中保存 JSON）
+ * version 1.0
+ *
+ * @param status    状态码
+ * @param headers   需要回放的响应头
+ * @param body      响应体
+ * @param etag      ETag（下游未返回时由网关根据响应体生成）
+ * @param tags      清理标签
+ * @param createdAt 缓存时间（epoch 毫秒）
+ * @param expiresAt 过期时间（epoch 毫秒）
+ */
+public record CachedResponse(int status,
+                             Map<String, List<String>> headers,
+                             byte[] body,
+                             String etag,
+                             Set<String> tags,
+                             long createdAt,
+                             long expiresAt) {
+
+    /**
+     * 是否已过期
+     */
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
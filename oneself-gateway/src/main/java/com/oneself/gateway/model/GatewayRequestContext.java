@@ -0,0 +1,141 @@
+package com.oneself.gateway.model;
+
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.model
+ * className GatewayRequestContext
+ * description
+ * 单个请求的上下文，保存在请求属性中，各过滤器共用：
+ * - 客户端 IP、Token 首次使用时解析一次，之后直接返回
+ * - 匹配到的路由在路由匹配完成后（全局过滤器阶段）才有值，取到后同样缓存
+ * 同一请求在同一时刻只由一个线程处理，字段无需同步
+ * version 1.0
+ */
+public final class GatewayRequestContext {
+
+    /**
+     * 请求属性名
+     */
+    public static final String ATTR = GatewayRequestContext.class.getName();
+
+    private static final String UNKNOWN = "unknown";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final ServerHttpRequest request;
+    private final Map<String, Object> attributes;
+
+    private String clientIp;
+    private Route route;
+    private String token;
+    private boolean tokenResolved;
+
+    private GatewayRequestContext(ServerWebExchange exchange) {
+        // 原始请求：后续过滤器追加的 X-User-* 等请求头不影响这里解析的字段
+        this.request = exchange.getRequest();
+        this.attributes = exchange.getAttributes();
+    }
+
+    /**
+     * 获取请求上下文，不存在时创建（mutate 后的 exchange 与原 exchange 共用请求属性）
+     *
+     * @param exchange 当前请求
+     * @return 请求上下文
+     */
+    public static GatewayRequestContext of(ServerWebExchange exchange) {
+        Object context = exchange.getAttributes().get(ATTR);
+        if (context instanceof GatewayRequestContext requestContext) {
+            return requestContext;
+        }
+        GatewayRequestContext requestContext = new GatewayRequestContext(exchange);
+        exchange.getAttributes().put(ATTR, requestContext);
+        return requestContext;
+    }
+
+    /**
+     * 客户端 IP：X-Forwarded-For 第一个地址 → X-Real-IP → 连接地址，都没有时为 unknown
+     */
+    public String clientIp() {
+        if (clientIp == null) {
+            clientIp = resolveClientIp(request);
+        }
+        return clientIp;
+    }
+
+    /**
+     * 匹配到的路由，路由匹配之前（如 WebFilter 阶段）为 null
+     */
+    public Route route() {
+        if (route == null) {
+            route = (Route) attributes.get(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        }
+        return route;
+    }
+
+    /**
+     * 匹配到的路由 ID，未匹配时为 null
+     */
+    public String routeId() {
+        Route matched = route();
+        return matched != null ? matched.getId() : null;
+    }
+
+    /**
+     * Authorization 请求头中的 Token（去掉 Bearer 前缀），未携带时为 null
+     */
+    public String token() {
+        if (!tokenResolved) {
+            token = resolveToken(request);
+            tokenResolved = true;
+        }
+        return token;
+    }
+
+    private static String resolveClientIp(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        String ip = firstAddress(headers.getFirst("X-Forwarded-For"));
+        if (ip == null) {
+            ip = firstAddress(headers.getFirst("X-Real-IP"));
+        }
+        if (ip == null) {
+            InetSocketAddress remoteAddress = request.getRemoteAddress();
+            if (remoteAddress != null && remoteAddress.getAddress() != null) {
+                ip = remoteAddress.getAddress().getHostAddress();
+            }
+        }
+        return ip != null ? ip : UNKNOWN;
+    }
+
+    /**
+     * 取逗号分隔列表中的第一个地址（不拆分整个字符串），空白或 unknown 时返回 null
+     */
+    private static String firstAddress(String value) {
+        if (value == null) {
+            return null;
+        }
+        int comma = value.indexOf(',');
+        String first = (comma >= 0 ? value.substring(0, comma) : value).trim();
+        if (first.isEmpty() || UNKNOWN.equalsIgnoreCase(first)) {
+            return null;
+        }
+        return first;
+    }
+
+    private static String resolveToken(ServerHttpRequest request) {
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || authHeader.isBlank()) {
+            return null;
+        }
+        String token = authHeader.startsWith(BEARER_PREFIX) ? authHeader.substring(BEARER_PREFIX.length()) : authHeader;
+        return token.isBlank() ? null : token;
+    }
+}
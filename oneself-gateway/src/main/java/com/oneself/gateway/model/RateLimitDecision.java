@@ -0,0 +1,26 @@
+package com.oneself.gateway.model;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.model
+ * className RateLimitDecision
+ * description 限流判定结果
+ * version 1.0
+ *
+ * @param allowed      是否放行
+ * @param remaining    放行时剩余可用请求数，未知时为 -1
+ * @param retryAfterMs 拒绝时建议的重试间隔（毫秒），未知时为 0
+ */
+public record RateLimitDecision(boolean allowed, long remaining, long retryAfterMs) {
+
+    /**
+     * 放行（剩余数未知）
+     */
+    public static final RateLimitDecision ALLOW = new RateLimitDecision(true, -1, 0);
+
+    /**
+     * 拒绝（重试间隔未知）
+     */
+    public static final RateLimitDecision REJECT = new RateLimitDecision(false, 0, 0);
+}
@@ -0,0 +1,17 @@
+package com.oneself.gateway.model;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.model
+ * className RateLimitQuota
+ * description 单个限流配额（一个请求可同时受多个嵌套配额约束）
+ * version 1.0
+ *
+ * @param key      限流 key
+ * @param windowMs 时间窗口（毫秒）
+ * @param limit    时间窗口内最大请求数
+ * @param burst    突发容量
+ */
+public record RateLimitQuota(String key, long windowMs, int limit, int burst) {
+}
@@ -0,0 +1,53 @@
+package com.oneself.gateway.model;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.model
+ * enumName RequestPriority
+ * description 请求优先级，网关过载时先拒绝低优先级请求
+ * version 1.0
+ */
+public enum RequestPriority {
+
+    /**
+     * 关键请求（登录、刷新 Token 等），可以使用全部并发额度
+     */
+    CRITICAL,
+
+    /**
+     * 普通请求
+     */
+    NORMAL,
+
+    /**
+     * 低优先级请求（导出、分页查询等），只能使用部分并发额度
+     */
+    LOW;
+
+    /**
+     * 提升一级（CRITICAL 保持不变）
+     */
+    public RequestPriority promote() {
+        return this == LOW ? NORMAL : CRITICAL;
+    }
+
+    /**
+     * 解析配置值（忽略大小写）
+     *
+     * @param value 配置值
+     * @return 优先级，无法识别时返回 null
+     */
+    public static RequestPriority parse(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString().trim();
+        for (RequestPriority priority : values()) {
+            if (priority.name().equalsIgnoreCase(text)) {
+                return priority;
+            }
+        }
+        return null;
+    }
+}
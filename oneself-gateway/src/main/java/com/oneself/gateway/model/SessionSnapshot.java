@@ -0,0 +1,23 @@
+package com.oneself.gateway.model;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.model
+ * className SessionSnapshot
+ * description 批量读取得到的 Redis 会话
+ * version 1.0
+ *
+ * @param payload   会话内容（JSON），会话不存在时为 null
+ * @param ttlMillis 剩余有效时间（毫秒），会话不存在时为 -2，未设置过期时间时为 -1
+ * @param epoch     用户当前会话代数，未踢过下线时为 0
+ */
+public record SessionSnapshot(String payload, long ttlMillis, long epoch) {
+
+    /**
+     * 会话是否存在且设置了过期时间
+     */
+    public boolean exists() {
+        return payload != null && ttlMillis > 0;
+    }
+}
@@ -0,0 +1,46 @@
+package com.oneself.gateway.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.properties
+ * className GatewayAccessLogProperties
+ * description Gateway 访问日志配置（采样率、慢请求阈值、缓冲区大小）
+ * version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.access-log")
+public class GatewayAccessLogProperties {
+
+    /**
+     * 是否启用访问日志
+     */
+    private boolean enabled = true;
+
+    /**
+     * 正常请求的采样率（0 ~ 1），错误请求与慢请求始终记录
+     */
+    private double sampleRate = 0.1;
+
+    /**
+     * 慢请求阈值，耗时大于等于该值的请求始终记录
+     */
+    private Duration slowThreshold = Duration.ofSeconds(1);
+
+    /**
+     * 是否始终记录 4xx 响应（5xx 与异常始终记录）
+     */
+    private boolean alwaysLogClientErrors = false;
+
+    /**
+     * 环形缓冲区容量（向上取整为 2 的幂），写满时丢弃新日志并计数
+     */
+    private int bufferSize = 8192;
+}
@@ -0,0 +1,149 @@
+package com.oneself.gateway.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.properties
+ * className GatewayAuthProperties
+ * description Gateway 认证配置（会话校验超时、滑动续期等）
+ * version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.auth")
+public class GatewayAuthProperties {
+
+    /**
+     * 单次会话校验访问 Redis 的超时时间，超时按校验失败处理（fail-closed）
+     */
+    private Duration redisTimeout = Duration.ofMillis(500);
+
+    /**
+     * 会话滑动过期时长
+     */
+    private Duration sessionTimeout = Duration.ofHours(1);
+
+    /**
+     * 滑动续期阈值（剩余时间小于该值时续期）
+     */
+    private Duration renewThreshold = Duration.ofMinutes(10);
+
+    /**
+     * 最大绝对过期时长
+     */
+    private Duration absoluteExpire = Duration.ofDays(7);
+
+    /**
+     * 会话本地缓存配置
+     */
+    private NearCache nearCache = new NearCache();
+
+    /**
+     * 身份断言配置
+     */
+    private IdentityAssertion identityAssertion = new IdentityAssertion();
+
+    /**
+     * 会话批量读取与续期合并写入配置
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * 短时访问令牌校验配置
+     */
+    private AccessToken accessToken = new AccessToken();
+
+    @Data
+    public static class NearCache {
+        /**
+         * 是否启用会话本地缓存（基于 RESP3 CLIENT TRACKING 失效通知保持一致）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最大缓存会话数
+         */
+        private long maximumSize = 10000;
+
+        /**
+         * 本地缓存有效期，必须小于滑动续期阈值，保证活跃会话仍能按时续期
+         */
+        private Duration ttl = Duration.ofMinutes(1);
+
+        /**
+         * 失效延迟探测间隔
+         */
+        private Duration probeInterval = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class IdentityAssertion {
+        /**
+         * 是否向下游签发身份断言（X-Identity-Assertion），下游据此直接确认身份，不再验 JWT、不再访问 Redis
+         */
+        private boolean enabled = true;
+
+        /**
+         * 断言有效期（只需覆盖网关到下游的转发时间，越短被截获重放的窗口越小）
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Batch {
+        /**
+         * 是否启用批量读取（关闭后每个请求单独执行会话校验脚本）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 批量读取的收集窗口：第一个查询到达后最多等待该时间，与窗口内的其他查询合并为一批
+         */
+        private Duration window = Duration.ofNanos(200_000);
+
+        /**
+         * 每批最多查询数，达到后立即发送，不等待窗口结束
+         */
+        private int maxBatchSize = 64;
+
+        /**
+         * 续期写入的刷新间隔：同一会话在间隔内的多次续期合并为一次
+         */
+        private Duration flushInterval = Duration.ofMillis(100);
+
+        /**
+         * 每次刷新最多写入的会话数，待写入数量超过该值时立即刷新
+         */
+        private int maxWriteBatchSize = 256;
+    }
+
+    @Data
+    public static class AccessToken {
+        /**
+         * 是否直接校验短时访问令牌（不访问 Redis，吊销记录由本地过滤器判断）；关闭后访问令牌与普通 Token 一样查询 Redis
+         */
+        private boolean enabled = true;
+
+        /**
+         * 吊销过滤器轮换周期，应不小于 auth 服务签发的访问令牌有效期（ONESELF_JWT_ACCESS_TOKEN_TTL），
+         * 有效期超过该值的访问令牌不走本地校验，按普通 Token 查询 Redis
+         */
+        private Duration maxTtl = Duration.ofMinutes(5);
+
+        /**
+         * 每个轮换周期预计的吊销记录数
+         */
+        private long expectedRevocations = 100_000;
+
+        /**
+         * 吊销过滤器误判率（误判时回退查询 Redis，不会误拒）
+         */
+        private double falsePositiveRate = 0.01;
+    }
+}
@@ -0,0 +1,44 @@
+package com.oneself.gateway.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.properties
+ * className GatewayCoalescingProperties
+ * description
+ * Gateway 请求合并配置（相同的并发 GET 请求只转发一次），
+ * 具体哪些路由启用由路由 metadata.coalescing 配置
+ * version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.coalescing")
+public class GatewayCoalescingProperties {
+
+    /**
+     * 是否启用请求合并（关闭后路由配置不生效）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 单个请求最多合并的等待请求数，超过后的请求单独转发
+     */
+    private int maxWaiters = 200;
+
+    /**
+     * 可共享的响应体大小上限，超过时等待的请求各自转发
+     */
+    private DataSize maxResponseSize = DataSize.ofKilobytes(512);
+
+    /**
+     * 等待首个请求响应的最长时间，超时后单独转发
+     */
+    private Duration maxWait = Duration.ofSeconds(10);
+}
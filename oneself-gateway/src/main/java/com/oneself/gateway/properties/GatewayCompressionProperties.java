@@ -0,0 +1,50 @@
+package com.oneself.gateway.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.properties
+ * className GatewayCompressionProperties
+ * description Gateway 响应压缩配置（大小阈值、可压缩类型、压缩级别、CPU 过载保护）
+ * version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.compression")
+public class GatewayCompressionProperties {
+
+    /**
+     * 是否启用响应压缩
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最小压缩大小，Content-Length 小于该值时不压缩（未知长度的分块响应总是压缩）
+     */
+    private DataSize minResponseSize = DataSize.ofKilobytes(2);
+
+    /**
+     * 可压缩的内容类型（另外所有 +json / +xml 类型均可压缩）
+     */
+    private List<String> mimeTypes = new ArrayList<>(List.of(
+            "application/json", "application/xml", "application/javascript",
+            "text/html", "text/xml", "text/plain", "text/css", "text/javascript"));
+
+    /**
+     * 压缩级别（1 ~ 9，越大压缩率越高、CPU 开销越大）
+     */
+    private int level = 5;
+
+    /**
+     * CPU 使用率达到该值时暂停压缩（0 ~ 1），优先保证吞吐
+     */
+    private double cpuThreshold = 0.85;
+}
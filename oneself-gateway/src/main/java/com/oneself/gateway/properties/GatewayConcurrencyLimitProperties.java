@@ -0,0 +1,80 @@
+package com.oneself.gateway.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.properties
+ * className GatewayConcurrencyLimitProperties
+ * description
+ * Gateway 自适应并发限制配置：每个路由的并发上限根据下游响应时间自动调整，
+ * 过载时先拒绝低优先级请求。路由默认优先级由路由 metadata.priority 配置
+ * version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.concurrency-limit")
+public class GatewayConcurrencyLimitProperties {
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = true;
+
+    /**
+     * 初始并发上限
+     */
+    private int initialLimit = 20;
+
+    /**
+     * 并发上限的最小值
+     */
+    private int minLimit = 4;
+
+    /**
+     * 并发上限的最大值（应小于 HTTP 客户端连接池的最大连接数）
+     */
+    private int maxLimit = 200;
+
+    /**
+     * 下游失败（异常、502/503/504）时上限的缩减比例
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * 重新测量下游无排队响应时间的间隔（测量期间不限制并发，以随后若干样本的最小值替换基线）
+     */
+    private Duration probeInterval = Duration.ofSeconds(30);
+
+    /**
+     * 普通请求可使用的并发额度比例
+     */
+    private double normalShare = 0.9;
+
+    /**
+     * 低优先级请求可使用的并发额度比例
+     */
+    private double lowShare = 0.6;
+
+    /**
+     * 拒绝请求时返回的 Retry-After
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * 关键请求路径（优先于路由 metadata.priority，支持 {service} 占位符）
+     */
+    private List<String> criticalPaths = new ArrayList<>();
+
+    /**
+     * 低优先级请求路径（优先于路由 metadata.priority，支持 {service} 占位符）
+     */
+    private List<String> lowPaths = new ArrayList<>();
+}
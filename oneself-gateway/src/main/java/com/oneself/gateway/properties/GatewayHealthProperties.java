@@ -0,0 +1,41 @@
+package com.oneself.gateway.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.properties
+ * className GatewayHealthProperties
+ * description Gateway 健康检查配置（结果缓存时长、Redis 与服务发现的检查超时）
+ * version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.health")
+public class GatewayHealthProperties {
+
+    /**
+     * 检查结果缓存时长，期间的健康检查请求直接返回上次结果
+     */
+    private Duration cacheTtl = Duration.ofSeconds(5);
+
+    /**
+     * Redis PING 超时时间
+     */
+    private Duration redisTimeout = Duration.ofSeconds(1);
+
+    /**
+     * 查询单个服务实例列表的超时时间
+     */
+    private Duration discoveryTimeout = Duration.ofSeconds(2);
+
+    /**
+     * 是否检查路由对应的下游服务实例
+     */
+    private boolean checkRoutes = true;
+}
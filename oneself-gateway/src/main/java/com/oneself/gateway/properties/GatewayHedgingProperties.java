@@ -0,0 +1,68 @@
+package com.oneself.gateway.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.properties
+ * className GatewayHedgingProperties
+ * description
+ * Gateway 对冲请求与重试配置（幂等的 GET 请求响应慢时向另一个实例再发一次，连接失败时换实例重试），
+ * 具体哪些路由启用由路由 metadata.hedging 配置
+ * version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.hedging")
+public class GatewayHedgingProperties {
+
+    /**
+     * 是否启用对冲与重试（关闭后路由配置不生效）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 对冲阈值取路由下游响应时间的哪个分位数（0 ~ 1），超过该时间未响应时发起对冲请求
+     */
+    private double percentile = 0.95;
+
+    /**
+     * 对冲阈值下限，下游响应很快时避免过早对冲
+     */
+    private Duration minDelay = Duration.ofMillis(50);
+
+    /**
+     * 对冲阈值上限
+     */
+    private Duration maxDelay = Duration.ofSeconds(2);
+
+    /**
+     * 统计样本数达到该值后才开始对冲（样本不足时分位数不可靠）
+     */
+    private int minSamples = 100;
+
+    /**
+     * 响应时间统计窗口，统计最近一到两个窗口内的样本
+     */
+    private Duration window = Duration.ofSeconds(60);
+
+    /**
+     * 连接失败（连接被拒绝、连接超时、收到响应前连接关闭）时是否换实例重试
+     */
+    private boolean retryOnConnectFailure = true;
+
+    /**
+     * 重试预算：每个请求可换取的额外请求数，0.1 表示对冲与重试最多增加 10% 的下游请求
+     */
+    private double budgetRatio = 0.1;
+
+    /**
+     * 重试预算最多累积的额外请求数（应对短时间的集中对冲或重试）
+     */
+    private int maxBudget = 50;
+}
@@ -0,0 +1,46 @@
+package com.oneself.gateway.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.properties
+ * className GatewayLoadBalancerProperties
+ * description Gateway 负载均衡配置（lb:// 路由按实例延迟与并发数选择实例）
+ * version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.load-balancer")
+public class GatewayLoadBalancerProperties {
+
+    /**
+     * 是否启用延迟感知负载均衡，关闭后使用默认的轮询（启动时生效）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 延迟指数平均的衰减时间，越小越快跟随最新延迟
+     */
+    private Duration decayTime = Duration.ofSeconds(10);
+
+    /**
+     * 新实例预热时长，期间分配的流量从 minWarmupWeight 线性增加到正常水平
+     */
+    private Duration warmup = Duration.ofSeconds(60);
+
+    /**
+     * 预热开始时的最小权重（0 ~ 1）
+     */
+    private double minWarmupWeight = 0.1;
+
+    /**
+     * 下游失败（异常、502/503/504）时按该延迟计入实例统计
+     */
+    private Duration failurePenalty = Duration.ofSeconds(1);
+}
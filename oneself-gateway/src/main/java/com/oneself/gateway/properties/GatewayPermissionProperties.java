@@ -0,0 +1,43 @@
+package com.oneself.gateway.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.properties
+ * className GatewayPermissionProperties
+ * description
+ * Gateway 接口预先鉴权配置：规则来自系统服务发布的接口类型权限（sys_permission.resource_path），
+ * 命中规则而缺少对应权限的请求在网关直接返回 403，不再转发到下游
+ * version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.permission")
+public class GatewayPermissionProperties {
+
+    /**
+     * 是否启用网关预先鉴权（关闭后只由下游服务校验权限）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 定期重新读取规则的间隔（变更通知丢失时兜底，启动时生效）
+     */
+    private Duration refreshInterval = Duration.ofMinutes(1);
+
+    /**
+     * 读取规则的 Redis 超时时间
+     */
+    private Duration redisTimeout = Duration.ofSeconds(2);
+
+    /**
+     * 最多缓存的用户权限位图数（按 会话 + 权限版本 缓存）
+     */
+    private long authorityCacheSize = 10000;
+}
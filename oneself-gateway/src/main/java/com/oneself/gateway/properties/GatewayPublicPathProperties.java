@@ -0,0 +1,63 @@
+package com.oneself.gateway.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.properties
+ * className GatewayPublicPathProperties
+ * description
+ * Gateway 公开路径配置（支持 Nacos 动态刷新），规则语法：
+ * - {service}：展开为 services 中的每个服务名
+ * - *：匹配任意单个路径段
+ * - **：匹配该前缀下的所有路径，只能出现在末尾
+ * version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.public-path")
+public class GatewayPublicPathProperties {
+
+    /**
+     * {service} 占位符可取的服务名
+     */
+    private List<String> services = new ArrayList<>(List.of(
+            "oneself-auth", "oneself-system", "oneself-demo", "oneself-quartz", "oneself-ai"));
+
+    /**
+     * 免认证路径
+     */
+    private List<String> auth = new ArrayList<>(List.of(
+            // 认证服务公开接口
+            "/oneself-auth/auth/login/**",
+            "/oneself-auth/auth/captcha/**",
+            "/oneself-auth/auth/refresh/**",
+            // 登出：访问令牌过期后仍需能登出，由认证服务自行验签（允许已过期的 Token）
+            "/oneself-auth/auth/logout/**",
+            // Swagger 文档路径（所有服务）
+            "/{service}/doc.html",
+            "/{service}/swagger-ui/**",
+            "/{service}/swagger-ui.html",
+            "/{service}/v3/api-docs/**",
+            "/{service}/v2/api-docs/**",
+            "/{service}/swagger-resources/**",
+            // 静态资源
+            "/{service}/webjars/**",
+            "/{service}/favicon.ico"));
+
+    /**
+     * 免限流路径
+     */
+    private List<String> rateLimit = new ArrayList<>(List.of(
+            // 登录、验证码等公开接口
+            "/oneself-auth/auth/login/**",
+            "/oneself-auth/auth/captcha/**",
+            // Actuator 端点
+            "/actuator/**"));
+}
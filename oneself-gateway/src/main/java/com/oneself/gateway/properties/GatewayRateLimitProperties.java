@@ -0,0 +1,160 @@
+package com.oneself.gateway.properties;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.properties
+ * className GatewayRateLimitProperties
+ * description
+ * Gateway 限流配置（支持 Nacos 动态刷新），每个请求同时受以下嵌套配额约束，一次 Redis 调用完成判定：
+ * - ip：单个客户端 IP 的总配额
+ * - user：单个登录用户的总配额（按 JWT 过滤器解析出的 userId）
+ * - 接口配额：paths 中最具体的匹配规则 > 路由 metadata.rate-limit > default-limit，
+ *   按 用户（未登录时按 IP）+ 路由 + 路径模板 计数
+ * version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class GatewayRateLimitProperties {
+
+    /**
+     * 是否启用限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 限流算法
+     */
+    private Algorithm algorithm = Algorithm.GCRA;
+
+    /**
+     * 接口默认配额：时间窗口内最大请求数
+     */
+    private int defaultLimit = 100;
+
+    /**
+     * 时间窗口（秒）
+     */
+    private int windowSeconds = 60;
+
+    /**
+     * 突发容量（仅 GCRA 生效），小于等于 0 时等于 defaultLimit
+     */
+    private int burst = 0;
+
+    /**
+     * 单个客户端 IP 的总配额，limit 小于等于 0 时不启用
+     */
+    private Policy ip = new Policy();
+
+    /**
+     * 单个登录用户的总配额，limit 小于等于 0 时不启用
+     */
+    private Policy user = new Policy();
+
+    /**
+     * 按路径规则配置的接口配额（规则语法同 gateway.public-path），用于单独限制分页查询等开销大的接口
+     */
+    private List<PathPolicy> paths = new ArrayList<>();
+
+    /**
+     * 本地 + Redis 两级限流配置（仅 GCRA 生效）
+     */
+    private Local local = new Local();
+
+    @Data
+    public static class Local {
+        /**
+         * 是否启用两级限流：节点本地消费从 Redis 批量领取的配额，配额用完才访问 Redis
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每次从 Redis 领取的许可数。越大访问 Redis 越少，但节点之间越不公平
+         * （最坏情况下全局多放行 节点数 × lease-size 个请求）
+         */
+        private int leaseSize = 10;
+
+        /**
+         * 租约有效期，过期后本节点不再使用剩余许可（下次领取时归还 Redis），避免某个节点长期占用配额
+         */
+        private Duration leaseTtl = Duration.ofSeconds(1);
+
+        /**
+         * 单次访问 Redis 的超时时间，超时按 Redis 异常处理
+         */
+        private Duration redisTimeout = Duration.ofMillis(200);
+
+        /**
+         * 网关节点数，Redis 不可用降级为纯本地限流时，每个节点按 限额 / 节点数 限流
+         */
+        private int expectedNodes = 1;
+
+        /**
+         * Redis 异常后保持纯本地限流的时长，期间不再访问 Redis
+         */
+        private Duration degradeDuration = Duration.ofSeconds(5);
+
+        /**
+         * 本地最多保存的限流 key 数
+         */
+        private long maximumKeys = 100000;
+    }
+
+    /**
+     * 配额
+     */
+    @Data
+    public static class Policy {
+        /**
+         * 时间窗口内最大请求数，小于等于 0 时不启用
+         */
+        private int limit = 0;
+
+        /**
+         * 时间窗口（秒）
+         */
+        private int windowSeconds = 60;
+
+        /**
+         * 突发容量（仅 GCRA 生效），小于等于 0 时等于 limit
+         */
+        private int burst = 0;
+    }
+
+    /**
+     * 路径配额
+     */
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    public static class PathPolicy extends Policy {
+        /**
+         * 路径规则，例如 /{service}/user/page（单段通配符写作 *）
+         */
+        private String pattern;
+    }
+
+    /**
+     * 限流算法
+     */
+    public enum Algorithm {
+        /**
+         * GCRA 令牌桶，每个 key 只保存一个数值
+         */
+        GCRA,
+        /**
+         * ZSET 滑动窗口，每个请求一个成员（旧实现）
+         */
+        SLIDING_WINDOW
+    }
+}
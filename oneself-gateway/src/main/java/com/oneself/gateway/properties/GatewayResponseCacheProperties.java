@@ -0,0 +1,67 @@
+package com.oneself.gateway.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.properties
+ * className GatewayResponseCacheProperties
+ * description
+ * Gateway 响应缓存配置（全局开关、容量、TTL 上限、Redis 二级缓存），
+ * 具体缓存哪些接口由路由 metadata.response-cache 配置
+ * version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class GatewayResponseCacheProperties {
+
+    /**
+     * 是否启用响应缓存（关闭后路由配置不生效）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地缓存总容量（按响应体大小计算，启动时生效）
+     */
+    private DataSize maximumSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 单个响应体大小上限，超过时不缓存
+     */
+    private DataSize maxEntrySize = DataSize.ofKilobytes(512);
+
+    /**
+     * 路由未配置 ttl-seconds 且下游未返回 max-age 时的缓存时长
+     */
+    private Duration defaultTtl = Duration.ofSeconds(60);
+
+    /**
+     * 缓存时长上限（下游返回更长的 max-age 时按该值截断）
+     */
+    private Duration maxTtl = Duration.ofMinutes(30);
+
+    /**
+     * Redis 二级缓存配置
+     */
+    private Redis redis = new Redis();
+
+    @Data
+    public static class Redis {
+        /**
+         * 是否启用 Redis 二级缓存（多个网关节点共享缓存）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 访问 Redis 超时时间，超时按未命中处理
+         */
+        private Duration timeout = Duration.ofMillis(100);
+    }
+}
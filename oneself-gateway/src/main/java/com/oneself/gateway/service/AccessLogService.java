@@ -0,0 +1,31 @@
+package com.oneself.gateway.service;
+
+import com.oneself.gateway.model.AccessLogEntry;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service
+ * interfaceName AccessLogService
+ * description 访问日志服务：请求线程只负责投递，序列化与写文件在独立线程中完成
+ * version 1.0
+ */
+public interface AccessLogService {
+
+    /**
+     * 是否需要记录该请求（采样判定，错误请求与慢请求始终记录）
+     *
+     * @param status     响应状态码
+     * @param durationMs 端到端耗时（毫秒）
+     * @param failed     是否异常结束
+     * @return 是否记录
+     */
+    boolean shouldLog(int status, long durationMs, boolean failed);
+
+    /**
+     * 投递访问日志，不阻塞调用线程；缓冲区已满时丢弃并计数
+     *
+     * @param entry 访问日志
+     */
+    void submit(AccessLogEntry entry);
+}
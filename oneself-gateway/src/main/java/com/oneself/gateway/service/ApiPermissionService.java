@@ -0,0 +1,25 @@
+package com.oneself.gateway.service;
+
+import com.oneself.gateway.model.AuthenticatedSession;
+import org.springframework.http.HttpMethod;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service
+ * interfaceName ApiPermissionService
+ * description 接口预先鉴权服务：按系统服务发布的接口权限规则，在网关判断调用方是否拥有接口所需权限
+ * version 1.0
+ */
+public interface ApiPermissionService {
+
+    /**
+     * 判断是否允许访问
+     *
+     * @param method  请求方法
+     * @param path    请求路径
+     * @param session 会话校验结果
+     * @return 未命中任何规则、管理员或拥有规则要求的任一权限时返回 true
+     */
+    boolean isAllowed(HttpMethod method, String path, AuthenticatedSession session);
+}
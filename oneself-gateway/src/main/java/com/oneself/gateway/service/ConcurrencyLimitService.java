@@ -0,0 +1,41 @@
+package com.oneself.gateway.service;
+
+import com.oneself.gateway.model.RequestPriority;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service
+ * interfaceName ConcurrencyLimitService
+ * description 自适应并发限制服务，按路由维护并发上限，过载时按请求优先级拒绝
+ * version 1.0
+ */
+public interface ConcurrencyLimitService {
+
+    /**
+     * 计算请求优先级：路径规则 > 路由 metadata.priority > NORMAL，管理员请求提升一级
+     *
+     * @param exchange 当前请求
+     * @return 请求优先级
+     */
+    RequestPriority resolvePriority(ServerWebExchange exchange);
+
+    /**
+     * 尝试占用路由的一个并发许可
+     *
+     * @param routeId  路由 ID
+     * @param priority 请求优先级
+     * @return 是否成功，成功后必须调用 {@link #release}
+     */
+    boolean tryAcquire(String routeId, RequestPriority priority);
+
+    /**
+     * 释放并发许可，并根据本次请求结果调整上限
+     *
+     * @param routeId       路由 ID
+     * @param upstreamNanos 下游响应时间（纳秒），未转发到下游或请求取消时为 null
+     * @param failed        下游是否失败（异常、超时、502/503/504）
+     */
+    void release(String routeId, Long upstreamNanos, boolean failed);
+}
@@ -0,0 +1,19 @@
+package com.oneself.gateway.service;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service
+ * interfaceName CpuLoadService
+ * description CPU 负载服务，后台定期采样，请求线程读取最近一次采样值（无系统调用开销）
+ * version 1.0
+ */
+public interface CpuLoadService {
+
+    /**
+     * 最近一次采样的 CPU 使用率
+     *
+     * @return 0 ~ 1，无法获取时为 0
+     */
+    double currentLoad();
+}
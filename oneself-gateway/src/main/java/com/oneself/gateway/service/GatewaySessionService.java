@@ -0,0 +1,23 @@
+package com.oneself.gateway.service;
+
+import com.oneself.gateway.model.AuthenticatedSession;
+import reactor.core.publisher.Mono;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service
+ * interfaceName GatewaySessionService
+ * description Gateway 会话校验服务（响应式，不阻塞 Netty 事件循环线程）
+ * version 1.0
+ */
+public interface GatewaySessionService {
+
+    /**
+     * 校验 Token 对应的登录会话，必要时滑动续期
+     *
+     * @param token JWT 字符串
+     * @return 会话有效时返回会话信息与权限版本；Token 非法或会话失效时返回空；Redis 异常或超时时返回错误信号
+     */
+    Mono<AuthenticatedSession> validate(String token);
+}
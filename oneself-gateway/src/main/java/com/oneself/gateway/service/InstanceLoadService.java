@@ -0,0 +1,41 @@
+package com.oneself.gateway.service;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service
+ * interfaceName InstanceLoadService
+ * description 下游实例负载统计服务（Peak EWMA 延迟 + 进行中请求数 + 预热权重），供负载均衡选择实例
+ * version 1.0
+ */
+public interface InstanceLoadService {
+
+    /**
+     * 计算实例的负载评分，越小越优先
+     *
+     * @param instance 实例
+     * @param siblings 同服务的全部实例（新实例以它们的平均延迟作为初始延迟）
+     * @return 负载评分
+     */
+    double score(ServiceInstance instance, List<ServiceInstance> siblings);
+
+    /**
+     * 开始向实例转发一个请求
+     *
+     * @param instance 实例
+     */
+    void onStart(ServiceInstance instance);
+
+    /**
+     * 实例请求结束
+     *
+     * @param instance 实例
+     * @param rttNanos 请求耗时（纳秒）
+     * @param failed   是否失败（异常、超时、502/503/504），失败按惩罚延迟计入
+     */
+    void onComplete(ServiceInstance instance, long rttNanos, boolean failed);
+}
@@ -0,0 +1,28 @@
+package com.oneself.gateway.service;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service
+ * interfaceName PublicPathService
+ * description 公开路径匹配服务，认证与限流过滤器共用
+ * version 1.0
+ */
+public interface PublicPathService {
+
+    /**
+     * 是否为免认证路径
+     *
+     * @param path 请求路径
+     * @return 是否免认证
+     */
+    boolean isAuthExempt(String path);
+
+    /**
+     * 是否为免限流路径
+     *
+     * @param path 请求路径
+     * @return 是否免限流
+     */
+    boolean isRateLimitExempt(String path);
+}
@@ -0,0 +1,34 @@
+package com.oneself.gateway.service;
+
+import com.oneself.gateway.model.RateLimitQuota;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service
+ * interfaceName RateLimitPolicyService
+ * description 限流策略服务，计算请求需要满足的全部配额
+ * version 1.0
+ */
+public interface RateLimitPolicyService {
+
+    /**
+     * 计算 IP 配额（认证之前判定，无效 Token 的请求同样计入）
+     *
+     * @param clientIp 客户端 IP
+     * @return 配额列表，为空时不限流
+     */
+    List<RateLimitQuota> resolveIp(String clientIp);
+
+    /**
+     * 计算认证之后需要满足的配额（用户、接口）
+     *
+     * @param exchange 当前请求
+     * @param clientIp 客户端 IP
+     * @return 配额列表，为空时不限流
+     */
+    List<RateLimitQuota> resolve(ServerWebExchange exchange, String clientIp);
+}
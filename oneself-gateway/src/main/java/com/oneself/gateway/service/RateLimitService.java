@@ -0,0 +1,26 @@
+package com.oneself.gateway.service;
+
+import com.oneself.gateway.model.RateLimitDecision;
+import com.oneself.gateway.model.RateLimitQuota;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service
+ * interfaceName RateLimitService
+ * description 限流服务
+ * version 1.0
+ */
+public interface RateLimitService {
+
+    /**
+     * 尝试获取一次请求许可，所有配额都允许时才放行
+     *
+     * @param quotas 需要同时满足的配额
+     * @return 限流判定结果，Redis 异常时降级为本地限流
+     */
+    Mono<RateLimitDecision> tryAcquire(List<RateLimitQuota> quotas);
+}
@@ -0,0 +1,40 @@
+package com.oneself.gateway.service;
+
+import com.oneself.gateway.model.CachedResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service
+ * interfaceName ResponseCacheService
+ * description 网关响应缓存服务（本地缓存 + 可选的 Redis 二级缓存，按标签清理）
+ * version 1.0
+ */
+public interface ResponseCacheService {
+
+    /**
+     * 查询缓存，先查本地缓存，未命中时查 Redis（命中后回填本地缓存）
+     *
+     * @param key 缓存 key
+     * @return 未过期的缓存响应，未命中或 Redis 异常时为空
+     */
+    Mono<CachedResponse> get(String key);
+
+    /**
+     * 写入缓存（Redis 异步写入，不阻塞请求）
+     *
+     * @param key      缓存 key
+     * @param response 响应
+     */
+    void put(String key, CachedResponse response);
+
+    /**
+     * 按标签清理缓存
+     *
+     * @param tags 标签
+     */
+    void purge(Collection<String> tags);
+}
@@ -0,0 +1,49 @@
+package com.oneself.gateway.service;
+
+import com.oneself.gateway.model.SessionSnapshot;
+import reactor.core.publisher.Mono;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service
+ * interfaceName SessionBatchService
+ * description 会话批量访问：并发请求的会话查询合并为一批读取，滑动续期合并后延迟写入
+ * version 1.0
+ */
+public interface SessionBatchService {
+
+    /**
+     * 读取会话（与同一窗口内的其他查询合并发送）
+     *
+     * @param sessionId 会话 ID
+     * @param userId    用户 ID
+     * @return 会话内容、剩余有效时间与用户当前会话代数
+     */
+    Mono<SessionSnapshot> read(String sessionId, String userId);
+
+    /**
+     * 登记滑动续期，下次刷新时写入（同一会话多次登记只写一次，写入时会话已不存在则只清理用户会话集合）
+     *
+     * @param sessionId 会话 ID
+     * @param userId    用户 ID
+     */
+    void renew(String sessionId, String userId);
+
+    /**
+     * 登记从用户会话集合中移出（会话已不存在或未设置过期时间），下次刷新时写入，不删除会话 key
+     * （与 login-session-validate 脚本的处理一致）
+     *
+     * @param sessionId 会话 ID
+     * @param userId    用户 ID
+     */
+    void prune(String sessionId, String userId);
+
+    /**
+     * 登记会话清理（已过期、超过最大绝对过期时长或已被踢下线），下次刷新时删除会话并移出用户会话集合
+     *
+     * @param sessionId 会话 ID
+     * @param userId    用户 ID
+     */
+    void remove(String sessionId, String userId);
+}
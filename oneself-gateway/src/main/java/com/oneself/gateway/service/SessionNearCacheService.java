@@ -0,0 +1,36 @@
+package com.oneself.gateway.service;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service
+ * interfaceName SessionNearCacheService
+ * description 登录会话本地缓存，Redis 中会话被删除或修改时由服务端推送失效通知
+ * version 1.0
+ */
+public interface SessionNearCacheService {
+
+    /**
+     * 查询本地缓存的会话内容
+     *
+     * @param sessionId 会话 ID
+     * @return 会话内容（JSON），未命中或缓存不可用时返回 null
+     */
+    String getIfPresent(String sessionId);
+
+    /**
+     * 记录一次 Redis 读取的开始时间，用于判断读取期间是否收到过失效通知
+     *
+     * @return 读取开始时间（纳秒）
+     */
+    long markRead();
+
+    /**
+     * 写入本地缓存（读取期间该会话已失效时放弃写入）
+     *
+     * @param sessionId     会话 ID
+     * @param payload       会话内容（JSON）
+     * @param readStartedAt {@link #markRead()} 返回的读取开始时间
+     */
+    void put(String sessionId, String payload, long readStartedAt);
+}
@@ -0,0 +1,27 @@
+package com.oneself.gateway.service;
+
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service
+ * interfaceName TokenRevocationService
+ * description 短时访问令牌吊销判断：基于 Redis 推送的吊销记录维护本地过滤器，校验访问令牌时不访问 Redis
+ * version 1.0
+ */
+public interface TokenRevocationService {
+
+    /**
+     * 过滤器是否可用（订阅中断或尚未补齐最近的吊销记录时不可用，调用方应回退查询 Redis）
+     */
+    boolean isReady();
+
+    /**
+     * 会话是否可能已被吊销（登出或所在代数已被踢下线）
+     *
+     * @param session 会话信息
+     * @return false 表示一定未被吊销；true 可能是误判，调用方应回退查询 Redis
+     */
+    boolean mightBeRevoked(JwtSessionBO session);
+}
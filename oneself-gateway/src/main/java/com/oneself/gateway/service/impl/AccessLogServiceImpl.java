@@ -0,0 +1,143 @@
+package com.oneself.gateway.service.impl;
+
+import com.oneself.common.core.utils.JacksonUtils;
+import com.oneself.gateway.model.AccessLogEntry;
+import com.oneself.gateway.properties.GatewayAccessLogProperties;
+import com.oneself.gateway.service.AccessLogService;
+import com.oneself.gateway.utils.MpscRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className AccessLogServiceImpl
+ * description
+ * 访问日志服务实现：
+ * - 请求线程将日志写入无锁环形缓冲区后立即返回，缓冲区写满时丢弃并计数，不阻塞事件循环
+ * - 独立的后台线程批量取出日志，序列化为 JSON 写入 ACCESS_LOG（logback-spring.xml 中输出到单独的文件）
+ * - 指标：gateway.access-log.dropped（丢弃数）、gateway.access-log.written（写入数）、gateway.access-log.queue.depth（积压数）
+ * version 1.0
+ */
+@Slf4j
+@Service
+public class AccessLogServiceImpl implements AccessLogService {
+
+    /**
+     * 访问日志专用 Logger
+     */
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("ACCESS_LOG");
+
+    /**
+     * 缓冲区为空时写日志线程的休眠时间
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final GatewayAccessLogProperties accessLogProperties;
+    private final MpscRingBuffer<AccessLogEntry> buffer;
+    private final Counter dropped;
+    private final Counter written;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    public AccessLogServiceImpl(GatewayAccessLogProperties accessLogProperties, MeterRegistry meterRegistry) {
+        this.accessLogProperties = accessLogProperties;
+        // 缓冲区容量在启动时确定，配置刷新不生效
+        this.buffer = new MpscRingBuffer<>(accessLogProperties.getBufferSize());
+        this.dropped = Counter.builder("gateway.access-log.dropped")
+                .description("缓冲区已满被丢弃的访问日志数")
+                .register(meterRegistry);
+        this.written = Counter.builder("gateway.access-log.written")
+                .description("已写入的访问日志数")
+                .register(meterRegistry);
+        Gauge.builder("gateway.access-log.queue.depth", buffer, MpscRingBuffer::size)
+                .description("等待写入的访问日志数")
+                .register(meterRegistry);
+        this.writer = new Thread(this::drainLoop, "gateway-access-log");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+        log.info("访问日志已启动，bufferSize={}, sampleRate={}, slowThreshold={}",
+                buffer.capacity(), accessLogProperties.getSampleRate(), accessLogProperties.getSlowThreshold());
+    }
+
+    /**
+     * 停止时写完缓冲区中剩余的日志
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Override
+    public boolean shouldLog(int status, long durationMs, boolean failed) {
+        if (!accessLogProperties.isEnabled()) {
+            return false;
+        }
+        if (failed || status >= 500) {
+            return true;
+        }
+        if (status >= 400 && accessLogProperties.isAlwaysLogClientErrors()) {
+            return true;
+        }
+        if (durationMs >= accessLogProperties.getSlowThreshold().toMillis()) {
+            return true;
+        }
+        double sampleRate = accessLogProperties.getSampleRate();
+        return sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    @Override
+    public void submit(AccessLogEntry entry) {
+        if (!buffer.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * 取出并写入缓冲区中的所有日志
+     *
+     * @return 本次写入条数
+     */
+    private int drain() {
+        int count = 0;
+        AccessLogEntry entry;
+        while ((entry = buffer.poll()) != null) {
+            try {
+                ACCESS_LOG.info(JacksonUtils.toJsonString(entry));
+                written.increment();
+            } catch (RuntimeException e) {
+                log.warn("访问日志写入失败，traceId={}, error={}", entry.traceId(), e.getMessage());
+            }
+            count++;
+        }
+        return count;
+    }
+}
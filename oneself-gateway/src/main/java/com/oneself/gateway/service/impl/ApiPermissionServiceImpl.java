@@ -0,0 +1,323 @@
+package com.oneself.gateway.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.oneself.common.core.utils.JacksonUtils;
+import com.oneself.common.feature.security.model.enums.UserTypeEnum;
+import com.oneself.common.infra.redis.permission.ApiPermissionPublisher;
+import com.oneself.common.infra.redis.permission.ApiPermissionRule;
+import com.oneself.gateway.model.AuthenticatedSession;
+import com.oneself.gateway.properties.GatewayPermissionProperties;
+import com.oneself.gateway.properties.GatewayPublicPathProperties;
+import com.oneself.gateway.service.ApiPermissionService;
+import com.oneself.gateway.utils.PathPatternTrie;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className ApiPermissionServiceImpl
+ * description
+ * 接口预先鉴权实现：
+ * - 启动时、收到变更通知时、以及每隔 refresh-interval 读取系统服务发布的规则，内容变化时重新编译，整体替换引用
+ * - 每个权限编码分配一个位，每条路径规则编译为所需权限的位图（同一路径配置多个权限时拥有任一即可），
+ *   路径匹配使用前缀树，带 HTTP 方法前缀的规则优先于不带方法的规则
+ * - 用户的权限位图按 会话 + 权限版本 缓存，角色或权限变化后权限版本随之变化，规则变化后位图按新规则重新计算
+ * - 规则未加载、会话内容无法解析时放行，由下游服务照常校验（网关鉴权只是提前拒绝，不替代下游校验）
+ * version 1.0
+ */
+@Slf4j
+@Service
+public class ApiPermissionServiceImpl implements ApiPermissionService {
+
+    /**
+     * 路径中的变量段（如 {id}），按任意单个路径段匹配；{service} 由前缀树展开为服务名
+     */
+    private static final Pattern PATH_VARIABLE = Pattern.compile("\\{(?!service})[^/}]+}");
+
+    private final GatewayPermissionProperties permissionProperties;
+    private final GatewayPublicPathProperties publicPathProperties;
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+
+    /**
+     * 会话 ID + 权限版本 → 用户权限
+     */
+    private final Cache<String, Authority> authorities;
+
+    private volatile Rules rules = Rules.EMPTY;
+
+    /**
+     * 上次编译的规则原文，内容不变时跳过编译
+     */
+    private volatile String loadedText;
+
+    private Disposable subscription;
+
+    public ApiPermissionServiceImpl(GatewayPermissionProperties permissionProperties,
+                                    GatewayPublicPathProperties publicPathProperties,
+                                    ReactiveStringRedisTemplate reactiveRedisTemplate,
+                                    MeterRegistry meterRegistry) {
+        this.permissionProperties = permissionProperties;
+        this.publicPathProperties = publicPathProperties;
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.authorities = Caffeine.newBuilder()
+                .maximumSize(permissionProperties.getAuthorityCacheSize())
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        Gauge.builder("gateway.permission.rules", this, service -> service.rules.size())
+                .description("生效中的接口权限路径规则数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 订阅变更通知并定期读取规则，连接断开后自动重新订阅
+     */
+    @PostConstruct
+    public void start() {
+        if (!permissionProperties.isEnabled()) {
+            return;
+        }
+        Flux<Object> changes = reactiveRedisTemplate.listenToChannel(ApiPermissionPublisher.CHANGE_CHANNEL)
+                .doOnSubscribe(s -> log.info("已订阅接口权限规则变更频道：{}", ApiPermissionPublisher.CHANGE_CHANNEL))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("接口权限规则变更频道订阅中断，重新订阅，error={}",
+                                signal.failure().getMessage())))
+                .cast(Object.class);
+        this.subscription = Flux.merge(Flux.interval(Duration.ZERO, permissionProperties.getRefreshInterval()), changes)
+                .onBackpressureDrop()
+                .concatMap(trigger -> load(), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    @Override
+    public boolean isAllowed(HttpMethod method, String path, AuthenticatedSession session) {
+        Rules current = rules;
+        BitSet required = current.required(method, path);
+        if (required == null) {
+            return true;
+        }
+        String key = session.session().getSessionId() + ":" + session.authorityVersion();
+        Authority authority = authorities.get(key, k -> Authority.parse(session.sessionJson()));
+        return authority.allows(current, required);
+    }
+
+    private Mono<Void> load() {
+        return reactiveRedisTemplate.opsForValue().get(ApiPermissionPublisher.RULES_KEY)
+                .defaultIfEmpty("")
+                .timeout(permissionProperties.getRedisTimeout())
+                .doOnNext(this::apply)
+                .onErrorResume(e -> {
+                    log.warn("读取接口权限规则失败，继续使用旧规则，error={}", e.toString());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void apply(String text) {
+        if (text.equals(loadedText)) {
+            return;
+        }
+        Rules compiled = Rules.compile(ApiPermissionPublisher.decode(text), publicPathProperties.getServices());
+        this.rules = compiled;
+        this.loadedText = text;
+        log.info("接口权限规则已编译，路径规则数={}, 权限编码数={}", compiled.size(), compiled.codeIndex.size());
+    }
+
+    /**
+     * 编译后的规则，构建后不可变
+     */
+    private static final class Rules {
+
+        private static final Rules EMPTY = new Rules(Map.of(), Map.of(), null);
+
+        /**
+         * 权限编码 → 位
+         */
+        private final Map<String, Integer> codeIndex;
+
+        /**
+         * HTTP 方法 → 该方法专用的规则
+         */
+        private final Map<HttpMethod, Matcher> methodMatchers;
+
+        /**
+         * 不限方法的规则
+         */
+        private final Matcher anyMethod;
+
+        private Rules(Map<String, Integer> codeIndex, Map<HttpMethod, Matcher> methodMatchers, Matcher anyMethod) {
+            this.codeIndex = codeIndex;
+            this.methodMatchers = methodMatchers;
+            this.anyMethod = anyMethod;
+        }
+
+        static Rules compile(List<ApiPermissionRule> list, List<String> services) {
+            Map<String, Integer> codeIndex = new HashMap<>();
+            // 方法（null 表示不限）→ 路径规则 → 所需权限位图
+            Map<HttpMethod, Map<String, BitSet>> grouped = new LinkedHashMap<>();
+            for (ApiPermissionRule rule : list) {
+                String path = rule.path().trim();
+                HttpMethod method = null;
+                int space = path.indexOf(' ');
+                if (space > 0) {
+                    method = HttpMethod.valueOf(path.substring(0, space).toUpperCase());
+                    path = path.substring(space + 1).trim();
+                }
+                String pattern = PATH_VARIABLE.matcher(path.startsWith("/") ? path : "/" + path).replaceAll("*");
+                try {
+                    PathPatternTrie.compile(List.of(pattern), services);
+                } catch (IllegalArgumentException e) {
+                    log.warn("忽略无法编译的接口权限规则，code={}, path={}, error={}", rule.code(), rule.path(), e.getMessage());
+                    continue;
+                }
+                int bit = codeIndex.computeIfAbsent(rule.code().trim(), code -> codeIndex.size());
+                grouped.computeIfAbsent(method, m -> new LinkedHashMap<>())
+                        .computeIfAbsent(pattern, p -> new BitSet())
+                        .set(bit);
+            }
+
+            Map<HttpMethod, Matcher> methodMatchers = new HashMap<>();
+            Matcher anyMethod = null;
+            for (Map.Entry<HttpMethod, Map<String, BitSet>> entry : grouped.entrySet()) {
+                Matcher matcher = Matcher.compile(entry.getValue(), services);
+                if (entry.getKey() == null) {
+                    anyMethod = matcher;
+                } else {
+                    methodMatchers.put(entry.getKey(), matcher);
+                }
+            }
+            return new Rules(Map.copyOf(codeIndex), Map.copyOf(methodMatchers), anyMethod);
+        }
+
+        /**
+         * 路径所需的权限位图，未命中规则时返回 null
+         */
+        BitSet required(HttpMethod method, String path) {
+            Matcher matcher = method != null ? methodMatchers.get(method) : null;
+            BitSet required = matcher != null ? matcher.find(path) : null;
+            if (required == null && anyMethod != null) {
+                required = anyMethod.find(path);
+            }
+            return required;
+        }
+
+        /**
+         * 用户拥有的权限编码对应的位图
+         */
+        BitSet toBits(List<String> codes) {
+            BitSet bits = new BitSet(codeIndex.size());
+            for (String code : codes) {
+                Integer bit = codeIndex.get(code);
+                if (bit != null) {
+                    bits.set(bit);
+                }
+            }
+            return bits;
+        }
+
+        int size() {
+            int size = anyMethod != null ? anyMethod.masks.length : 0;
+            for (Matcher matcher : methodMatchers.values()) {
+                size += matcher.masks.length;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * 一组路径规则：前缀树 + 每条规则所需的权限位图
+     */
+    private record Matcher(PathPatternTrie trie, BitSet[] masks) {
+
+        static Matcher compile(Map<String, BitSet> patterns, List<String> services) {
+            return new Matcher(PathPatternTrie.compile(new ArrayList<>(patterns.keySet()), services),
+                    patterns.values().toArray(new BitSet[0]));
+        }
+
+        BitSet find(String path) {
+            int index = trie.find(path);
+            return index >= 0 ? masks[index] : null;
+        }
+    }
+
+    /**
+     * 用户权限（会话内容中的用户类型与权限编码），位图按当前规则计算并缓存
+     */
+    private static final class Authority {
+
+        /**
+         * 会话内容无法解析，放行由下游校验
+         */
+        private static final Authority UNKNOWN = new Authority(true, List.of());
+
+        private final boolean admin;
+        private final List<String> codes;
+        private volatile CompiledBits compiled;
+
+        private Authority(boolean admin, List<String> codes) {
+            this.admin = admin;
+            this.codes = codes;
+        }
+
+        static Authority parse(String sessionJson) {
+            try {
+                JsonNode root = JacksonUtils.fromJsonToNode(sessionJson);
+                boolean admin = UserTypeEnum.ADMIN.name().equals(root.path("type").asText());
+                List<String> codes = new ArrayList<>();
+                root.path("permissionCodes").forEach(code -> codes.add(code.asText()));
+                return new Authority(admin, List.copyOf(codes));
+            } catch (Exception e) {
+                log.warn("会话内容解析失败，跳过网关预先鉴权，error={}", e.getMessage());
+                return UNKNOWN;
+            }
+        }
+
+        boolean allows(Rules rules, BitSet required) {
+            if (admin) {
+                return true;
+            }
+            CompiledBits current = compiled;
+            if (current == null || current.rules() != rules) {
+                current = new CompiledBits(rules, rules.toBits(codes));
+                compiled = current;
+            }
+            return current.bits().intersects(required);
+        }
+    }
+
+    /**
+     * 按某一版本规则计算的用户权限位图
+     */
+    private record CompiledBits(Rules rules, BitSet bits) {
+    }
+}
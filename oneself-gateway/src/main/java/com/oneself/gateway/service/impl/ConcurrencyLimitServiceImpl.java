@@ -0,0 +1,187 @@
+package com.oneself.gateway.service.impl;
+
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+import com.oneself.common.feature.security.model.enums.UserTypeEnum;
+import com.oneself.gateway.filter.JwtAuthenticationGlobalFilter;
+import com.oneself.gateway.model.GatewayRequestContext;
+import com.oneself.gateway.model.RequestPriority;
+import com.oneself.gateway.properties.GatewayConcurrencyLimitProperties;
+import com.oneself.gateway.properties.GatewayPublicPathProperties;
+import com.oneself.gateway.service.ConcurrencyLimitService;
+import com.oneself.gateway.utils.VegasConcurrencyLimiter;
+import com.oneself.gateway.utils.PathPatternTrie;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className ConcurrencyLimitServiceImpl
+ * description
+ * 自适应并发限制服务实现：
+ * - 每个路由一个 VegasConcurrencyLimiter，首次请求时创建
+ * - 关键请求可使用全部并发额度，普通请求与低优先级请求只能使用 normalShare / lowShare，过载时低优先级请求最先被拒绝
+ * - 优先级路径规则与调整参数编译为不可变快照，Nacos 配置刷新后整体替换
+ * - 指标：gateway.concurrency.limit、gateway.concurrency.in-flight、gateway.concurrency.rejected（按路由、优先级）
+ * version 1.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConcurrencyLimitServiceImpl implements ConcurrencyLimitService {
+
+    /**
+     * 路由 metadata 中的优先级配置项
+     */
+    private static final String METADATA_PRIORITY = "priority";
+
+    private final GatewayConcurrencyLimitProperties limitProperties;
+    private final GatewayPublicPathProperties publicPathProperties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 路由 ID → 并发限制器
+     */
+    private final Map<String, RouteLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * 当前生效的配置快照
+     */
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * 配置刷新后重新编译（ConfigurationProperties 已在此事件之前完成重新绑定）
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh() {
+        try {
+            rebuild();
+        } catch (IllegalArgumentException e) {
+            log.error("并发限制配置编译失败，继续使用旧配置，error={}", e.getMessage());
+        }
+    }
+
+    @Override
+    public RequestPriority resolvePriority(ServerWebExchange exchange) {
+        Snapshot current = snapshot;
+        String path = exchange.getRequest().getURI().getPath();
+        RequestPriority priority;
+        if (current.criticalPaths().matches(path)) {
+            priority = RequestPriority.CRITICAL;
+        } else if (current.lowPaths().matches(path)) {
+            priority = RequestPriority.LOW;
+        } else {
+            Route route = GatewayRequestContext.of(exchange).route();
+            RequestPriority routePriority = route != null ? RequestPriority.parse(route.getMetadata().get(METADATA_PRIORITY)) : null;
+            priority = routePriority != null ? routePriority : RequestPriority.NORMAL;
+        }
+        JwtSessionBO session = exchange.getAttribute(JwtAuthenticationGlobalFilter.SESSION_ATTR);
+        if (session != null && session.getUserType() == UserTypeEnum.ADMIN) {
+            priority = priority.promote();
+        }
+        return priority;
+    }
+
+    @Override
+    public boolean tryAcquire(String routeId, RequestPriority priority) {
+        RouteLimiter routeLimiter = limiters.computeIfAbsent(routeId, this::register);
+        if (routeLimiter.limiter().tryAcquire(snapshot.share(priority))) {
+            return true;
+        }
+        routeLimiter.rejected().get(priority).increment();
+        return false;
+    }
+
+    @Override
+    public void release(String routeId, Long upstreamNanos, boolean failed) {
+        RouteLimiter routeLimiter = limiters.get(routeId);
+        if (routeLimiter == null) {
+            return;
+        }
+        VegasConcurrencyLimiter limiter = routeLimiter.limiter();
+        limiter.release();
+        VegasConcurrencyLimiter.Settings settings = snapshot.settings();
+        if (failed) {
+            limiter.onDrop(settings);
+        } else if (upstreamNanos != null) {
+            limiter.onSample(upstreamNanos, settings);
+        }
+    }
+
+    private RouteLimiter register(String routeId) {
+        VegasConcurrencyLimiter limiter = new VegasConcurrencyLimiter(limitProperties.getInitialLimit());
+        Gauge.builder("gateway.concurrency.limit", limiter, VegasConcurrencyLimiter::limit)
+                .description("路由当前的自适应并发上限")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.in-flight", limiter, VegasConcurrencyLimiter::inFlight)
+                .description("路由当前正在转发的请求数")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Map<RequestPriority, Counter> rejected = new EnumMap<>(RequestPriority.class);
+        for (RequestPriority priority : RequestPriority.values()) {
+            rejected.put(priority, Counter.builder("gateway.concurrency.rejected")
+                    .description("超过并发上限被拒绝的请求数")
+                    .tags("route", routeId, "priority", priority.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        return new RouteLimiter(limiter, rejected);
+    }
+
+    private void rebuild() {
+        GatewayConcurrencyLimitProperties properties = limitProperties;
+        if (properties.getMinLimit() < 1 || properties.getMaxLimit() < properties.getMinLimit()) {
+            throw new IllegalArgumentException("min-limit 必须大于 0 且不大于 max-limit");
+        }
+        this.snapshot = new Snapshot(
+                PathPatternTrie.compile(properties.getCriticalPaths(), publicPathProperties.getServices()),
+                PathPatternTrie.compile(properties.getLowPaths(), publicPathProperties.getServices()),
+                new VegasConcurrencyLimiter.Settings(properties.getMinLimit(), properties.getMaxLimit(),
+                        properties.getBackoffRatio(), properties.getProbeInterval().toNanos()),
+                properties.getNormalShare(),
+                properties.getLowShare());
+        log.info("并发限制配置已编译，minLimit={}, maxLimit={}, 关键路径数={}, 低优先级路径数={}",
+                properties.getMinLimit(), properties.getMaxLimit(),
+                snapshot.criticalPaths().size(), snapshot.lowPaths().size());
+    }
+
+    /**
+     * 路由的并发限制器与拒绝计数
+     */
+    private record RouteLimiter(VegasConcurrencyLimiter limiter, Map<RequestPriority, Counter> rejected) {
+    }
+
+    /**
+     * 一组同时生效的配置
+     */
+    private record Snapshot(PathPatternTrie criticalPaths, PathPatternTrie lowPaths,
+                            VegasConcurrencyLimiter.Settings settings, double normalShare, double lowShare) {
+
+        double share(RequestPriority priority) {
+            return switch (priority) {
+                case CRITICAL -> 1.0;
+                case NORMAL -> normalShare;
+                case LOW -> lowShare;
+            };
+        }
+    }
+}
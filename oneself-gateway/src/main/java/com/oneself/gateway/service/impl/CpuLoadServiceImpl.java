@@ -0,0 +1,68 @@
+package com.oneself.gateway.service.impl;
+
+import com.oneself.gateway.service.CpuLoadService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className CpuLoadServiceImpl
+ * description
+ * CPU 负载服务实现：每 500ms 采样一次 CPU 使用率（JDK 在容器内按 cgroup 配额计算）
+ * version 1.0
+ */
+@Slf4j
+@Service
+public class CpuLoadServiceImpl implements CpuLoadService {
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 500;
+
+    private final com.sun.management.OperatingSystemMXBean osBean;
+    private ScheduledExecutorService scheduler;
+    private volatile double load;
+
+    public CpuLoadServiceImpl() {
+        this.osBean = ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean bean
+                ? bean : null;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (osBean == null) {
+            log.warn("当前 JVM 不支持读取 CPU 使用率，依赖 CPU 负载的功能将按空闲处理");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "gateway-cpu-load");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sample, 0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public double currentLoad() {
+        return load;
+    }
+
+    private void sample() {
+        // 返回负数表示暂时无法获取
+        load = Math.max(0, osBean.getCpuLoad());
+    }
+}
@@ -0,0 +1,123 @@
+package com.oneself.gateway.service.impl;
+
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+import com.oneself.common.feature.security.utils.VerifiedTokenCache;
+import com.oneself.common.infra.redis.script.LoginSessionScript;
+import com.oneself.common.infra.redis.script.LuaScriptRegistry;
+import com.oneself.gateway.model.AuthenticatedSession;
+import com.oneself.gateway.properties.GatewayAuthProperties;
+import com.oneself.gateway.service.GatewaySessionService;
+import com.oneself.gateway.service.SessionBatchService;
+import com.oneself.gateway.service.SessionNearCacheService;
+import com.oneself.gateway.service.TokenRevocationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className GatewaySessionServiceImpl
+ * description
+ * 会话校验实现，全程非阻塞，超时或异常时 fail-closed：
+ * - 短时访问令牌（签名、exp 已校验）经吊销过滤器确认未被吊销时直接通过，不访问 Redis；
+ *   有效期超过吊销过滤器轮换周期（吊销记录可能已被轮换丢弃）、过滤器不可用或可能已吊销时按普通 Token 校验
+ * - 默认经 SessionBatchService 与并发请求合并读取会话，校验在本地完成，续期与清理合并后延迟写入
+ * - 关闭批量读取时每个请求执行一次 login-session-validate 脚本（校验、续期、读取一次往返）
+ * version 1.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GatewaySessionServiceImpl implements GatewaySessionService {
+
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+    private final LuaScriptRegistry luaScriptRegistry;
+    private final GatewayAuthProperties authProperties;
+    private final SessionNearCacheService nearCacheService;
+    private final SessionBatchService sessionBatchService;
+    private final TokenRevocationService tokenRevocationService;
+
+    @Override
+    public Mono<AuthenticatedSession> validate(String token) {
+        // 验签结果按 Token 摘要缓存，重复请求跳过 HMAC 与 subject JSON 解析
+        VerifiedTokenCache.VerifiedToken verified = VerifiedTokenCache.resolveToken(token);
+        if (verified == null) {
+            return Mono.empty();
+        }
+        JwtSessionBO sessionBO = verified.session();
+
+        String sessionId = sessionBO.getSessionId();
+        String userId = sessionBO.getUserId();
+
+        // 短时访问令牌：权限与权限版本取自令牌，会话内容替换为令牌中的权限（网关预先鉴权读取的字段一致）
+        GatewayAuthProperties.AccessToken accessToken = authProperties.getAccessToken();
+        if (verified.isAccessToken() && accessToken.isEnabled()
+                && verified.lifetimeMillis() <= accessToken.getMaxTtl().toMillis()
+                && System.currentTimeMillis() - sessionBO.getLoginTime() <= authProperties.getAbsoluteExpire().toMillis()
+                && tokenRevocationService.isReady() && !tokenRevocationService.mightBeRevoked(sessionBO)) {
+            return Mono.just(new AuthenticatedSession(sessionBO, verified.authorityVersion(), verified.authority()));
+        }
+
+        // 本地缓存命中：会话在 Redis 中被删除或修改时会收到失效通知，命中即有效，只需补充绝对过期检查
+        String cached = nearCacheService.getIfPresent(sessionId);
+        if (cached != null
+                && System.currentTimeMillis() - sessionBO.getLoginTime() <= authProperties.getAbsoluteExpire().toMillis()) {
+            return Mono.just(AuthenticatedSession.of(sessionBO, cached));
+        }
+
+        long readStartedAt = nearCacheService.markRead();
+        if (authProperties.getBatch().isEnabled()) {
+            return sessionBatchService.read(sessionId, userId)
+                    .timeout(authProperties.getRedisTimeout())
+                    .flatMap(snapshot -> {
+                        if (!snapshot.exists()) {
+                            log.warn("Redis会话不存在或已过期，sessionId={}, userId={}", sessionId, userId);
+                            // 与 login-session-validate 一致只移出用户会话集合：未设置过期时间（PTTL = -1）的会话 key 不能删除
+                            sessionBatchService.prune(sessionId, userId);
+                            return Mono.empty();
+                        }
+                        if (System.currentTimeMillis() - sessionBO.getLoginTime() > authProperties.getAbsoluteExpire().toMillis()) {
+                            log.warn("会话超过最大绝对过期时长，sessionId={}, userId={}", sessionId, userId);
+                            sessionBatchService.remove(sessionId, userId);
+                            return Mono.empty();
+                        }
+                        long tokenEpoch = sessionBO.getEpoch() != null ? sessionBO.getEpoch() : 0L;
+                        if (tokenEpoch < snapshot.epoch()) {
+                            log.warn("会话已被踢下线，sessionId={}, userId={}, epoch={}, currentEpoch={}",
+                                    sessionId, userId, tokenEpoch, snapshot.epoch());
+                            sessionBatchService.remove(sessionId, userId);
+                            return Mono.empty();
+                        }
+                        if (snapshot.ttlMillis() < authProperties.getRenewThreshold().toMillis()) {
+                            sessionBatchService.renew(sessionId, userId);
+                        }
+                        nearCacheService.put(sessionId, snapshot.payload(), readStartedAt);
+                        return Mono.just(AuthenticatedSession.of(sessionBO, snapshot.payload()));
+                    });
+        }
+
+        // 校验、续期、读取会话内容由同一个 Lua 脚本完成，每个请求只需一次 Redis 往返
+        return luaScriptRegistry.execute(reactiveRedisTemplate, LoginSessionScript.NAME, String.class,
+                        LoginSessionScript.keys(sessionId, userId),
+                        List.of(LoginSessionScript.args(sessionId, sessionBO.getLoginTime(),
+                                authProperties.getAbsoluteExpire(), authProperties.getSessionTimeout(),
+                                authProperties.getRenewThreshold(), sessionBO.getEpoch())))
+                .defaultIfEmpty("")
+                .timeout(authProperties.getRedisTimeout())
+                .flatMap(sessionJson -> {
+                    if (StringUtils.isBlank(sessionJson)) {
+                        log.warn("Redis会话不存在或已过期，sessionId={}, userId={}", sessionId, userId);
+                        return Mono.empty();
+                    }
+                    nearCacheService.put(sessionId, sessionJson, readStartedAt);
+                    return Mono.just(AuthenticatedSession.of(sessionBO, sessionJson));
+                });
+    }
+}
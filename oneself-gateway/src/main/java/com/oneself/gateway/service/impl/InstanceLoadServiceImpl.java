@@ -0,0 +1,106 @@
+package com.oneself.gateway.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.oneself.gateway.properties.GatewayLoadBalancerProperties;
+import com.oneself.gateway.service.InstanceLoadService;
+import com.oneself.gateway.utils.PeakEwma;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className InstanceLoadServiceImpl
+ * description
+ * 下游实例负载统计服务实现：
+ * - 每个实例（服务名 + 地址 + 端口）一份 PeakEwma 统计，10 分钟未访问自动清理（实例下线后不再占用内存）
+ * - 评分 = Peak EWMA 延迟 × (进行中请求数 + 1) / 预热权重，新实例的预热权重从 minWarmupWeight 线性增加到 1
+ * - 新实例以同服务其他实例的平均延迟作为初始延迟，避免刚上线时因为没有样本而被集中选中
+ * version 1.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InstanceLoadServiceImpl implements InstanceLoadService {
+
+    /**
+     * 实例统计未访问的保留时间
+     */
+    private static final Duration STATS_IDLE_EXPIRY = Duration.ofMinutes(10);
+
+    private final GatewayLoadBalancerProperties loadBalancerProperties;
+
+    /**
+     * 实例 key → 负载统计
+     */
+    private final Cache<String, PeakEwma> stats = Caffeine.newBuilder()
+            .expireAfterAccess(STATS_IDLE_EXPIRY)
+            .build();
+
+    @Override
+    public double score(ServiceInstance instance, List<ServiceInstance> siblings) {
+        long now = System.nanoTime();
+        long decayNanos = loadBalancerProperties.getDecayTime().toNanos();
+        PeakEwma ewma = stats.get(key(instance), key -> new PeakEwma(averageLatency(siblings, now, decayNanos), now));
+        return ewma.load(now, decayNanos) / warmupWeight(ewma, now);
+    }
+
+    @Override
+    public void onStart(ServiceInstance instance) {
+        long now = System.nanoTime();
+        stats.get(key(instance), key -> new PeakEwma(0, now)).start();
+    }
+
+    @Override
+    public void onComplete(ServiceInstance instance, long rttNanos, boolean failed) {
+        PeakEwma ewma = stats.getIfPresent(key(instance));
+        if (ewma == null) {
+            return;
+        }
+        long sample = failed ? Math.max(rttNanos, loadBalancerProperties.getFailurePenalty().toNanos()) : rttNanos;
+        ewma.complete(sample, System.nanoTime(), loadBalancerProperties.getDecayTime().toNanos());
+    }
+
+    /**
+     * 预热权重：从首次出现开始在 warmup 时长内由 minWarmupWeight 线性增加到 1
+     */
+    private double warmupWeight(PeakEwma ewma, long now) {
+        long warmupNanos = loadBalancerProperties.getWarmup().toNanos();
+        if (warmupNanos <= 0) {
+            return 1;
+        }
+        double progress = (double) (now - ewma.firstSeenNanos()) / warmupNanos;
+        if (progress >= 1) {
+            return 1;
+        }
+        double minWeight = Math.min(1, Math.max(0.01, loadBalancerProperties.getMinWarmupWeight()));
+        return minWeight + (1 - minWeight) * Math.max(0, progress);
+    }
+
+    /**
+     * 同服务已有统计的实例的平均延迟，没有时为 0
+     */
+    private double averageLatency(List<ServiceInstance> siblings, long now, long decayNanos) {
+        double sum = 0;
+        int count = 0;
+        for (ServiceInstance sibling : siblings) {
+            PeakEwma ewma = stats.getIfPresent(key(sibling));
+            if (ewma != null) {
+                sum += ewma.latency(now, decayNanos);
+                count++;
+            }
+        }
+        return count > 0 ? sum / count : 0;
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getServiceId() + "/" + instance.getHost() + ":" + instance.getPort();
+    }
+}
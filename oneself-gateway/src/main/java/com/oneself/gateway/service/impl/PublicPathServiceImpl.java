@@ -0,0 +1,80 @@
+package com.oneself.gateway.service.impl;
+
+import com.oneself.gateway.properties.GatewayPublicPathProperties;
+import com.oneself.gateway.service.PublicPathService;
+import com.oneself.gateway.utils.PathPatternTrie;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className PublicPathServiceImpl
+ * description
+ * 公开路径匹配服务实现：
+ * - 启动时将配置编译为前缀树
+ * - Nacos 配置刷新后重新编译，整体替换引用，请求线程不会看到构建中的匹配器
+ * version 1.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PublicPathServiceImpl implements PublicPathService {
+
+    private final GatewayPublicPathProperties publicPathProperties;
+
+    /**
+     * 当前生效的匹配器
+     */
+    private volatile Matchers matchers;
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * 配置刷新后重新编译（ConfigurationProperties 已在此事件之前完成重新绑定）
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh() {
+        try {
+            rebuild();
+        } catch (IllegalArgumentException e) {
+            // 新规则非法时保留旧匹配器
+            log.error("公开路径规则编译失败，继续使用旧规则，error={}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isAuthExempt(String path) {
+        return matchers.auth().matches(path);
+    }
+
+    @Override
+    public boolean isRateLimitExempt(String path) {
+        return matchers.rateLimit().matches(path);
+    }
+
+    private void rebuild() {
+        List<String> services = publicPathProperties.getServices();
+        PathPatternTrie auth = PathPatternTrie.compile(publicPathProperties.getAuth(), services);
+        PathPatternTrie rateLimit = PathPatternTrie.compile(publicPathProperties.getRateLimit(), services);
+        this.matchers = new Matchers(auth, rateLimit);
+        log.info("公开路径规则已编译，免认证规则数={}, 免限流规则数={}, 服务数={}",
+                auth.size(), rateLimit.size(), services.size());
+    }
+
+    /**
+     * 一组同时生效的匹配器
+     */
+    private record Matchers(PathPatternTrie auth, PathPatternTrie rateLimit) {
+    }
+}
@@ -0,0 +1,203 @@
+package com.oneself.gateway.service.impl;
+
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+import com.oneself.gateway.filter.JwtAuthenticationGlobalFilter;
+import com.oneself.gateway.model.GatewayRequestContext;
+import com.oneself.gateway.model.RateLimitQuota;
+import com.oneself.gateway.properties.GatewayPublicPathProperties;
+import com.oneself.gateway.properties.GatewayRateLimitProperties;
+import com.oneself.gateway.service.RateLimitPolicyService;
+import com.oneself.gateway.utils.PathPatternTrie;
+import com.oneself.gateway.utils.PathTemplateUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className RateLimitPolicyServiceImpl
+ * description
+ * 限流策略服务实现：
+ * - 启动时将 gateway.rate-limit 配置编译为不可变快照，Nacos 配置刷新后重新编译并整体替换
+ * - 路由配额从路由 metadata.rate-limit 读取，路由刷新后自动生效
+ * version 1.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RateLimitPolicyServiceImpl implements RateLimitPolicyService {
+
+    private static final String KEY_PREFIX = "gateway:rate-limit:";
+
+    /**
+     * 路由 metadata 中的限流配置项
+     */
+    private static final String METADATA_RATE_LIMIT = "rate-limit";
+
+    private final GatewayRateLimitProperties rateLimitProperties;
+    private final GatewayPublicPathProperties publicPathProperties;
+
+    /**
+     * 当前生效的策略快照
+     */
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * 配置刷新后重新编译（ConfigurationProperties 已在此事件之前完成重新绑定）
+     */
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void onRefresh() {
+        try {
+            rebuild();
+        } catch (IllegalArgumentException e) {
+            // 新规则非法时保留旧策略
+            log.error("限流策略编译失败，继续使用旧策略，error={}", e.getMessage());
+        }
+    }
+
+    @Override
+    public List<RateLimitQuota> resolveIp(String clientIp) {
+        Limit ip = snapshot.ip();
+        return ip != null ? List.of(ip.toQuota(KEY_PREFIX + "ip:" + clientIp)) : List.of();
+    }
+
+    @Override
+    public List<RateLimitQuota> resolve(ServerWebExchange exchange, String clientIp) {
+        Snapshot current = snapshot;
+        JwtSessionBO session = exchange.getAttribute(JwtAuthenticationGlobalFilter.SESSION_ATTR);
+        String userId = session != null ? session.getUserId() : null;
+        String path = exchange.getRequest().getURI().getPath();
+
+        List<RateLimitQuota> quotas = new ArrayList<>(2);
+        if (current.user() != null && userId != null) {
+            quotas.add(current.user().toQuota(KEY_PREFIX + "user:" + userId));
+        }
+
+        // 接口配额：路径规则 > 路由 metadata > 默认配额，按用户（未登录时按 IP）计数
+        String subject = userId != null ? "u:" + userId : "ip:" + clientIp;
+        int rule = current.pathTrie().find(path);
+        if (rule >= 0) {
+            PathRule pathRule = current.pathRules().get(rule);
+            quotas.add(pathRule.policy().toQuota(KEY_PREFIX + "api:" + subject + ":rule:" + pathRule.pattern()));
+        } else {
+            Route route = GatewayRequestContext.of(exchange).route();
+            String routeId = route != null ? route.getId() : "-";
+            Limit limit = route != null ? fromMetadata(route.getMetadata()) : null;
+            if (limit == null) {
+                limit = current.defaults();
+            }
+            if (limit != null) {
+                quotas.add(limit.toQuota(KEY_PREFIX + "api:" + subject + ":" + routeId + ":" + PathTemplateUtils.normalize(path)));
+            }
+        }
+        return quotas;
+    }
+
+    private void rebuild() {
+        List<GatewayRateLimitProperties.PathPolicy> paths = rateLimitProperties.getPaths();
+        List<String> patterns = new ArrayList<>(paths.size());
+        List<PathRule> pathRules = new ArrayList<>(paths.size());
+        for (GatewayRateLimitProperties.PathPolicy pathPolicy : paths) {
+            Limit limit = Limit.of(pathPolicy.getLimit(), pathPolicy.getWindowSeconds(), pathPolicy.getBurst());
+            // 未启用的规则不参与匹配
+            patterns.add(limit != null ? pathPolicy.getPattern() : null);
+            pathRules.add(new PathRule(pathPolicy.getPattern(), limit));
+        }
+        PathPatternTrie pathTrie = PathPatternTrie.compile(patterns, publicPathProperties.getServices());
+
+        this.snapshot = new Snapshot(
+                Limit.of(rateLimitProperties.getIp()),
+                Limit.of(rateLimitProperties.getUser()),
+                Limit.of(rateLimitProperties.getDefaultLimit(), rateLimitProperties.getWindowSeconds(), rateLimitProperties.getBurst()),
+                pathTrie,
+                List.copyOf(pathRules));
+        log.info("限流策略已编译，ip={}, user={}, default={}, 路径规则数={}",
+                snapshot.ip(), snapshot.user(), snapshot.defaults(), pathTrie.size());
+    }
+
+    /**
+     * 从路由 metadata 读取限流配置，例如：
+     * <pre>
+     * metadata:
+     *   rate-limit:
+     *     limit: 20
+     *     window-seconds: 60
+     *     burst: 5
+     * </pre>
+     */
+    private Limit fromMetadata(Map<String, Object> metadata) {
+        if (metadata == null || !(metadata.get(METADATA_RATE_LIMIT) instanceof Map<?, ?> config)) {
+            return null;
+        }
+        int limit = toInt(config.get("limit"), 0);
+        int windowSeconds = toInt(config.get("window-seconds"), rateLimitProperties.getWindowSeconds());
+        int burst = toInt(config.get("burst"), 0);
+        return Limit.of(limit, windowSeconds, burst);
+    }
+
+    private static int toInt(Object value, int defaultValue) {
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException e) {
+                log.warn("路由限流配置不是整数，value={}", value);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * 已校验的配额参数
+     */
+    private record Limit(long windowMs, int limit, int burst) {
+
+        static Limit of(GatewayRateLimitProperties.Policy policy) {
+            return of(policy.getLimit(), policy.getWindowSeconds(), policy.getBurst());
+        }
+
+        /**
+         * @return 配额参数，limit 或窗口小于等于 0 时返回 null（不启用）
+         */
+        static Limit of(int limit, int windowSeconds, int burst) {
+            if (limit <= 0 || windowSeconds <= 0) {
+                return null;
+            }
+            return new Limit(windowSeconds * 1000L, limit, burst > 0 ? burst : limit);
+        }
+
+        RateLimitQuota toQuota(String key) {
+            return new RateLimitQuota(key, windowMs, limit, burst);
+        }
+    }
+
+    /**
+     * 路径规则
+     */
+    private record PathRule(String pattern, Limit policy) {
+    }
+
+    /**
+     * 一组同时生效的策略
+     */
+    private record Snapshot(Limit ip, Limit user, Limit defaults, PathPatternTrie pathTrie, List<PathRule> pathRules) {
+    }
+}
@@ -0,0 +1,383 @@
+package com.oneself.gateway.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.oneself.common.infra.redis.script.LuaScriptRegistry;
+import com.oneself.gateway.model.RateLimitDecision;
+import com.oneself.gateway.model.RateLimitQuota;
+import com.oneself.gateway.properties.GatewayRateLimitProperties;
+import com.oneself.gateway.service.RateLimitService;
+import com.oneself.gateway.utils.LocalGcraLimiter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className RateLimitServiceImpl
+ * description
+ * 基于 Redis + Lua 脚本的限流服务实现，一个请求的所有嵌套配额在一次 Redis 调用中判定：
+ * - GCRA：每个 key 只保存一个理论到达时间，内存占用与请求量无关
+ * - SLIDING_WINDOW：ZSET 滑动窗口（旧实现），每个放行请求一个成员
+ * - 两级限流（GCRA）：节点本地消费从 Redis 批量领取的配额，配额用完才访问 Redis；
+ *   租约过期时未用完的许可在下次领取时归还，低频客户端不会因租约作废而耗尽配额；
+ *   Redis 拒绝时在本地记住重试时间，期间直接拒绝
+ * - Redis 异常时降级为纯本地 GCRA 限流（每个节点按 限额 / 节点数），而不是全部放行
+ * 注意：多 key 脚本要求所有 key 位于同一节点，Redis Cluster 部署时需改用 hash tag
+ * version 1.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RateLimitServiceImpl implements RateLimitService {
+
+    /**
+     * 限流脚本名（lua 目录下的文件名），通过 LuaScriptRegistry 执行
+     */
+    private static final String GCRA_SCRIPT = "rate-limit-gcra";
+    private static final String LEASE_SCRIPT = "rate-limit-lease";
+    private static final String SLIDING_WINDOW_SCRIPT = "rate-limit";
+
+    /**
+     * 本地限流状态闲置多久后清理
+     */
+    private static final Duration KEY_IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+    private final GatewayRateLimitProperties rateLimitProperties;
+    private final LuaScriptRegistry luaScriptRegistry;
+
+    /**
+     * 本地限流状态（Caffeine 内部按 key 分段，读写无全局锁）
+     */
+    private Cache<String, KeyState> keyStates;
+
+    /**
+     * 正在进行的租约请求，按缺少许可的配额组合（key 与限额参数）区分，同一组合的并发请求共享一次 Redis 访问
+     */
+    private final Map<List<RateLimitQuota>, Mono<Long>> inflightLeases = new ConcurrentHashMap<>();
+
+    /**
+     * 纯本地限流截止时间（System.nanoTime 时间轴），Redis 异常后一段时间内不再访问 Redis
+     */
+    private final AtomicLong degradedUntil = new AtomicLong(System.nanoTime());
+
+    @PostConstruct
+    public void init() {
+        keyStates = Caffeine.newBuilder()
+                .maximumSize(rateLimitProperties.getLocal().getMaximumKeys())
+                .expireAfterAccess(KEY_IDLE_TIMEOUT)
+                .build();
+        log.info("限流服务初始化完成，algorithm={}, local={}",
+                rateLimitProperties.getAlgorithm(), rateLimitProperties.getLocal().isEnabled());
+    }
+
+    @Override
+    public Mono<RateLimitDecision> tryAcquire(List<RateLimitQuota> quotas) {
+        if (quotas.isEmpty()) {
+            return Mono.just(RateLimitDecision.ALLOW);
+        }
+        List<KeyState> states = new ArrayList<>(quotas.size());
+        for (RateLimitQuota quota : quotas) {
+            states.add(keyStates.get(quota.key(), k -> new KeyState()));
+        }
+        if (isDegraded()) {
+            return Mono.just(acquireLocalOnly(quotas, states));
+        }
+
+        Mono<RateLimitDecision> decision;
+        if (rateLimitProperties.getAlgorithm() == GatewayRateLimitProperties.Algorithm.SLIDING_WINDOW) {
+            decision = slidingWindow(quotas);
+        } else if (rateLimitProperties.getLocal().isEnabled()) {
+            decision = acquireLeased(quotas, states, true);
+        } else {
+            decision = gcra(quotas);
+        }
+        return decision
+                .defaultIfEmpty(RateLimitDecision.ALLOW)
+                .onErrorResume(e -> {
+                    // Redis 异常时降级为纯本地限流，避免限流整体失效
+                    degrade(quotas, e);
+                    return Mono.just(acquireLocalOnly(quotas, states));
+                });
+    }
+
+    /**
+     * 两级限流：优先消费本地租约，本地租约用完的配额一次性向 Redis 领取新租约
+     *
+     * @param allowRetry 租约被并发请求抢完时是否再领取一次
+     */
+    private Mono<RateLimitDecision> acquireLeased(List<RateLimitQuota> quotas, List<KeyState> states, boolean allowRetry) {
+        long now = System.nanoTime();
+        List<KeyState> taken = new ArrayList<>(states.size());
+        List<Integer> missing = new ArrayList<>(states.size());
+        for (int i = 0; i < states.size(); i++) {
+            KeyState state = states.get(i);
+            long rejectWait = state.rejectUntil - now;
+            if (rejectWait > 0) {
+                refund(taken);
+                return Mono.just(new RateLimitDecision(false, 0, toMillisCeil(rejectWait)));
+            }
+            if (state.tryTake()) {
+                taken.add(state);
+            } else {
+                missing.add(i);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Mono.just(RateLimitDecision.ALLOW);
+        }
+
+        // 同一配额组合的并发请求共享一次 Redis 访问
+        List<RateLimitQuota> missingQuotas = new ArrayList<>(missing.size());
+        for (int index : missing) {
+            missingQuotas.add(quotas.get(index));
+        }
+        return lease(List.copyOf(missingQuotas), () -> requestLease(quotas, states, missing))
+                .flatMap(retryAfterMs -> {
+                    boolean acquired = true;
+                    for (int index : missing) {
+                        if (states.get(index).tryTake()) {
+                            taken.add(states.get(index));
+                        } else {
+                            acquired = false;
+                        }
+                    }
+                    if (acquired) {
+                        return Mono.just(RateLimitDecision.ALLOW);
+                    }
+                    refund(taken);
+                    if (retryAfterMs > 0) {
+                        return Mono.just(new RateLimitDecision(false, 0, retryAfterMs));
+                    }
+                    // 新租约已被同一配额的并发请求用完
+                    return allowRetry ? acquireLeased(quotas, states, false) : Mono.just(RateLimitDecision.REJECT);
+                });
+    }
+
+    /**
+     * 同一配额组合只保留一个进行中的租约请求
+     */
+    private Mono<Long> lease(List<RateLimitQuota> tuple, Supplier<Mono<Long>> loader) {
+        Mono<Long> current = inflightLeases.get(tuple);
+        if (current != null) {
+            return current;
+        }
+        AtomicReference<Mono<Long>> self = new AtomicReference<>();
+        Mono<Long> lease = Mono.defer(loader)
+                .doFinally(signal -> inflightLeases.remove(tuple, self.get()))
+                .cache();
+        self.set(lease);
+        Mono<Long> existing = inflightLeases.putIfAbsent(tuple, lease);
+        return existing != null ? existing : lease;
+    }
+
+    /**
+     * 向 Redis 领取租约（所有缺少本地许可的配额一次领取，同时归还已过期租约中未用完的许可）
+     *
+     * @return Redis 拒绝时建议的重试间隔（毫秒），领取成功时为 0
+     */
+    private Mono<Long> requestLease(List<RateLimitQuota> quotas, List<KeyState> states, List<Integer> missing) {
+        GatewayRateLimitProperties.Local local = rateLimitProperties.getLocal();
+        List<String> keys = new ArrayList<>(missing.size());
+        List<String> args = new ArrayList<>(missing.size() * 4 + 1);
+        args.add(String.valueOf(Math.max(1, local.getLeaseSize())));
+        for (int index : missing) {
+            RateLimitQuota quota = quotas.get(index);
+            keys.add(quota.key());
+            addQuotaArgs(args, quota);
+            args.add(String.valueOf(states.get(index).drainExpired()));
+        }
+
+        return luaScriptRegistry.execute(reactiveRedisTemplate, LEASE_SCRIPT, List.class, keys, args)
+                .timeout(local.getRedisTimeout())
+                .map(result -> {
+                    List<?> values = result;
+                    if (toLong(values.get(0)) == 1) {
+                        long ttlNanos = local.getLeaseTtl().toNanos();
+                        for (int i = 0; i < missing.size(); i++) {
+                            states.get(missing.get(i)).refill(toLong(values.get(i + 1)), ttlNanos);
+                        }
+                        return 0L;
+                    }
+                    long retryAfterMs = Math.max(1L, toLong(values.get(1)));
+                    KeyState rejected = states.get(missing.get((int) toLong(values.get(2))));
+                    rejected.rejectUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryAfterMs);
+                    return retryAfterMs;
+                });
+    }
+
+    /**
+     * GCRA 限流（每个请求访问一次 Redis）
+     */
+    private Mono<RateLimitDecision> gcra(List<RateLimitQuota> quotas) {
+        List<String> keys = new ArrayList<>(quotas.size());
+        List<String> args = new ArrayList<>(quotas.size() * 3);
+        for (RateLimitQuota quota : quotas) {
+            keys.add(quota.key());
+            addQuotaArgs(args, quota);
+        }
+
+        return luaScriptRegistry.execute(reactiveRedisTemplate, GCRA_SCRIPT, List.class, keys, args)
+                .timeout(rateLimitProperties.getLocal().getRedisTimeout())
+                .map(result -> {
+                    List<?> values = result;
+                    long value = toLong(values.get(1));
+                    return toLong(values.get(0)) == 1
+                            ? new RateLimitDecision(true, value, 0)
+                            : new RateLimitDecision(false, 0, value);
+                });
+    }
+
+    /**
+     * 滑动窗口限流
+     */
+    private Mono<RateLimitDecision> slidingWindow(List<RateLimitQuota> quotas) {
+        List<String> keys = new ArrayList<>(quotas.size());
+        List<String> args = new ArrayList<>(quotas.size() * 2 + 1);
+        args.add(String.valueOf(System.currentTimeMillis() / 1000));
+        for (RateLimitQuota quota : quotas) {
+            keys.add(quota.key());
+            args.add(String.valueOf(Math.max(1L, quota.windowMs() / 1000)));
+            args.add(String.valueOf(quota.limit()));
+        }
+
+        return luaScriptRegistry.execute(reactiveRedisTemplate, SLIDING_WINDOW_SCRIPT, Long.class, keys, args)
+                .timeout(rateLimitProperties.getLocal().getRedisTimeout())
+                .map(result -> result == 1 ? RateLimitDecision.ALLOW : RateLimitDecision.REJECT);
+    }
+
+    /**
+     * 纯本地限流：每个节点承担 1 / expectedNodes 的限额，逐个配额检查（近似，不回滚已通过的配额）
+     */
+    private RateLimitDecision acquireLocalOnly(List<RateLimitQuota> quotas, List<KeyState> states) {
+        int nodes = Math.max(1, rateLimitProperties.getLocal().getExpectedNodes());
+        for (int i = 0; i < quotas.size(); i++) {
+            RateLimitQuota quota = quotas.get(i);
+            long windowNanos = TimeUnit.MILLISECONDS.toNanos(quota.windowMs());
+            long intervalNanos = Math.max(1L, windowNanos * nodes / Math.max(1, quota.limit()));
+            long localBurst = Math.max(1L, quota.burst() / nodes);
+
+            long waitNanos = states.get(i).fallback.tryAcquire(intervalNanos, intervalNanos * localBurst);
+            if (waitNanos > 0) {
+                return new RateLimitDecision(false, 0, toMillisCeil(waitNanos));
+            }
+        }
+        return RateLimitDecision.ALLOW;
+    }
+
+    private boolean isDegraded() {
+        return degradedUntil.get() - System.nanoTime() > 0;
+    }
+
+    /**
+     * 进入纯本地限流模式
+     */
+    private void degrade(List<RateLimitQuota> quotas, Throwable e) {
+        long now = System.nanoTime();
+        long current = degradedUntil.get();
+        long until = now + rateLimitProperties.getLocal().getDegradeDuration().toNanos();
+        // 只有进入降级的那个请求打印日志
+        if (current - now <= 0 && degradedUntil.compareAndSet(current, until)) {
+            log.error("限流检查访问 Redis 异常，降级为本地限流 {}，key={}, error={}",
+                    rateLimitProperties.getLocal().getDegradeDuration(), quotas.get(0).key(), e.toString());
+        }
+    }
+
+    private static void addQuotaArgs(List<String> args, RateLimitQuota quota) {
+        args.add(String.valueOf(quota.windowMs()));
+        args.add(String.valueOf(quota.limit()));
+        args.add(String.valueOf(quota.burst()));
+    }
+
+    /**
+     * 归还已从本地租约取走的许可（其他配额未通过时）
+     */
+    private static void refund(List<KeyState> taken) {
+        for (KeyState state : taken) {
+            state.permits.incrementAndGet();
+        }
+    }
+
+    private static long toLong(Object value) {
+        return ((Number) value).longValue();
+    }
+
+    private static long toMillisCeil(long nanos) {
+        return (nanos + 999_999) / 1_000_000;
+    }
+
+    /**
+     * 单个限流 key 的本地状态
+     */
+    private static final class KeyState {
+
+        /**
+         * 当前租约剩余许可数
+         */
+        private final AtomicLong permits = new AtomicLong();
+
+        /**
+         * 当前租约过期时间（System.nanoTime 时间轴）
+         */
+        private volatile long leaseExpiresAt = System.nanoTime();
+
+        /**
+         * Redis 拒绝后的本地拒绝截止时间（System.nanoTime 时间轴）
+         */
+        private volatile long rejectUntil = System.nanoTime();
+
+        /**
+         * 降级时使用的本地限流器
+         */
+        private final LocalGcraLimiter fallback = new LocalGcraLimiter();
+
+        boolean tryTake() {
+            if (leaseExpiresAt - System.nanoTime() <= 0) {
+                return false;
+            }
+            while (true) {
+                long current = permits.get();
+                if (current <= 0) {
+                    return false;
+                }
+                if (permits.compareAndSet(current, current - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * 取出已过期租约中未用完的许可（归还给 Redis），租约未过期时返回 0
+         */
+        long drainExpired() {
+            if (leaseExpiresAt - System.nanoTime() > 0) {
+                return 0;
+            }
+            return Math.max(0, permits.getAndSet(0));
+        }
+
+        /**
+         * 追加新领取的许可并延长租约（不同配额组合可能同时为同一个 key 领取）
+         */
+        void refill(long granted, long ttlNanos) {
+            permits.addAndGet(granted);
+            leaseExpiresAt = System.nanoTime() + ttlNanos;
+        }
+    }
+}
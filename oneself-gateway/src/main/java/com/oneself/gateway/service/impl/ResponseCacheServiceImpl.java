@@ -0,0 +1,250 @@
+package com.oneself.gateway.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.oneself.common.core.utils.JacksonUtils;
+import com.oneself.common.infra.redis.cache.ResponseCachePurger;
+import com.oneself.common.infra.redis.model.enums.RedisKeyPrefixEnum;
+import com.oneself.gateway.model.CachedResponse;
+import com.oneself.gateway.properties.GatewayResponseCacheProperties;
+import com.oneself.gateway.service.ResponseCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className ResponseCacheServiceImpl
+ * description
+ * 网关响应缓存实现：
+ * - 本地缓存按响应体大小限制总容量，每个条目按自身过期时间淘汰
+ * - 可选 Redis 二级缓存：条目以 JSON 保存，同时按标签维护 key 集合用于清理
+ * - 订阅 Redis 清理频道，下游服务写数据后按标签清理所有网关节点的本地缓存与 Redis 缓存
+ * - 指标：gateway.response-cache.hits（tier=local/redis）、misses、stores、purges、bytes-saved、hit-ratio
+ * version 1.0
+ */
+@Slf4j
+@Service
+public class ResponseCacheServiceImpl implements ResponseCacheService {
+
+    private static final String METRIC_PREFIX = "gateway.response-cache";
+    private static final String ENTRY_KEY_PREFIX = RedisKeyPrefixEnum.RESPONSE_CACHE.getPrefix() + "entry:";
+    private static final String TAG_KEY_PREFIX = RedisKeyPrefixEnum.RESPONSE_CACHE.getPrefix() + "tag:";
+
+    /**
+     * 每个条目除响应体外的估算开销（字节）
+     */
+    private static final int ENTRY_OVERHEAD = 512;
+
+    private final GatewayResponseCacheProperties cacheProperties;
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+
+    /**
+     * 缓存 key → 响应
+     */
+    private final Cache<String, CachedResponse> cache;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+    private final Counter stores;
+    private final Counter purges;
+    private final Counter bytesSaved;
+
+    private Disposable purgeSubscription;
+
+    public ResponseCacheServiceImpl(GatewayResponseCacheProperties cacheProperties,
+                                    ReactiveStringRedisTemplate reactiveRedisTemplate,
+                                    MeterRegistry meterRegistry) {
+        this.cacheProperties = cacheProperties;
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(cacheProperties.getMaximumSize().toBytes())
+                .<String, CachedResponse>weigher((key, value) -> value.body().length + key.length() + ENTRY_OVERHEAD)
+                .expireAfter(Expiry.writing((String key, CachedResponse value) ->
+                        Duration.ofMillis(Math.max(0, value.expiresAt() - System.currentTimeMillis()))))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, METRIC_PREFIX);
+        this.localHits = hitCounter(meterRegistry, "local");
+        this.redisHits = hitCounter(meterRegistry, "redis");
+        this.misses = Counter.builder(METRIC_PREFIX + ".misses")
+                .description("响应缓存未命中数")
+                .register(meterRegistry);
+        this.stores = Counter.builder(METRIC_PREFIX + ".stores")
+                .description("写入响应缓存的响应数")
+                .register(meterRegistry);
+        this.purges = Counter.builder(METRIC_PREFIX + ".purges")
+                .description("按标签清理的本地缓存条目数")
+                .register(meterRegistry);
+        this.bytesSaved = Counter.builder(METRIC_PREFIX + ".bytes-saved")
+                .description("由缓存直接返回、未请求下游的响应体字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".hit-ratio", this, ResponseCacheServiceImpl::hitRatio)
+                .description("响应缓存命中率（本地 + Redis）")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 订阅清理频道，连接断开后自动重新订阅
+     */
+    @PostConstruct
+    public void start() {
+        this.purgeSubscription = reactiveRedisTemplate.listenToChannel(ResponseCachePurger.PURGE_CHANNEL)
+                .doOnSubscribe(s -> log.info("已订阅网关响应缓存清理频道：{}", ResponseCachePurger.PURGE_CHANNEL))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("网关响应缓存清理频道订阅中断，重新订阅，error={}",
+                                signal.failure().getMessage())))
+                .subscribe(message -> purge(Arrays.asList(message.getMessage().split(","))));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (purgeSubscription != null) {
+            purgeSubscription.dispose();
+        }
+    }
+
+    @Override
+    public Mono<CachedResponse> get(String key) {
+        CachedResponse local = cache.getIfPresent(key);
+        if (local != null && !local.isExpired(System.currentTimeMillis())) {
+            hit(localHits, local);
+            return Mono.just(local);
+        }
+        if (!cacheProperties.getRedis().isEnabled()) {
+            misses.increment();
+            return Mono.empty();
+        }
+        return reactiveRedisTemplate.opsForValue().get(ENTRY_KEY_PREFIX + digest(key))
+                .timeout(cacheProperties.getRedis().getTimeout())
+                .map(json -> JacksonUtils.fromJson(json, CachedResponse.class))
+                .filter(response -> !response.isExpired(System.currentTimeMillis()))
+                .doOnNext(response -> {
+                    cache.put(key, response);
+                    hit(redisHits, response);
+                })
+                .switchIfEmpty(Mono.fromRunnable(misses::increment))
+                .onErrorResume(e -> {
+                    log.debug("查询 Redis 响应缓存失败，按未命中处理，error={}", e.getMessage());
+                    misses.increment();
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public void put(String key, CachedResponse response) {
+        cache.put(key, response);
+        stores.increment();
+        if (!cacheProperties.getRedis().isEnabled()) {
+            return;
+        }
+
+        long ttlMillis = response.expiresAt() - System.currentTimeMillis();
+        if (ttlMillis <= 0) {
+            return;
+        }
+        String entryKey = ENTRY_KEY_PREFIX + digest(key);
+        // 标签集合的过期时间取缓存时长上限，保证集合不早于其中的条目过期
+        Duration tagTtl = cacheProperties.getMaxTtl();
+        reactiveRedisTemplate.opsForValue().set(entryKey, JacksonUtils.toJsonString(response), Duration.ofMillis(ttlMillis))
+                .thenMany(Flux.fromIterable(response.tags())
+                        .flatMap(tag -> reactiveRedisTemplate.opsForSet().add(TAG_KEY_PREFIX + tag, entryKey)
+                                .then(reactiveRedisTemplate.expire(TAG_KEY_PREFIX + tag, tagTtl))))
+                .timeout(cacheProperties.getRedis().getTimeout().multipliedBy(2))
+                .subscribe(ok -> {
+                }, e -> log.debug("写入 Redis 响应缓存失败，error={}", e.getMessage()));
+    }
+
+    @Override
+    public void purge(Collection<String> tags) {
+        Set<String> purgeTags = tags.stream()
+                .map(String::trim)
+                .filter(tag -> !tag.isEmpty())
+                .collect(Collectors.toSet());
+        if (purgeTags.isEmpty()) {
+            return;
+        }
+
+        // 清理是低频操作，直接遍历本地缓存，不额外维护标签索引
+        List<String> keys = new ArrayList<>();
+        cache.asMap().forEach((key, response) -> {
+            if (!Collections.disjoint(response.tags(), purgeTags)) {
+                keys.add(key);
+            }
+        });
+        cache.invalidateAll(keys);
+        purges.increment(keys.size());
+        log.info("网关响应缓存已按标签清理，tags={}, 本地条目数={}", purgeTags, keys.size());
+
+        if (cacheProperties.getRedis().isEnabled()) {
+            Flux.fromIterable(purgeTags)
+                    .map(tag -> TAG_KEY_PREFIX + tag)
+                    .flatMap(tagKey -> reactiveRedisTemplate.opsForSet().members(tagKey)
+                            .concatWithValues(tagKey)
+                            .collectList()
+                            .flatMap(redisKeys -> reactiveRedisTemplate.delete(redisKeys.toArray(String[]::new))))
+                    .subscribe(deleted -> {
+                    }, e -> log.warn("清理 Redis 响应缓存失败，tags={}, error={}", purgeTags, e.getMessage()));
+        }
+    }
+
+    private void hit(Counter counter, CachedResponse response) {
+        counter.increment();
+        bytesSaved.increment(response.body().length);
+    }
+
+    private double hitRatio() {
+        double hits = localHits.count() + redisHits.count();
+        double total = hits + misses.count();
+        return total > 0 ? hits / total : 0;
+    }
+
+    private static Counter hitCounter(MeterRegistry meterRegistry, String tier) {
+        return Counter.builder(METRIC_PREFIX + ".hits")
+                .description("响应缓存命中数")
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 缓存 key 可能较长（路径 + 查询参数），Redis 中使用其 SHA-256
+     */
+    private static String digest(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+}
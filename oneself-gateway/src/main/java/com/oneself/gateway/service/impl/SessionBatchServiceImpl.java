@@ -0,0 +1,354 @@
+package com.oneself.gateway.service.impl;
+
+import com.oneself.common.infra.redis.model.enums.RedisKeyPrefixEnum;
+import com.oneself.common.infra.redis.script.LoginSessionScript;
+import com.oneself.common.infra.redis.script.LuaScriptRegistry;
+import com.oneself.gateway.model.SessionSnapshot;
+import com.oneself.gateway.properties.GatewayAuthProperties;
+import com.oneself.gateway.service.SessionBatchService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className SessionBatchServiceImpl
+ * description
+ * 会话批量访问实现：
+ * - 读取：第一个查询到达后等待 window（或凑满 max-batch-size 立即发送），窗口内的查询去重后
+ *   在同一连接上连续发出一条 MGET（会话内容 + 用户会话代数）与每个会话的 PTTL，不等待前一条响应（管道），
+ *   一次往返完成整批
+ * - 续期：按 sessionId 合并登记，每隔 flush-interval 由 login-session-renew 脚本一次写入整批
+ *   （PEXPIRE + ZADD，会话已不存在时只清理用户会话集合），读取时会话不存在或未设置过期时间只移出用户会话集合、
+ *   不删除会话 key（与 login-session-validate 一致），写入失败时丢弃本批，会话剩余时间仍小于阈值，
+ *   下一次读取会重新登记
+ * - 指标：gateway.session.batch.size / wait、gateway.session.write-behind.size / lag / pending / coalesced
+ * version 1.0
+ */
+@Slf4j
+@Service
+public class SessionBatchServiceImpl implements SessionBatchService {
+
+    private static final String RENEW_SCRIPT = "login-session-renew";
+
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+    private final LuaScriptRegistry luaScriptRegistry;
+    private final GatewayAuthProperties authProperties;
+
+    /**
+     * 等待发送的查询
+     */
+    private final Queue<Lookup> lookups = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean timerArmed = new AtomicBoolean();
+
+    /**
+     * sessionId → 等待写入的续期 / 清理
+     */
+    private final Map<String, PendingWrite> writes = new ConcurrentHashMap<>();
+
+    private final DistributionSummary batchSize;
+    private final Timer batchWait;
+    private final DistributionSummary writeBatchSize;
+    private final Timer flushLag;
+    private final Counter coalesced;
+
+    private Disposable flushTask;
+
+    public SessionBatchServiceImpl(ReactiveStringRedisTemplate reactiveRedisTemplate,
+                                   LuaScriptRegistry luaScriptRegistry,
+                                   GatewayAuthProperties authProperties,
+                                   MeterRegistry meterRegistry) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.luaScriptRegistry = luaScriptRegistry;
+        this.authProperties = authProperties;
+        this.batchSize = DistributionSummary.builder("gateway.session.batch.size")
+                .description("每批会话读取合并的查询数")
+                .register(meterRegistry);
+        this.batchWait = Timer.builder("gateway.session.batch.wait")
+                .description("会话查询在批量窗口中的等待时间")
+                .register(meterRegistry);
+        this.writeBatchSize = DistributionSummary.builder("gateway.session.write-behind.size")
+                .description("每次刷新写入的会话续期数")
+                .register(meterRegistry);
+        this.flushLag = Timer.builder("gateway.session.write-behind.lag")
+                .description("本批最早登记的续期到写入时的延迟")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("gateway.session.write-behind.coalesced")
+                .description("与未写入的续期合并的登记次数")
+                .register(meterRegistry);
+        Gauge.builder("gateway.session.write-behind.pending", writes, Map::size)
+                .description("等待写入的会话续期数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        this.flushTask = Flux.interval(authProperties.getBatch().getFlushInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> flushWrites(), 1)
+                .subscribe();
+    }
+
+    /**
+     * 停止前写入剩余的续期
+     */
+    @PreDestroy
+    public void stop() {
+        if (flushTask != null) {
+            flushTask.dispose();
+        }
+        try {
+            flushWrites().block(authProperties.getRedisTimeout().multipliedBy(2));
+        } catch (RuntimeException e) {
+            log.warn("停止前写入会话续期失败，pending={}, error={}", writes.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public Mono<SessionSnapshot> read(String sessionId, String userId) {
+        return Mono.create(sink -> {
+            lookups.offer(new Lookup(sessionId, userId, sink, System.nanoTime()));
+            if (queued.incrementAndGet() >= authProperties.getBatch().getMaxBatchSize()) {
+                flushReads();
+            } else if (timerArmed.compareAndSet(false, true)) {
+                armTimer();
+            }
+        });
+    }
+
+    @Override
+    public void renew(String sessionId, String userId) {
+        enqueueWrite(sessionId, new PendingWrite(userId, WriteAction.RENEW, System.nanoTime()));
+    }
+
+    @Override
+    public void prune(String sessionId, String userId) {
+        enqueueWrite(sessionId, new PendingWrite(userId, WriteAction.PRUNE, System.nanoTime()));
+    }
+
+    @Override
+    public void remove(String sessionId, String userId) {
+        enqueueWrite(sessionId, new PendingWrite(userId, WriteAction.REMOVE, System.nanoTime()));
+    }
+
+    private void armTimer() {
+        Schedulers.parallel().schedule(() -> {
+            timerArmed.set(false);
+            flushReads();
+            // 发送期间到达、且未自行设置定时的查询
+            if (queued.get() > 0 && timerArmed.compareAndSet(false, true)) {
+                armTimer();
+            }
+        }, authProperties.getBatch().getWindow().toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 取出等待中的查询分批发送；只要取满一批就继续，不足一批的留给定时发送
+     */
+    private void flushReads() {
+        int max = Math.max(1, authProperties.getBatch().getMaxBatchSize());
+        int drained;
+        do {
+            Map<String, List<Lookup>> batch = new LinkedHashMap<>();
+            Lookup lookup;
+            drained = 0;
+            while (drained < max && (lookup = lookups.poll()) != null) {
+                batch.computeIfAbsent(lookup.sessionId(), k -> new ArrayList<>(1)).add(lookup);
+                drained++;
+            }
+            if (drained == 0) {
+                return;
+            }
+            queued.addAndGet(-drained);
+            batchSize.record(drained);
+            send(batch);
+        } while (drained == max);
+    }
+
+    private void send(Map<String, List<Lookup>> batch) {
+        long now = System.nanoTime();
+        batch.values().forEach(list -> list.forEach(lookup ->
+                batchWait.record(now - lookup.enqueuedAt(), TimeUnit.NANOSECONDS)));
+
+        List<String> sessionIds = new ArrayList<>(batch.keySet());
+        List<String> userIds = batch.values().stream().map(list -> list.get(0).userId()).distinct().toList();
+        List<ByteBuffer> keys = new ArrayList<>(sessionIds.size() + userIds.size());
+        sessionIds.forEach(id -> keys.add(sessionKey(id)));
+        userIds.forEach(id -> keys.add(toBuffer(LoginSessionScript.epochKey(id))));
+        reactiveRedisTemplate.execute(connection -> Mono.zip(
+                        connection.stringCommands().mGet(keys),
+                        Flux.fromIterable(sessionIds)
+                                .flatMapSequential(id -> connection.keyCommands().pTtl(sessionKey(id)), sessionIds.size())
+                                .collectList()))
+                .next()
+                .timeout(authProperties.getRedisTimeout())
+                .subscribe(result -> {
+                    List<ByteBuffer> values = result.getT1();
+                    List<Long> ttls = result.getT2();
+                    Map<String, Long> epochs = new HashMap<>(userIds.size());
+                    for (int i = 0; i < userIds.size(); i++) {
+                        epochs.put(userIds.get(i), parseEpoch(decode(values.get(sessionIds.size() + i))));
+                    }
+                    for (int i = 0; i < sessionIds.size(); i++) {
+                        List<Lookup> waiting = batch.get(sessionIds.get(i));
+                        SessionSnapshot snapshot = new SessionSnapshot(decode(values.get(i)), ttls.get(i),
+                                epochs.get(waiting.get(0).userId()));
+                        waiting.forEach(lookup -> lookup.sink().success(snapshot));
+                    }
+                }, error -> batch.values().forEach(list -> list.forEach(lookup -> lookup.sink().error(error))));
+    }
+
+    private void enqueueWrite(String sessionId, PendingWrite write) {
+        PendingWrite merged = writes.merge(sessionId, write, (previous, latest) ->
+                new PendingWrite(latest.userId(), WriteAction.max(previous.action(), latest.action()), previous.enqueuedAt()));
+        if (merged != write) {
+            coalesced.increment();
+        }
+        if (writes.size() >= authProperties.getBatch().getMaxWriteBatchSize()) {
+            flushWrites().subscribe();
+        }
+    }
+
+    /**
+     * 取出等待写入的续期 / 清理，一次脚本调用写入（每次最多 max-write-batch-size 个会话）
+     */
+    private Mono<Void> flushWrites() {
+        return Mono.defer(() -> {
+            int max = Math.max(1, authProperties.getBatch().getMaxWriteBatchSize());
+            long now = System.nanoTime();
+            long oldest = now;
+            List<String> keys = new ArrayList<>();
+            List<String> args = new ArrayList<>();
+            args.add(String.valueOf(System.currentTimeMillis()));
+            args.add(String.valueOf(authProperties.getSessionTimeout().toMillis()));
+            int count = 0;
+            for (String sessionId : writes.keySet()) {
+                if (count >= max) {
+                    break;
+                }
+                PendingWrite write = writes.remove(sessionId);
+                if (write == null) {
+                    continue;
+                }
+                keys.add(RedisKeyPrefixEnum.LOGIN_SESSION.getPrefix() + sessionId);
+                keys.add(RedisKeyPrefixEnum.LOGIN_USER.getPrefix() + write.userId());
+                args.add(sessionId);
+                args.add(write.action().code());
+                oldest = Math.min(oldest, write.enqueuedAt());
+                count++;
+            }
+            if (count == 0) {
+                return Mono.empty();
+            }
+            writeBatchSize.record(count);
+            flushLag.record(now - oldest, TimeUnit.NANOSECONDS);
+            int written = count;
+            return luaScriptRegistry.execute(reactiveRedisTemplate, RENEW_SCRIPT, Long.class, keys, args)
+                    .timeout(authProperties.getRedisTimeout())
+                    .doOnError(e -> log.warn("会话续期批量写入失败，丢弃本批，count={}, error={}", written, e.toString()))
+                    .onErrorResume(e -> Mono.empty())
+                    .then();
+        });
+    }
+
+    private static ByteBuffer sessionKey(String sessionId) {
+        return toBuffer(RedisKeyPrefixEnum.LOGIN_SESSION.getPrefix() + sessionId);
+    }
+
+    private static ByteBuffer toBuffer(String key) {
+        return ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long parseEpoch(String value) {
+        if (value == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            log.warn("用户会话代数格式错误，按 0 处理，value={}", value);
+            return 0L;
+        }
+    }
+
+    private static String decode(ByteBuffer buffer) {
+        return buffer != null && buffer.hasRemaining() ? StandardCharsets.UTF_8.decode(buffer).toString() : null;
+    }
+
+    /**
+     * 等待发送的查询
+     */
+    private record Lookup(String sessionId, String userId, MonoSink<SessionSnapshot> sink, long enqueuedAt) {
+    }
+
+    /**
+     * 等待写入的续期 / 清理
+     *
+     * @param action     写入操作（同一会话多次登记时取优先级最高的操作）
+     * @param enqueuedAt 最早登记时间（纳秒）
+     */
+    private record PendingWrite(String userId, WriteAction action, long enqueuedAt) {
+    }
+
+    /**
+     * 写入操作，按优先级从低到高排列，code 为 login-session-renew 脚本的操作码
+     */
+    private enum WriteAction {
+        /**
+         * 滑动续期
+         */
+        RENEW("1"),
+        /**
+         * 只移出用户会话集合
+         */
+        PRUNE("2"),
+        /**
+         * 删除会话并移出用户会话集合
+         */
+        REMOVE("0");
+
+        private final String code;
+
+        WriteAction(String code) {
+            this.code = code;
+        }
+
+        String code() {
+            return code;
+        }
+
+        static WriteAction max(WriteAction a, WriteAction b) {
+            return a.compareTo(b) >= 0 ? a : b;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.oneself.gateway.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.oneself.common.infra.redis.model.enums.RedisKeyPrefixEnum;
+import com.oneself.gateway.properties.GatewayAuthProperties;
+import com.oneself.gateway.service.SessionNearCacheService;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushListener;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.protocol.ProtocolVersion;
+import io.lettuce.core.resource.ClientResources;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className SessionNearCacheServiceImpl
+ * description
+ * 会话本地缓存实现：
+ * - 独立的 RESP3 连接以 BCAST 模式对会话 key 前缀开启 CLIENT TRACKING，
+ *   登出、踢人、过期等任何对会话 key 的修改都会由 Redis 推送失效通知到所有网关节点
+ * - 同时跟踪用户会话代数 key，踢下线（代数递增）时整体清空缓存：本地缓存不记录会话所属用户，
+ *   踢下线是低频操作，清空后活跃会话各自重新读取一次即可
+ * - 跟踪连接断开期间缓存整体失效并停止使用，重连后重新开启跟踪
+ * - 定期写入探测 key 统计失效通知延迟
+ * version 1.0
+ */
+@Slf4j
+@Service
+public class SessionNearCacheServiceImpl implements SessionNearCacheService, PushListener, RedisConnectionStateListener {
+
+    private static final String METRIC_PREFIX = "gateway.session.near-cache";
+    private static final String SESSION_KEY_PREFIX = RedisKeyPrefixEnum.LOGIN_SESSION.getPrefix();
+    private static final String EPOCH_KEY_PREFIX = RedisKeyPrefixEnum.LOGIN_EPOCH.getPrefix();
+    private static final String PROBE_KEY_PREFIX = SESSION_KEY_PREFIX + "__tracking-probe__:";
+    private static final String INVALIDATE = "invalidate";
+
+    private final GatewayAuthProperties.NearCache nearCacheProperties;
+    private final RedisProperties redisProperties;
+    private final ObjectProvider<ClientResources> clientResourcesProvider;
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+
+    /**
+     * sessionId → 会话内容
+     */
+    private final Cache<String, String> cache;
+
+    /**
+     * sessionId → 最近一次收到失效通知的时间（纳秒），用于丢弃读取期间已失效的写入
+     */
+    private final Cache<String, Long> invalidatedAt;
+
+    private final String probeKey = PROBE_KEY_PREFIX + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+    private final Timer invalidationLagTimer;
+    private final Counter invalidationCounter;
+
+    private volatile boolean trackingActive;
+    private volatile long lastFlushAt;
+    private volatile long probeSentAt;
+    private volatile StatefulRedisConnection<String, String> connection;
+    private RedisClient redisClient;
+    private ScheduledExecutorService scheduler;
+
+    public SessionNearCacheServiceImpl(GatewayAuthProperties authProperties,
+                                       RedisProperties redisProperties,
+                                       ObjectProvider<ClientResources> clientResourcesProvider,
+                                       ReactiveStringRedisTemplate reactiveRedisTemplate,
+                                       MeterRegistry meterRegistry) {
+        this.nearCacheProperties = authProperties.getNearCache();
+        this.redisProperties = redisProperties;
+        this.clientResourcesProvider = clientResourcesProvider;
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+
+        // 本地缓存有效期必须小于续期阈值，否则活跃会话可能在命中缓存期间错过续期
+        Duration ttl = nearCacheProperties.getTtl();
+        if (ttl.compareTo(authProperties.getRenewThreshold()) >= 0) {
+            ttl = authProperties.getRenewThreshold().dividedBy(2);
+            log.warn("会话本地缓存有效期不小于续期阈值，已调整为 {}", ttl);
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(nearCacheProperties.getMaximumSize())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.invalidatedAt = Caffeine.newBuilder()
+                .maximumSize(nearCacheProperties.getMaximumSize())
+                .expireAfterWrite(Duration.ofSeconds(30))
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, METRIC_PREFIX);
+        Gauge.builder(METRIC_PREFIX + ".hit-ratio", cache, c -> c.stats().hitRate())
+                .description("会话本地缓存命中率")
+                .register(meterRegistry);
+        this.invalidationCounter = Counter.builder(METRIC_PREFIX + ".invalidations")
+                .description("收到的会话失效通知数")
+                .register(meterRegistry);
+        this.invalidationLagTimer = Timer.builder(METRIC_PREFIX + ".invalidation.lag")
+                .description("会话 key 修改到收到失效通知的延迟")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!nearCacheProperties.isEnabled()) {
+            log.info("会话本地缓存未启用");
+            return;
+        }
+        ClientResources clientResources = clientResourcesProvider.getIfAvailable();
+        RedisURI redisUri = buildRedisUri();
+        redisClient = clientResources != null ? RedisClient.create(clientResources, redisUri) : RedisClient.create(redisUri);
+        // 失效通知依赖 RESP3 推送消息
+        redisClient.setOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP3).build());
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-near-cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = nearCacheProperties.getProbeInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::probe, interval, interval, TimeUnit.MILLISECONDS);
+
+        connect();
+    }
+
+    @PreDestroy
+    public void stop() {
+        trackingActive = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (connection != null) {
+            connection.close();
+        }
+        if (redisClient != null) {
+            redisClient.shutdown();
+        }
+    }
+
+    @Override
+    public String getIfPresent(String sessionId) {
+        if (!trackingActive) {
+            return null;
+        }
+        return cache.getIfPresent(sessionId);
+    }
+
+    @Override
+    public long markRead() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void put(String sessionId, String payload, long readStartedAt) {
+        if (!trackingActive || lastFlushAt - readStartedAt >= 0) {
+            return;
+        }
+        Long invalidated = invalidatedAt.getIfPresent(sessionId);
+        if (invalidated != null && invalidated - readStartedAt >= 0) {
+            return;
+        }
+        cache.put(sessionId, payload);
+    }
+
+    // ------------------------ 失效通知 ------------------------
+
+    @Override
+    public void onPushMessage(PushMessage message) {
+        if (!INVALIDATE.equals(message.getType())) {
+            return;
+        }
+        List<Object> content = message.getContent(StringCodec.UTF8::decodeKey);
+        Object keys = content.size() > 1 ? content.get(1) : null;
+        if (!(keys instanceof List<?> keyList)) {
+            // FLUSHDB / FLUSHALL 等操作会推送空 key 列表
+            flush();
+            return;
+        }
+        long now = System.nanoTime();
+        for (Object key : keyList) {
+            onInvalidate(String.valueOf(key), now);
+        }
+    }
+
+    private void onInvalidate(String key, long now) {
+        if (key.startsWith(PROBE_KEY_PREFIX)) {
+            long sentAt = probeSentAt;
+            if (key.equals(probeKey) && sentAt != 0) {
+                invalidationLagTimer.record(now - sentAt, TimeUnit.NANOSECONDS);
+                probeSentAt = 0;
+            }
+            return;
+        }
+        if (key.startsWith(EPOCH_KEY_PREFIX)) {
+            // 清空同时丢弃读取中的写入，避免代数递增前读到的会话重新写入缓存
+            flush();
+            invalidationCounter.increment();
+            log.info("用户会话代数变化，清空会话本地缓存，key={}", key);
+            return;
+        }
+        if (!key.startsWith(SESSION_KEY_PREFIX)) {
+            return;
+        }
+        String sessionId = key.substring(SESSION_KEY_PREFIX.length());
+        invalidatedAt.put(sessionId, now);
+        cache.invalidate(sessionId);
+        invalidationCounter.increment();
+    }
+
+    // ------------------------ 连接管理 ------------------------
+
+    @Override
+    public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress socketAddress) {
+        // 自动重连后跟踪状态已丢失，需要重新开启
+        StatefulRedisConnection<String, String> current = connection;
+        if (current != null && handler == current) {
+            enableTracking(current);
+        }
+    }
+
+    @Override
+    public void onRedisDisconnected(RedisChannelHandler<?, ?> handler) {
+        if (handler == connection) {
+            // 断连期间可能丢失失效通知，缓存整体作废
+            trackingActive = false;
+            flush();
+            log.warn("会话本地缓存跟踪连接已断开，暂停使用本地缓存");
+        }
+    }
+
+    private void connect() {
+        try {
+            StatefulRedisConnection<String, String> newConnection = redisClient.connect(StringCodec.UTF8);
+            newConnection.addListener((PushListener) this);
+            newConnection.addListener((RedisConnectionStateListener) this);
+            connection = newConnection;
+            enableTracking(newConnection);
+        } catch (Exception e) {
+            log.warn("会话本地缓存跟踪连接建立失败，稍后重试，error={}", e.getMessage());
+        }
+    }
+
+    private void enableTracking(StatefulRedisConnection<String, String> target) {
+        target.async()
+                .clientTracking(TrackingArgs.Builder.enabled().bcast().prefixes(SESSION_KEY_PREFIX, EPOCH_KEY_PREFIX))
+                .whenComplete((reply, e) -> {
+                    if (e != null) {
+                        log.warn("开启 CLIENT TRACKING 失败，本地缓存暂不可用，error={}", e.getMessage());
+                        return;
+                    }
+                    flush();
+                    trackingActive = true;
+                    log.info("会话本地缓存已开启 CLIENT TRACKING，prefix={}, {}", SESSION_KEY_PREFIX, EPOCH_KEY_PREFIX);
+                });
+    }
+
+    private void flush() {
+        lastFlushAt = System.nanoTime();
+        cache.invalidateAll();
+    }
+
+    /**
+     * 定期探测：连接未建立时重试；写入探测 key 统计失效通知延迟
+     */
+    private void probe() {
+        if (connection == null) {
+            connect();
+            return;
+        }
+        if (!trackingActive) {
+            return;
+        }
+        probeSentAt = System.nanoTime();
+        reactiveRedisTemplate.opsForValue()
+                .set(probeKey, String.valueOf(System.currentTimeMillis()), Duration.ofMinutes(1))
+                .subscribe(ok -> {
+                }, e -> log.debug("写入探测 key 失败，error={}", e.getMessage()));
+    }
+
+    private RedisURI buildRedisUri() {
+        if (StringUtils.isNotBlank(redisProperties.getUrl())) {
+            return RedisURI.create(redisProperties.getUrl());
+        }
+        RedisURI.Builder builder = RedisURI.builder()
+                .withHost(redisProperties.getHost())
+                .withPort(redisProperties.getPort())
+                .withDatabase(redisProperties.getDatabase())
+                .withSsl(redisProperties.getSsl().isEnabled());
+        if (StringUtils.isNotBlank(redisProperties.getPassword())) {
+            if (StringUtils.isNotBlank(redisProperties.getUsername())) {
+                builder.withAuthentication(redisProperties.getUsername(), redisProperties.getPassword());
+            } else {
+                builder.withPassword(redisProperties.getPassword().toCharArray());
+            }
+        }
+        if (redisProperties.getTimeout() != null) {
+            builder.withTimeout(redisProperties.getTimeout());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.oneself.gateway.service.impl;
+
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+import com.oneself.common.infra.redis.session.LoginSessionRevoker;
+import com.oneself.gateway.properties.GatewayAuthProperties;
+import com.oneself.gateway.service.TokenRevocationService;
+import com.oneself.gateway.utils.RotatingBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className TokenRevocationServiceImpl
+ * description
+ * 短时访问令牌吊销判断实现：
+ * - 订阅吊销频道，收到的记录写入两代轮换的布隆过滤器，轮换周期为访问令牌最长有效期，
+ *   记录在令牌过期前不会被轮换丢弃
+ * - 每次订阅生效后读取最近一个周期的吊销记录补齐，补齐完成前、订阅中断期间过滤器不可用，调用方回退查询 Redis
+ * - 过滤器只会误判“可能已吊销”，误判的请求回退查询 Redis，不会误拒
+ * - 指标：gateway.token-revocation.ready / records / received、gateway.token-revocation.checks（result=clean / suspect）
+ * version 1.0
+ */
+@Slf4j
+@Service
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    private final GatewayAuthProperties.AccessToken accessTokenProperties;
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+    private final RotatingBloomFilter filter;
+    private final Counter received;
+    private final Counter clean;
+    private final Counter suspect;
+
+    private volatile boolean ready;
+    private Disposable subscription;
+    private Disposable rotation;
+
+    public TokenRevocationServiceImpl(GatewayAuthProperties authProperties,
+                                      ReactiveStringRedisTemplate reactiveRedisTemplate,
+                                      MeterRegistry meterRegistry) {
+        this.accessTokenProperties = authProperties.getAccessToken();
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.filter = new RotatingBloomFilter(accessTokenProperties.getExpectedRevocations(),
+                accessTokenProperties.getFalsePositiveRate());
+
+        Gauge.builder("gateway.token-revocation.ready", this, service -> service.ready ? 1 : 0)
+                .description("吊销过滤器是否可用")
+                .register(meterRegistry);
+        Gauge.builder("gateway.token-revocation.records", filter, RotatingBloomFilter::insertions)
+                .description("当前周期写入吊销过滤器的记录数")
+                .register(meterRegistry);
+        this.received = Counter.builder("gateway.token-revocation.received")
+                .description("收到的吊销记录数")
+                .register(meterRegistry);
+        this.clean = Counter.builder("gateway.token-revocation.checks")
+                .tag("result", "clean")
+                .description("访问令牌吊销检查次数")
+                .register(meterRegistry);
+        this.suspect = Counter.builder("gateway.token-revocation.checks")
+                .tag("result", "suspect")
+                .description("访问令牌吊销检查次数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!accessTokenProperties.isEnabled()) {
+            return;
+        }
+        Duration period = accessTokenProperties.getMaxTtl();
+        this.rotation = Flux.interval(period, period).subscribe(tick -> filter.rotate());
+        this.subscription = reactiveRedisTemplate.listenToChannelLater(LoginSessionRevoker.CHANNEL)
+                .flatMapMany(messages -> Flux.merge(
+                        messages.doOnNext(message -> {
+                            filter.put(message.getMessage());
+                            received.increment();
+                        }).then(),
+                        bootstrap(period)))
+                // 订阅正常结束同样意味着连接已断开，按异常处理以便重新订阅
+                .concatWith(Mono.error(new IllegalStateException("吊销频道订阅已结束")))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> {
+                            ready = false;
+                            log.warn("吊销频道订阅中断，访问令牌回退查询 Redis，重新订阅，error={}",
+                                    signal.failure().getMessage());
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        ready = false;
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (rotation != null) {
+            rotation.dispose();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public boolean mightBeRevoked(JwtSessionBO session) {
+        long epoch = session.getEpoch() != null ? session.getEpoch() : 0L;
+        boolean revoked = filter.mightContain(LoginSessionRevoker.sessionRecord(session.getSessionId()))
+                || filter.mightContain(LoginSessionRevoker.epochRecord(session.getUserId(), epoch));
+        (revoked ? suspect : clean).increment();
+        return revoked;
+    }
+
+    /**
+     * 读取最近一个周期的吊销记录（订阅生效后执行，期间推送的记录同时写入，重复写入无影响）
+     */
+    private Mono<Void> bootstrap(Duration period) {
+        long since = System.currentTimeMillis() - period.toMillis();
+        return reactiveRedisTemplate.opsForZSet()
+                .rangeByScore(LoginSessionRevoker.RECENT_KEY, Range.closed((double) since, Double.MAX_VALUE))
+                .doOnNext(filter::put)
+                .count()
+                .doOnNext(count -> {
+                    ready = true;
+                    log.info("吊销过滤器已就绪，补齐记录数={}, 位图大小={}", count, filter.bitSize());
+                })
+                .then();
+    }
+}
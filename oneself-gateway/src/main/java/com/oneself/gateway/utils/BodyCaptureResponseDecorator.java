@@ -0,0 +1,145 @@
+package com.oneself.gateway.utils;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.utils
+ * className BodyCaptureResponseDecorator
+ * description
+ * 响应体旁路复制：响应数据照常流式写给客户端，同时复制一份，写完后回调（不缓冲、不延迟响应）
+ * - 响应体超过上限（Content-Length 或实际写入字节数）时停止复制，回调 skipped
+ * - 无响应体、流式写出（writeAndFlushWith）、写出失败或客户端断开时回调 skipped
+ * - captured 与 skipped 只会回调其中一个，且只回调一次
+ * - 回调的状态码与响应头为开始写响应体时的快照，不包含外层装饰器（如压缩）之后做的修改
+ * version 1.0
+ */
+public class BodyCaptureResponseDecorator extends ServerHttpResponseDecorator {
+
+    private final int maxBytes;
+    private final Listener listener;
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    /**
+     * @param delegate 原始响应
+     * @param maxBytes 最多复制的字节数
+     * @param listener 回调
+     */
+    public BodyCaptureResponseDecorator(ServerHttpResponse delegate, int maxBytes, Listener listener) {
+        super(delegate);
+        this.maxBytes = maxBytes;
+        this.listener = listener;
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> writeWith(@NonNull Publisher<? extends DataBuffer> body) {
+        long contentLength = getHeaders().getContentLength();
+        if (contentLength > maxBytes) {
+            skip();
+            return super.writeWith(body);
+        }
+
+        HttpStatusCode status = getStatusCode();
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(getHeaders());
+        Capture capture = new Capture(contentLength > 0 ? (int) contentLength : 1024);
+        Flux<? extends DataBuffer> copied = Flux.from(body).doOnNext(capture::copy);
+        return super.writeWith(copied)
+                .doOnSuccess(v -> {
+                    if (capture.overflow) {
+                        skip();
+                    } else if (done.compareAndSet(false, true)) {
+                        listener.captured(status, HttpHeaders.readOnlyHttpHeaders(headers), capture.out.toByteArray());
+                    }
+                })
+                .doOnError(e -> skip())
+                .doOnCancel(this::skip);
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> writeAndFlushWith(@NonNull Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        skip();
+        return super.writeAndFlushWith(body);
+    }
+
+    @Override
+    @NonNull
+    public Mono<Void> setComplete() {
+        skip();
+        return super.setComplete();
+    }
+
+    private void skip() {
+        if (done.compareAndSet(false, true)) {
+            listener.skipped();
+        }
+    }
+
+    /**
+     * 复制中的响应体
+     */
+    private final class Capture {
+
+        private final ByteArrayOutputStream out;
+        private boolean overflow;
+
+        private Capture(int initialSize) {
+            this.out = new ByteArrayOutputStream(Math.min(initialSize, maxBytes));
+        }
+
+        private void copy(DataBuffer buffer) {
+            if (overflow) {
+                return;
+            }
+            if (out.size() + buffer.readableByteCount() > maxBytes) {
+                overflow = true;
+                return;
+            }
+            // 只读视图，不移动 DataBuffer 的读指针
+            try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                while (iterator.hasNext()) {
+                    ByteBuffer byteBuffer = iterator.next();
+                    byte[] bytes = new byte[byteBuffer.remaining()];
+                    byteBuffer.get(bytes);
+                    out.write(bytes, 0, bytes.length);
+                }
+            }
+        }
+    }
+
+    /**
+     * 复制结果回调
+     */
+    public interface Listener {
+
+        /**
+         * 响应体已完整写出并复制
+         *
+         * @param status  状态码
+         * @param headers 响应头
+         * @param body    响应体
+         */
+        void captured(HttpStatusCode status, HttpHeaders headers, byte[] body);
+
+        /**
+         * 未复制（超过上限、无响应体、流式写出、写出失败或客户端断开）
+         */
+        default void skipped() {
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.oneself.gateway.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.utils
+ * className LocalGcraLimiter
+ * description 单个 key 的本地无锁 GCRA 限流器，只保存一个理论到达时间（纳秒），CAS 更新
+ * version 1.0
+ */
+public final class LocalGcraLimiter {
+
+    /**
+     * 理论到达时间（System.nanoTime 时间轴）
+     */
+    private final AtomicLong tat = new AtomicLong(System.nanoTime());
+
+    /**
+     * 尝试获取一个许可
+     *
+     * @param intervalNanos  相邻两次请求的理论间隔（纳秒）
+     * @param toleranceNanos 突发容忍度（纳秒），即 间隔 × 突发容量
+     * @return 0 表示放行，否则为建议的重试间隔（纳秒）
+     */
+    public long tryAcquire(long intervalNanos, long toleranceNanos) {
+        while (true) {
+            long now = System.nanoTime();
+            long current = tat.get();
+            long base = current - now < 0 ? now : current;
+            long newTat = base + intervalNanos;
+            long waitNanos = newTat - toleranceNanos - now;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (tat.compareAndSet(current, newTat)) {
+                return 0;
+            }
+        }
+    }
+}
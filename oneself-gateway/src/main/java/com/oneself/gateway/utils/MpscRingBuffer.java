@@ -0,0 +1,115 @@
+package com.oneself.gateway.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.utils
+ * className MpscRingBuffer
+ * description
+ * 有界无锁环形缓冲区（多生产者、单消费者）：
+ * - 每个槽位带序号，生产者 CAS 抢占写入位置，消费者按序读取，全程无锁、不阻塞
+ * - 写满时 offer 直接返回 false，由调用方决定丢弃策略，事件循环线程永远不会等待
+ * - poll 只能由同一个消费者线程调用
+ * version 1.0
+ */
+public final class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+
+    /**
+     * 槽位序号：等于写入位置时可写，等于写入位置 + 1 时可读
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * 下一个写入位置（生产者竞争）
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个读取位置（仅消费者修改，其他线程只用于计算队列深度）
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("环形缓冲区容量必须大于 0：" + capacity);
+        }
+        int size = 1;
+        while (size < capacity && size < (1 << 30)) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = this.capacity - 1;
+        this.elements = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入元素（任意线程）
+     *
+     * @return 缓冲区已满时返回 false
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    // 发布序号，消费者看到序号后一定能看到元素
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // 该槽位还未被消费者读走：缓冲区已满
+                return false;
+            }
+            // diff > 0：其他生产者已抢占该位置，重试
+        }
+    }
+
+    /**
+     * 读取元素（仅消费者线程）
+     *
+     * @return 缓冲区为空时返回 null
+     */
+    public E poll() {
+        long position = head.get();
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        // 释放槽位给下一轮写入
+        sequences.set(index, position + capacity);
+        head.lazySet(position + 1);
+        return element;
+    }
+
+    /**
+     * 当前元素数（近似值，用于监控）
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
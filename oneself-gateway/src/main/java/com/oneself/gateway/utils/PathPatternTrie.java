@@ -0,0 +1,198 @@
+package com.oneself.gateway.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.utils
+ * className PathPatternTrie
+ * description
+ * 编译后的路径匹配器（按路径段组织的前缀树），构建后不可变、线程安全：
+ * - 字面量段：精确匹配，例如 /oneself-auth/auth/login
+ * - {service}：展开为配置的服务名，例如 /{service}/doc.html
+ * - *：匹配任意单个路径段
+ * - **：只能出现在末尾，匹配该前缀下的所有路径（包括前缀本身）
+ * 构建时将 * 分支合并进同层字面量分支，匹配时每个路径段只走一条分支，
+ * 匹配开销只与路径长度有关，与规则数量无关；
+ * 同时命中多条规则时返回最具体的一条（层级更深者优先，同层级时配置在前者优先）
+ * version 1.0
+ */
+public final class PathPatternTrie {
+
+    private static final String SERVICE_PLACEHOLDER = "{service}";
+    private static final String ANY_SEGMENT = "*";
+    private static final String ANY_SUFFIX = "**";
+
+    private final Node root;
+    private final int size;
+
+    private PathPatternTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * 编译路径规则
+     *
+     * @param patterns 路径规则
+     * @param services {service} 占位符可取的服务名
+     * @return 匹配器
+     */
+    public static PathPatternTrie compile(Collection<String> patterns, Collection<String> services) {
+        Node root = new Node();
+        int size = 0;
+        int rule = 0;
+        for (String pattern : patterns) {
+            if (pattern != null && !pattern.isBlank()) {
+                insert(root, split(pattern.trim()), 0, services, rule);
+                size++;
+            }
+            rule++;
+        }
+        root.determinize();
+        return new PathPatternTrie(root, size);
+    }
+
+    /**
+     * 判断路径是否命中任一规则
+     *
+     * @param path 请求路径
+     * @return 是否命中
+     */
+    public boolean matches(String path) {
+        return find(path) >= 0;
+    }
+
+    /**
+     * 查找路径命中的最具体规则
+     *
+     * @param path 请求路径
+     * @return 规则在编译时传入列表中的下标，未命中时返回 -1
+     */
+    public int find(String path) {
+        if (path == null) {
+            return -1;
+        }
+        Node node = root;
+        int best = -1;
+        int length = path.length();
+        int start = 0;
+        while (true) {
+            if (node.suffixRule >= 0) {
+                best = node.suffixRule;
+            }
+            // 跳过连续的 '/'
+            while (start < length && path.charAt(start) == '/') {
+                start++;
+            }
+            if (start >= length) {
+                return node.terminalRule >= 0 ? node.terminalRule : best;
+            }
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            Node next = node.children.get(path.substring(start, end));
+            node = next != null ? next : node.anySegment;
+            if (node == null) {
+                return best;
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * 规则数量
+     */
+    public int size() {
+        return size;
+    }
+
+    private static void insert(Node node, List<String> segments, int index, Collection<String> services, int rule) {
+        if (index == segments.size()) {
+            node.terminalRule = minRule(node.terminalRule, rule);
+            return;
+        }
+        String segment = segments.get(index);
+        switch (segment) {
+            case ANY_SUFFIX -> {
+                if (index != segments.size() - 1) {
+                    throw new IllegalArgumentException("** 只能出现在路径规则末尾：" + String.join("/", segments));
+                }
+                node.suffixRule = minRule(node.suffixRule, rule);
+            }
+            case ANY_SEGMENT -> {
+                if (node.anySegment == null) {
+                    node.anySegment = new Node();
+                }
+                insert(node.anySegment, segments, index + 1, services, rule);
+            }
+            case SERVICE_PLACEHOLDER -> {
+                for (String service : services) {
+                    insert(node.children.computeIfAbsent(service, k -> new Node()), segments, index + 1, services, rule);
+                }
+            }
+            default -> insert(node.children.computeIfAbsent(segment, k -> new Node()), segments, index + 1, services, rule);
+        }
+    }
+
+    /**
+     * 合并规则下标，-1 表示无规则，同一节点上配置在前的规则优先
+     */
+    private static int minRule(int current, int rule) {
+        if (current < 0) {
+            return rule;
+        }
+        return rule < 0 ? current : Math.min(current, rule);
+    }
+
+    private static List<String> split(String pattern) {
+        return Arrays.stream(pattern.split("/"))
+                .filter(segment -> !segment.isEmpty())
+                .toList();
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Node anySegment;
+        private int terminalRule = -1;
+        private int suffixRule = -1;
+
+        /**
+         * 将 * 分支合并进同层的每个字面量分支，使匹配过程无需回溯
+         */
+        private void determinize() {
+            if (anySegment != null) {
+                anySegment.determinize();
+                for (Node child : children.values()) {
+                    child.mergeFrom(anySegment);
+                }
+            }
+            for (Node child : children.values()) {
+                child.determinize();
+            }
+        }
+
+        private void mergeFrom(Node other) {
+            terminalRule = minRule(terminalRule, other.terminalRule);
+            suffixRule = minRule(suffixRule, other.suffixRule);
+            if (other.anySegment != null) {
+                if (anySegment == null) {
+                    anySegment = new Node();
+                }
+                anySegment.mergeFrom(other.anySegment);
+            }
+            for (Map.Entry<String, Node> entry : other.children.entrySet()) {
+                children.computeIfAbsent(entry.getKey(), k -> new Node()).mergeFrom(entry.getValue());
+            }
+        }
+    }
+}
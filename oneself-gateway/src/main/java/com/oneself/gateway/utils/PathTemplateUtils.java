@@ -0,0 +1,76 @@
+package com.oneself.gateway.utils;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.utils
+ * className PathTemplateUtils
+ * description
+ * 路径模板归一化工具，将路径中的 ID 段替换为 {id}，避免每个具体资源路径各占一个限流 key：
+ * - 纯数字：/user/123 -> /user/{id}
+ * - UUID 或长十六进制串：/file/9f86d081884c7d65 -> /file/{id}
+ * version 1.0
+ */
+public final class PathTemplateUtils {
+
+    private static final String ID_PLACEHOLDER = "{id}";
+
+    /**
+     * 十六进制 ID 的最小长度（短十六进制串可能是普通单词，如 add、bad）
+     */
+    private static final int MIN_HEX_ID_LENGTH = 16;
+
+    private PathTemplateUtils() {
+        throw new AssertionError("此工具类不允许实例化");
+    }
+
+    /**
+     * 归一化路径
+     *
+     * @param path 请求路径
+     * @return 路径模板
+     */
+    public static String normalize(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder template = new StringBuilder(path.length());
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                template.append('/');
+                if (isId(path, start, end)) {
+                    template.append(ID_PLACEHOLDER);
+                } else {
+                    template.append(path, start, end);
+                }
+            }
+            start = end + 1;
+        }
+        return template.isEmpty() ? "/" : template.toString();
+    }
+
+    private static boolean isId(String path, int start, int end) {
+        boolean allDigits = true;
+        int hexChars = 0;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hexChars++;
+            } else if ((c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')) {
+                allDigits = false;
+                hexChars++;
+            } else if (c == '-') {
+                allDigits = false;
+            } else {
+                return false;
+            }
+        }
+        return allDigits ? hexChars > 0 : hexChars >= MIN_HEX_ID_LENGTH;
+    }
+}
@@ -0,0 +1,99 @@
+package com.oneself.gateway.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.utils
+ * className PeakEwma
+ * description
+ * 单个实例的 Peak EWMA 延迟统计：
+ * - 新样本高于当前值时直接取新样本（峰值），低于当前值时按时间衰减的指数平均下降，变慢能立即反映、恢复逐步反映
+ * - 没有新样本时延迟随时间向 0 衰减，长时间未被选中的慢实例会重新获得试探流量
+ * - 负载 = 延迟 × (进行中请求数 + 1)
+ * 时间由调用方传入（System.nanoTime 时间轴）
+ * version 1.0
+ */
+public final class PeakEwma {
+
+    private final long firstSeenNanos;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private double latencyNanos;
+    private long stampNanos;
+
+    /**
+     * @param initialLatencyNanos 初始延迟（纳秒），一般取同服务其他实例的平均延迟
+     * @param nowNanos            当前时间
+     */
+    public PeakEwma(double initialLatencyNanos, long nowNanos) {
+        this.latencyNanos = initialLatencyNanos;
+        this.stampNanos = nowNanos;
+        this.firstSeenNanos = nowNanos;
+    }
+
+    /**
+     * 开始一个请求
+     */
+    public void start() {
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * 结束一个请求并记录延迟
+     *
+     * @param rttNanos   请求延迟（纳秒）
+     * @param nowNanos   当前时间
+     * @param decayNanos 衰减时间
+     */
+    public synchronized void complete(long rttNanos, long nowNanos, long decayNanos) {
+        outstanding.decrementAndGet();
+        if (rttNanos > latencyNanos) {
+            latencyNanos = rttNanos;
+        } else {
+            // 距离上次更新越久，新样本占比越大
+            double w = Math.exp(-(double) Math.max(0, nowNanos - stampNanos) / decayNanos);
+            latencyNanos = latencyNanos * w + rttNanos * (1 - w);
+        }
+        stampNanos = nowNanos;
+    }
+
+    /**
+     * 当前负载
+     *
+     * @param nowNanos   当前时间
+     * @param decayNanos 衰减时间
+     * @return 延迟 × (进行中请求数 + 1)
+     */
+    public synchronized double load(long nowNanos, long decayNanos) {
+        // 还没有延迟样本时按 1 纳秒计算，仍然按进行中请求数区分
+        return Math.max(1, decay(nowNanos, decayNanos)) * (outstanding.get() + 1);
+    }
+
+    /**
+     * 当前延迟（纳秒，已按时间衰减）
+     */
+    public synchronized double latency(long nowNanos, long decayNanos) {
+        return decay(nowNanos, decayNanos);
+    }
+
+    /**
+     * 首次出现的时间
+     */
+    public long firstSeenNanos() {
+        return firstSeenNanos;
+    }
+
+    /**
+     * 进行中的请求数
+     */
+    public int outstanding() {
+        return outstanding.get();
+    }
+
+    private double decay(long nowNanos, long decayNanos) {
+        long elapsed = nowNanos - stampNanos;
+        return elapsed <= 0 ? latencyNanos : latencyNanos * Math.exp(-(double) elapsed / decayNanos);
+    }
+}
@@ -0,0 +1,139 @@
+package com.oneself.gateway.utils;
+
+import com.oneself.common.core.resp.Resp;
+import com.oneself.common.core.utils.JacksonUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.utils
+ * className RejectionResponses
+ * description
+ * 网关直接返回的错误响应（401、403、429、503 等）：响应体在首次使用时序列化为字节数组并缓存，
+ * 之后每次拒绝只包装同一个字节数组，不再经过 Jackson 序列化
+ * version 1.0
+ */
+public final class RejectionResponses {
+
+    /**
+     * 未携带 Token
+     */
+    public static final Body UNAUTHENTICATED = Body.of(HttpStatus.UNAUTHORIZED, "未认证，请登录");
+
+    /**
+     * Token 无效或会话已过期
+     */
+    public static final Body INVALID_TOKEN = Body.of(HttpStatus.UNAUTHORIZED, "Token 无效或已过期");
+
+    /**
+     * 缺少接口权限（网关预先鉴权）
+     */
+    public static final Body FORBIDDEN = Body.of(HttpStatus.FORBIDDEN, "操作权限不足");
+
+    /**
+     * 会话存储不可用
+     */
+    public static final Body AUTH_UNAVAILABLE = Body.of(HttpStatus.SERVICE_UNAVAILABLE, "认证服务暂不可用，请稍后重试");
+
+    /**
+     * 触发限流
+     */
+    public static final Body TOO_MANY_REQUESTS = Body.of(HttpStatus.TOO_MANY_REQUESTS, "请求过于频繁，请稍后再试");
+
+    /**
+     * 超过路由并发上限（过载保护）
+     */
+    public static final Body OVERLOADED = Body.of(HttpStatus.SERVICE_UNAVAILABLE, "服务繁忙，请稍后重试");
+
+    /**
+     * 动态错误信息最多缓存的条数，超过后直接序列化（防止异常信息各不相同时无限增长）
+     */
+    private static final int MAX_CACHED = 256;
+
+    private static final Map<String, Body> CACHE = new ConcurrentHashMap<>();
+
+    private RejectionResponses() {
+        throw new AssertionError("此工具类不允许实例化");
+    }
+
+    /**
+     * 获取指定状态码与错误信息的响应体（异常处理器等错误信息不固定的场景使用）
+     *
+     * @param status  状态码
+     * @param message 错误信息
+     * @return 响应体
+     */
+    public static Body of(HttpStatus status, String message) {
+        String key = status.value() + ":" + message;
+        Body body = CACHE.get(key);
+        if (body != null) {
+            return body;
+        }
+        body = Body.of(status, message);
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.putIfAbsent(key, body);
+        }
+        return body;
+    }
+
+    /**
+     * 写出错误响应
+     *
+     * @param response 响应
+     * @param body     响应体
+     * @return 写出结果
+     */
+    public static Mono<Void> write(ServerHttpResponse response, Body body) {
+        response.setStatusCode(body.status());
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(body.bytes.length);
+        // wrap 不复制字节数组，数组本身不对外暴露，不会被修改
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.bytes)));
+    }
+
+    /**
+     * 写出限流响应，带 Retry-After 响应头（秒，向上取整）
+     *
+     * @param response     响应
+     * @param retryAfterMs 建议重试间隔（毫秒），小于等于 0 时不设置响应头
+     * @return 写出结果
+     */
+    public static Mono<Void> tooManyRequests(ServerHttpResponse response, long retryAfterMs) {
+        if (retryAfterMs > 0) {
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMs + 999) / 1000));
+        }
+        return write(response, TOO_MANY_REQUESTS);
+    }
+
+    /**
+     * 预先序列化的响应体
+     */
+    public static final class Body {
+
+        private final HttpStatus status;
+        private final byte[] bytes;
+
+        private Body(HttpStatus status, byte[] bytes) {
+            this.status = status;
+            this.bytes = bytes;
+        }
+
+        private static Body of(HttpStatus status, String message) {
+            Resp<String> resp = Resp.failure(message, status);
+            return new Body(status, JacksonUtils.toJsonString(resp).getBytes(StandardCharsets.UTF_8));
+        }
+
+        public HttpStatus status() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.oneself.gateway.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.utils
+ * className RetryBudget
+ * description
+ * 重试预算（令牌桶）：每个请求存入 ratio 个令牌，每次对冲或重试取出 1 个，令牌不足时不再发起额外请求，
+ * 下游整体故障时额外请求最多为正常请求的 ratio 倍，不会成倍放大流量
+ * 令牌按千分之一为单位用整数保存，存取都是一次 CAS，不加锁
+ * version 1.0
+ */
+public final class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final AtomicLong balance = new AtomicLong();
+
+    /**
+     * 存入令牌
+     *
+     * @param ratio      每个请求存入的令牌数（如 0.1）
+     * @param maxBalance 最多累积的令牌数
+     */
+    public void deposit(double ratio, int maxBalance) {
+        long credit = Math.round(ratio * SCALE);
+        long cap = maxBalance * SCALE;
+        long current;
+        long next;
+        do {
+            current = balance.get();
+            next = Math.min(current + credit, cap);
+            if (next <= current) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, next));
+    }
+
+    /**
+     * 取出 1 个令牌
+     *
+     * @return 是否取出成功（令牌不足时返回 false）
+     */
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    /**
+     * 当前可用的额外请求数
+     */
+    public double balance() {
+        return (double) balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,115 @@
+package com.oneself.gateway.utils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.utils
+ * className RollingPercentile
+ * description
+ * 滚动窗口的耗时分位数统计：
+ * - 耗时按微秒记录到对数分桶中（每个 2 的幂区间分 4 个桶，误差不超过 25%），记录只是一次原子自增，不分配对象
+ * - 保留当前与上一个窗口两代计数，窗口到期时丢弃上一代，分位数基于最近一到两个窗口的样本
+ * version 1.0
+ */
+public final class RollingPercentile {
+
+    /**
+     * 桶数：0 ~ 3 微秒各一个桶，之后每个 2 的幂区间 4 个桶，覆盖到 long 最大值
+     */
+    private static final int BUCKETS = 248;
+
+    private final long windowNanos;
+    private final AtomicLong windowStart;
+
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+
+    /**
+     * @param window 统计窗口
+     */
+    public RollingPercentile(Duration window) {
+        this.windowNanos = window.toNanos();
+        this.windowStart = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        rotateIfNeeded(System.nanoTime());
+        current.incrementAndGet(index(TimeUnit.NANOSECONDS.toMicros(Math.max(nanos, 0))));
+    }
+
+    /**
+     * 计算分位数
+     *
+     * @param percentile 分位（0 ~ 1）
+     * @param minSamples 最少样本数
+     * @return 分位数（纳秒，取所在桶的上界），样本不足时返回 -1
+     */
+    public long percentileNanos(double percentile, long minSamples) {
+        rotateIfNeeded(System.nanoTime());
+        AtomicLongArray latest = current;
+        AtomicLongArray older = previous;
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += latest.get(i) + older.get(i);
+        }
+        if (total == 0 || total < minSamples) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 1));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += latest.get(i) + older.get(i);
+            if (seen >= rank) {
+                return TimeUnit.MICROSECONDS.toNanos(upperBound(i));
+            }
+        }
+        return TimeUnit.MICROSECONDS.toNanos(upperBound(BUCKETS - 1));
+    }
+
+    private void rotateIfNeeded(long now) {
+        long start = windowStart.get();
+        if (now - start < windowNanos || !windowStart.compareAndSet(start, now)) {
+            return;
+        }
+        // 超过两个窗口没有记录时，上一代也已过期
+        previous = now - start < 2 * windowNanos ? current : new AtomicLongArray(BUCKETS);
+        current = new AtomicLongArray(BUCKETS);
+    }
+
+    /**
+     * 微秒值所在的桶：最高位确定 2 的幂区间，次高两位确定区间内的桶
+     */
+    private static int index(long micros) {
+        if (micros < 4) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) ((micros >>> (exponent - 2)) & 3);
+        return 4 * (exponent - 1) + sub;
+    }
+
+    /**
+     * 桶内最大的微秒值
+     */
+    private static long upperBound(int index) {
+        if (index < 4) {
+            return index;
+        }
+        int exponent = index / 4 + 1;
+        int sub = index % 4;
+        if (exponent >= 62 && sub == 3) {
+            return Long.MAX_VALUE;
+        }
+        return ((4L + sub + 1) << (exponent - 2)) - 1;
+    }
+}
@@ -0,0 +1,132 @@
+package com.oneself.gateway.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.utils
+ * className RotatingBloomFilter
+ * description
+ * 两代轮换的布隆过滤器：写入当前代，查询同时检查两代，轮换时丢弃上一代，
+ * 每条记录至少保留一个轮换周期、最多两个周期，记录数不会无限增长
+ * - 位图为 AtomicLongArray，写入是对每个位所在 long 的一次原子或运算，查询不加锁
+ * - 只可能误判存在（概率约为构建时给定的误判率），不会漏判
+ * version 1.0
+ */
+public final class RotatingBloomFilter {
+
+    private final int bits;
+    private final int hashes;
+    private final AtomicLong insertions = new AtomicLong();
+
+    private volatile AtomicLongArray current;
+    private volatile AtomicLongArray previous;
+
+    /**
+     * @param expectedInsertions 每个周期预计写入的记录数
+     * @param falsePositiveRate  期望误判率（0 ~ 1）
+     */
+    public RotatingBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(expectedInsertions, 1);
+        double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        // 按 64 位对齐，上限为 int 可索引的位数
+        this.bits = (int) Math.min((m + 63) / 64 * 64, (long) Integer.MAX_VALUE / 64 * 64);
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        this.current = new AtomicLongArray(bits / 64);
+        this.previous = new AtomicLongArray(bits / 64);
+    }
+
+    /**
+     * 写入记录
+     */
+    public void put(String value) {
+        AtomicLongArray words = current;
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) Math.floorMod(h1 + i * h2, (long) bits);
+            long mask = 1L << bit;
+            words.getAndAccumulate(bit >>> 6, mask, (a, b) -> a | b);
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * 是否可能包含记录（false 表示一定不包含）
+     */
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        return contains(current, h1, h2) || contains(previous, h1, h2);
+    }
+
+    /**
+     * 轮换：当前代变为上一代，原上一代丢弃
+     */
+    public void rotate() {
+        previous = current;
+        current = new AtomicLongArray(bits / 64);
+        insertions.set(0);
+    }
+
+    /**
+     * 清空两代
+     */
+    public void clear() {
+        previous = new AtomicLongArray(bits / 64);
+        current = new AtomicLongArray(bits / 64);
+        insertions.set(0);
+    }
+
+    /**
+     * 当前代写入的记录数
+     */
+    public long insertions() {
+        return insertions.get();
+    }
+
+    /**
+     * 每代位图大小（位）
+     */
+    public int bitSize() {
+        return bits;
+    }
+
+    private boolean contains(AtomicLongArray words, long h1, long h2) {
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) Math.floorMod(h1 + i * h2, (long) bits);
+            if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * FNV-1a 64 位哈希 + 末尾混淆，记录为 ASCII 为主的短字符串
+     */
+    private static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * 64 位混淆（MurmurHash3 fmix64）
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
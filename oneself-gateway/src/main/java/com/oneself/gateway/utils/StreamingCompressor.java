@@ -0,0 +1,143 @@
+package com.oneself.gateway.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.utils
+ * className StreamingCompressor
+ * description
+ * 流式压缩器（gzip / deflate），逐块压缩并 SYNC_FLUSH，每块输入立即产生可发送的输出，不缓冲整个响应体。
+ * 非线程安全，一个响应一个实例，用完必须 close 释放本地内存
+ * version 1.0
+ */
+public final class StreamingCompressor implements AutoCloseable {
+
+    /**
+     * gzip 头：魔数、DEFLATE、无标志、无时间戳、无额外标志、未知操作系统
+     */
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final Encoding encoding;
+    private final Deflater deflater;
+    private final CRC32 crc;
+    private final byte[] buffer = new byte[8192];
+    private boolean headerWritten;
+    private long bytesIn;
+    private long bytesOut;
+
+    /**
+     * @param encoding 压缩格式
+     * @param level    压缩级别（1 ~ 9）
+     */
+    public StreamingCompressor(Encoding encoding, int level) {
+        this.encoding = encoding;
+        // gzip 使用原始 DEFLATE 流，自行写入 gzip 头尾；deflate 为 HTTP 规定的 zlib 格式
+        this.deflater = new Deflater(level, encoding == Encoding.GZIP);
+        this.crc = encoding == Encoding.GZIP ? new CRC32() : null;
+    }
+
+    /**
+     * 压缩一块数据
+     *
+     * @param input 输入（读取后 position 移动到 limit）
+     * @return 压缩输出
+     */
+    public byte[] compress(ByteBuffer input) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.remaining() / 2));
+        writeHeader(out);
+        bytesIn += input.remaining();
+        if (crc != null) {
+            crc.update(input.duplicate());
+        }
+        deflater.setInput(input);
+        int length;
+        do {
+            length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            out.write(buffer, 0, length);
+        } while (length == buffer.length);
+        return count(out);
+    }
+
+    /**
+     * 结束压缩，输出剩余数据（gzip 还包括 CRC 与长度尾部）
+     */
+    public byte[] finish() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        writeHeader(out);
+        deflater.finish();
+        while (!deflater.finished()) {
+            int length = deflater.deflate(buffer);
+            out.write(buffer, 0, length);
+        }
+        if (crc != null) {
+            writeIntLe(out, (int) crc.getValue());
+            writeIntLe(out, (int) bytesIn);
+        }
+        return count(out);
+    }
+
+    public Encoding encoding() {
+        return encoding;
+    }
+
+    public long bytesIn() {
+        return bytesIn;
+    }
+
+    public long bytesOut() {
+        return bytesOut;
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+    }
+
+    private void writeHeader(ByteArrayOutputStream out) {
+        if (!headerWritten) {
+            headerWritten = true;
+            if (encoding == Encoding.GZIP) {
+                out.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+            }
+        }
+    }
+
+    private byte[] count(ByteArrayOutputStream out) {
+        byte[] bytes = out.toByteArray();
+        bytesOut += bytes.length;
+        return bytes;
+    }
+
+    private static void writeIntLe(ByteArrayOutputStream out, int value) {
+        out.write(value & 0xff);
+        out.write((value >> 8) & 0xff);
+        out.write((value >> 16) & 0xff);
+        out.write((value >> 24) & 0xff);
+    }
+
+    /**
+     * 压缩格式
+     */
+    public enum Encoding {
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        private final String token;
+
+        Encoding(String token) {
+            this.token = token;
+        }
+
+        /**
+         * Content-Encoding / Accept-Encoding 中的取值
+         */
+        public String token() {
+            return token;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.oneself.gateway.utils;
+
+import com.oneself.gateway.filter.TraceWebFilter;
+import io.micrometer.context.ThreadLocalAccessor;
+import org.slf4j.MDC;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.utils
+ * className TraceIdThreadLocalAccessor
+ * description
+ * Trace ID 的 MDC 访问器：
+ * 开启 Reactor 自动上下文传播（spring.reactor.context-propagation=auto）后，
+ * 每次在 Reactor 操作符之间切换线程时，从 Reactor Context 中的 traceId 恢复 MDC，处理结束后还原。
+ * 通过 META-INF/services/io.micrometer.context.ThreadLocalAccessor 注册
+ * version 1.0
+ */
+public class TraceIdThreadLocalAccessor implements ThreadLocalAccessor<String> {
+
+    @Override
+    public Object key() {
+        return TraceWebFilter.TRACE_ID;
+    }
+
+    @Override
+    public String getValue() {
+        return MDC.get(TraceWebFilter.TRACE_ID);
+    }
+
+    @Override
+    public void setValue(String value) {
+        MDC.put(TraceWebFilter.TRACE_ID, value);
+    }
+
+    @Override
+    public void setValue() {
+        MDC.remove(TraceWebFilter.TRACE_ID);
+    }
+}
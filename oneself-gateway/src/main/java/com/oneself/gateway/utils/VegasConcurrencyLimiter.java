@@ -0,0 +1,167 @@
+package com.oneself.gateway.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.utils
+ * className VegasConcurrencyLimiter
+ * description
+ * 基于 TCP Vegas 思路的自适应并发限制器：
+ * - 以观测到的最小响应时间作为无排队基线 minRtt
+ * - 估算下游排队请求数 queue = 上限 × (1 - minRtt / 本次响应时间)
+ * - queue 小于 alpha（3·log10 上限）时上限增加 log10 上限，大于 beta（6·log10 上限）时减少 log10 上限
+ * - 并发数不到上限一半时不增加上限（流量不足，无法判断容量）；下游失败时按比例缩减
+ * - 每隔 probeInterval（带随机抖动）用之后 {@link #PROBE_SAMPLES} 个样本的最小值替换基线（不限制并发、不拒绝请求），
+ *   使历史上偶然偏低的基线不会一直压低上限，也能跟上下游本身变慢或变快
+ * 许可的获取与释放无锁，上限调整在样本回调中加锁执行
+ * version 1.0
+ */
+public final class VegasConcurrencyLimiter {
+
+    /**
+     * 重新测量基线时采集的样本数
+     */
+    private static final int PROBE_SAMPLES = 20;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    private long minRtt = Long.MAX_VALUE;
+    private long nextProbeAt;
+
+    /**
+     * 重新测量期间的样本最小值与已采集样本数，不在测量时样本数为 -1
+     */
+    private long probeMinRtt;
+    private int probeSamples = -1;
+
+    /**
+     * @param initialLimit 初始并发上限
+     */
+    public VegasConcurrencyLimiter(int initialLimit) {
+        this.limit = Math.max(1, initialLimit);
+    }
+
+    /**
+     * 尝试获取一个许可
+     *
+     * @param share 可使用的并发额度比例（0 ~ 1）
+     * @return 是否获取成功，成功后必须调用 {@link #release()}
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放许可
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 记录一次成功请求的下游响应时间并调整上限
+     *
+     * @param rttNanos 下游响应时间（纳秒）
+     * @param settings 调整参数
+     */
+    public synchronized void onSample(long rttNanos, Settings settings) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (minRtt == Long.MAX_VALUE) {
+            minRtt = rttNanos;
+            nextProbeAt = now + jitter(settings.probeIntervalNanos());
+            return;
+        }
+        if (probeSamples >= 0) {
+            probe(rttNanos, now, settings);
+        } else if (now - nextProbeAt >= 0) {
+            probeMinRtt = Long.MAX_VALUE;
+            probeSamples = 0;
+            probe(rttNanos, now, settings);
+        }
+        minRtt = Math.min(minRtt, rttNanos);
+
+        double current = limit;
+        double queue = current * (1 - (double) minRtt / rttNanos);
+        double step = Math.max(1, Math.log10(current));
+        double next = current;
+        if (queue > 6 * step) {
+            next = current - step;
+        } else if (queue < 3 * step && inFlight.get() >= current / 2) {
+            next = current + step;
+        }
+        limit = clamp(next, settings);
+    }
+
+    /**
+     * 重新测量基线：测量期间上限照常按旧基线调整，采集满样本后以样本最小值替换基线
+     */
+    private void probe(long rttNanos, long now, Settings settings) {
+        probeMinRtt = Math.min(probeMinRtt, rttNanos);
+        if (++probeSamples >= PROBE_SAMPLES) {
+            minRtt = probeMinRtt;
+            probeSamples = -1;
+            nextProbeAt = now + jitter(settings.probeIntervalNanos());
+        }
+    }
+
+    /**
+     * 测量间隔加 ±15% 随机抖动，避免多个网关节点同时测量
+     */
+    private static long jitter(long intervalNanos) {
+        return (long) (intervalNanos * (0.85 + ThreadLocalRandom.current().nextDouble() * 0.3));
+    }
+
+    /**
+     * 记录一次下游失败（异常、超时、502/503/504），按比例缩减上限
+     *
+     * @param settings 调整参数
+     */
+    public synchronized void onDrop(Settings settings) {
+        limit = clamp(limit * settings.backoffRatio(), settings);
+    }
+
+    /**
+     * 当前并发上限
+     */
+    public double limit() {
+        return limit;
+    }
+
+    /**
+     * 当前并发数
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private static double clamp(double value, Settings settings) {
+        return Math.max(settings.minLimit(), Math.min(settings.maxLimit(), value));
+    }
+
+    /**
+     * 上限调整参数
+     *
+     * @param minLimit          上限最小值
+     * @param maxLimit          上限最大值
+     * @param backoffRatio      失败时的缩减比例
+     * @param probeIntervalNanos 重新测量基线的间隔（纳秒）
+     */
+    public record Settings(int minLimit, int maxLimit, double backoffRatio, long probeIntervalNanos) {
+    }
+}
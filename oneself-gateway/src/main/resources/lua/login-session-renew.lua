@@ -0,0 +1,36 @@
+-- 登录会话批量续期 / 清理 Lua 脚本（网关合并多个请求的滑动续期后一次写入）
+-- KEYS[2i-1]: 第 i 个会话 key（oneself:login:session:{sessionId}）
+-- KEYS[2i]: 第 i 个会话的用户会话集合 key（oneself:login:user:{userId}）
+-- ARGV[1]: 当前时间戳（毫秒）
+-- ARGV[2]: 滑动过期时长（毫秒）
+-- ARGV[2i+1]: 第 i 个会话的 sessionId
+-- ARGV[2i+2]: 第 i 个会话的操作：1 续期，0 清理（删除会话并移出用户会话集合），2 只移出用户会话集合（不删除会话 key）
+-- 返回值: 续期成功的会话数
+
+local now = tonumber(ARGV[1])
+local sessionTimeout = tonumber(ARGV[2])
+
+local renewed = 0
+for i = 1, #KEYS / 2 do
+    local sessionKey = KEYS[2 * i - 1]
+    local userKey = KEYS[2 * i]
+    local sessionId = ARGV[2 * i + 1]
+
+    -- 清理已过期 session（ZSet 中的老数据）
+    redis.call('ZREMRANGEBYSCORE', userKey, 0, now)
+
+    local action = ARGV[2 * i + 2]
+    -- 续期只针对仍存在的会话，登记后已退出登录的会话不会被恢复
+    if action == '1' and redis.call('PEXPIRE', sessionKey, sessionTimeout) == 1 then
+        redis.call('ZADD', userKey, now + sessionTimeout, sessionId)
+        redis.call('PEXPIRE', userKey, sessionTimeout)
+        renewed = renewed + 1
+    elseif action == '2' then
+        -- 与 login-session-validate 一致：会话不存在或未设置过期时间时只移出用户会话集合
+        redis.call('ZREM', userKey, sessionId)
+    else
+        redis.call('DEL', sessionKey)
+        redis.call('ZREM', userKey, sessionId)
+    end
+end
+return renewed
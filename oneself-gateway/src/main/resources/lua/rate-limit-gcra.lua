@@ -0,0 +1,47 @@
+-- GCRA（通用信元速率算法）限流 Lua 脚本，每个 key 只保存一个数值（理论到达时间 TAT）
+-- 支持嵌套配额（如 IP、用户、路由）一次调用完成：所有 key 都允许时才同时扣减
+-- KEYS[i]: 第 i 个配额的限流 key
+-- ARGV[3i-2]: 第 i 个配额的时间窗口（毫秒）
+-- ARGV[3i-1]: 第 i 个配额窗口内最大请求数
+-- ARGV[3i]: 第 i 个配额的突发容量（允许瞬时通过的最大请求数）
+-- 返回：{1, 各配额中最小的剩余可突发请求数} 或 {0, 建议重试间隔（毫秒）, 拒绝的配额下标}
+
+-- 使用 Redis 服务器时间，避免多个网关节点时钟不一致
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + tonumber(time[2]) / 1000
+
+local newTats = {}
+local remaining = -1
+for i = 1, #KEYS do
+    local window = tonumber(ARGV[3 * i - 2])
+    local limit = tonumber(ARGV[3 * i - 1])
+    local burst = tonumber(ARGV[3 * i])
+
+    -- 相邻两次请求的理论间隔
+    local interval = window / limit
+    local tolerance = interval * burst
+
+    local tat = tonumber(redis.call('GET', KEYS[i]))
+    if tat == nil or tat < now then
+        tat = now
+    end
+
+    local newTat = tat + interval
+    local allowAt = newTat - tolerance
+    if allowAt > now then
+        -- 超过限制，不修改任何配额
+        return {0, math.ceil(allowAt - now), i - 1}
+    end
+
+    newTats[i] = newTat
+    local left = math.floor((now + tolerance - newTat) / interval)
+    if remaining < 0 or left < remaining then
+        remaining = left
+    end
+end
+
+-- 全部允许，TAT 回落到当前时间后 key 自然过期
+for i = 1, #KEYS do
+    redis.call('SET', KEYS[i], string.format('%.3f', newTats[i]), 'PX', math.ceil(newTats[i] - now))
+end
+return {1, remaining}
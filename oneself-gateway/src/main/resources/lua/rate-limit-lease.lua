@@ -0,0 +1,71 @@
+-- GCRA 配额租约 Lua 脚本：一次领取多个许可，供网关节点本地消费，每个 key 只保存一个数值（TAT）
+-- 支持嵌套配额一次调用完成：所有 key 都至少有 1 个可用许可时才同时领取
+-- 上一个租约过期时未用完的许可在本次领取前先归还（TAT 回退，最多回退到当前时间），拒绝时同样归还
+-- KEYS[i]: 第 i 个配额的限流 key
+-- ARGV[1]: 每个配额希望领取的许可数
+-- ARGV[4i-2]: 第 i 个配额的时间窗口（毫秒）
+-- ARGV[4i-1]: 第 i 个配额窗口内最大请求数
+-- ARGV[4i]: 第 i 个配额的突发容量
+-- ARGV[4i+1]: 第 i 个配额归还的许可数
+-- 返回：{1, 配额 1 领取数, 配额 2 领取数, ...} 或 {0, 建议重试间隔（毫秒）, 拒绝的配额下标}
+
+local requested = tonumber(ARGV[1])
+
+-- 使用 Redis 服务器时间，避免多个网关节点时钟不一致
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + tonumber(time[2]) / 1000
+
+local intervals = {}
+local tolerances = {}
+local tats = {}
+local refunded = {}
+for i = 1, #KEYS do
+    local window = tonumber(ARGV[4 * i - 2])
+    local limit = tonumber(ARGV[4 * i - 1])
+    local burst = tonumber(ARGV[4 * i])
+    local refund = tonumber(ARGV[4 * i + 1])
+
+    intervals[i] = window / limit
+    tolerances[i] = intervals[i] * burst
+
+    local tat = tonumber(redis.call('GET', KEYS[i]))
+    if tat == nil or tat < now then
+        tat = now
+    end
+    if refund > 0 and tat > now then
+        tat = math.max(now, tat - intervals[i] * refund)
+        refunded[i] = true
+    end
+    tats[i] = tat
+end
+
+-- 写入 TAT，回落到当前时间的 key 直接删除
+local function store(i, tat)
+    if tat > now then
+        redis.call('SET', KEYS[i], string.format('%.3f', tat), 'PX', math.ceil(tat - now))
+    else
+        redis.call('DEL', KEYS[i])
+    end
+end
+
+local result = {1}
+for i = 1, #KEYS do
+    -- 当前最多可领取的许可数
+    local available = math.floor((now + tolerances[i] - tats[i]) / intervals[i])
+    if available < 1 then
+        for j = 1, #KEYS do
+            if refunded[j] then
+                store(j, tats[j])
+            end
+        end
+        return {0, math.ceil(tats[i] + intervals[i] - tolerances[i] - now), i - 1}
+    end
+    local granted = math.min(available, requested)
+    tats[i] = tats[i] + intervals[i] * granted
+    result[i + 1] = granted
+end
+
+for i = 1, #KEYS do
+    store(i, tats[i])
+end
+return result
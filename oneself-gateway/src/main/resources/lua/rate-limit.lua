@@ -1,28 +1,31 @@
 -- 滑动窗口限流 Lua 脚本
--- KEYS[1]: 限流 key
--- ARGV[1]: 时间窗口（秒）
--- ARGV[2]: 最大请求数
--- ARGV[3]: 当前时间戳（秒）
+-- 支持嵌套配额一次调用完成：所有 key 都未超限时才同时记录本次请求
+-- KEYS[i]: 第 i 个配额的限流 key
+-- ARGV[1]: 当前时间戳（秒）
+-- ARGV[2i]: 第 i 个配额的时间窗口（秒）
+-- ARGV[2i+1]: 第 i 个配额的最大请求数
+-- 返回：1 允许，0 超过限制
 
-local key = KEYS[1]
-local window = tonumber(ARGV[1])
-local limit = tonumber(ARGV[2])
-local now = tonumber(ARGV[3])
-local clearBefore = now - window
+local now = tonumber(ARGV[1])
 
--- 清理过期数据
-redis.call('ZREMRANGEBYSCORE', key, 0, clearBefore)
+for i = 1, #KEYS do
+    local window = tonumber(ARGV[2 * i])
+    local limit = tonumber(ARGV[2 * i + 1])
 
--- 获取当前窗口内的请求数
-local current = redis.call('ZCARD', key)
+    -- 清理过期数据
+    redis.call('ZREMRANGEBYSCORE', KEYS[i], 0, now - window)
 
-if current < limit then
-    -- 允许请求，记录本次请求
-    redis.call('ZADD', key, now, now .. ':' .. math.random())
-    redis.call('EXPIRE', key, window)
-    return 1
-else
-    -- 超过限制
-    return 0
+    -- 获取当前窗口内的请求数
+    if redis.call('ZCARD', KEYS[i]) >= limit then
+        -- 超过限制
+        return 0
+    end
 end
 
+-- 允许请求，记录本次请求
+local member = now .. ':' .. math.random()
+for i = 1, #KEYS do
+    redis.call('ZADD', KEYS[i], now, member)
+    redis.call('EXPIRE', KEYS[i], tonumber(ARGV[2 * i]))
+end
+return 1
@@ -0,0 +1,267 @@
+package com.oneself.gateway.filter;
+
+import com.oneself.gateway.properties.GatewayHedgingProperties;
+import com.oneself.gateway.service.InstanceLoadService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClientsProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.filter
+ * className HedgingGlobalFilterTest
+ * description 对冲请求与重试测试：先响应的尝试生效并写回原请求，未生效的尝试被取消，预算不足时不发额外请求
+ * version 1.0
+ */
+class HedgingGlobalFilterTest {
+
+    private static final String SERVICE_ID = "svc";
+    private static final String BACKEND_HEADER = "X-Backend";
+
+    private final ServiceInstance primary = new DefaultServiceInstance("a", SERVICE_ID, "10.0.0.1", 8080, false);
+    private final ServiceInstance alternative = new DefaultServiceInstance("b", SERVICE_ID, "10.0.0.2", 8080, false);
+
+    private GatewayHedgingProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private Map<String, Backend> backends;
+    private HedgingGlobalFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GatewayHedgingProperties();
+        properties.setMinSamples(1);
+        properties.setMinDelay(Duration.ofMillis(30));
+        properties.setMaxDelay(Duration.ofMillis(30));
+        properties.setBudgetRatio(1.0);
+        properties.setMaxBudget(10);
+        meterRegistry = new SimpleMeterRegistry();
+        backends = Map.of(primary.getHost(), new Backend(), alternative.getHost(), new Backend());
+        filter = newFilter();
+    }
+
+    private HedgingGlobalFilter newFilter() {
+        ServiceInstanceListSupplier supplier = new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE_ID;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(List.of(primary, alternative));
+            }
+        };
+        LoadBalancerClientFactory clientFactory = new LoadBalancerClientFactory(new LoadBalancerClientsProperties()) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> ObjectProvider<T> getLazyProvider(String name, Class<T> type) {
+                StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("supplier", supplier));
+                return (ObjectProvider<T>) beanFactory.getBeanProvider(ServiceInstanceListSupplier.class);
+            }
+        };
+        InstanceLoadService loadService = new InstanceLoadService() {
+            @Override
+            public double score(ServiceInstance instance, List<ServiceInstance> siblings) {
+                return 0;
+            }
+
+            @Override
+            public void onStart(ServiceInstance instance) {
+            }
+
+            @Override
+            public void onComplete(ServiceInstance instance, long rttNanos, boolean failed) {
+            }
+        };
+        return new HedgingGlobalFilter(properties, clientFactory, loadService, meterRegistry);
+    }
+
+    private MockServerWebExchange newExchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/svc/items"));
+        Route route = Route.async()
+                .id("svc-route")
+                .uri(URI.create("lb://" + SERVICE_ID))
+                .predicate(e -> true)
+                .metadata("hedging", true)
+                .build();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(primary));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR,
+                URI.create("http://" + primary.getHost() + ":8080/items"));
+        return exchange;
+    }
+
+    /**
+     * 下游：按请求地址的主机找到对应实例，延迟后设置状态码与响应头（或返回异常）
+     */
+    private final GatewayFilterChain chain = exchange -> {
+        URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        Backend backend = backends.get(url.getHost());
+        return backend.handle(exchange, url.getHost());
+    };
+
+    /**
+     * 用一次快速的原请求为路由积累响应时间样本，之后的请求超过 30ms 未响应即发起对冲
+     */
+    private void warmUp() {
+        filter.filter(newExchange(), chain).block(Duration.ofSeconds(5));
+        backends.values().forEach(Backend::reset);
+    }
+
+    /**
+     * 取消在结果发出之后才传递到未生效的尝试，等待其到达
+     */
+    private static boolean await(AtomicBoolean flag) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+        while (!flag.get() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return flag.get();
+    }
+
+    private double count(String name, String type) {
+        return meterRegistry.get(name).tag("type", type).counter().count();
+    }
+
+    @Test
+    void primaryRespondingBeforeHedgeDelayIsNotHedged() {
+        warmUp();
+        MockServerWebExchange exchange = newExchange();
+
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+
+        assertEquals(primary.getHost(), exchange.getResponse().getHeaders().getFirst(BACKEND_HEADER));
+        assertEquals(0, backends.get(alternative.getHost()).calls.get());
+        assertEquals(0.0, count("gateway.hedging.requests", "hedge"));
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndLoserIsCancelled() throws InterruptedException {
+        warmUp();
+        backends.get(primary.getHost()).delay = Duration.ofSeconds(2);
+        MockServerWebExchange exchange = newExchange();
+
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+
+        // 额外请求的状态码、响应头与请求属性写回原请求
+        assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+        assertEquals(alternative.getHost(), exchange.getResponse().getHeaders().getFirst(BACKEND_HEADER));
+        URI applied = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        assertEquals(alternative.getHost(), applied.getHost());
+        // 原请求被取消，不会再写回
+        assertTrue(await(backends.get(primary.getHost()).cancelled));
+        assertFalse(backends.get(alternative.getHost()).cancelled.get());
+        assertEquals(1.0, count("gateway.hedging.requests", "hedge"));
+        assertEquals(1.0, count("gateway.hedging.wins", "hedge"));
+    }
+
+    @Test
+    void connectFailureIsRetriedOnAnotherInstance() {
+        backends.get(primary.getHost()).error = new ConnectException("Connection refused");
+        MockServerWebExchange exchange = newExchange();
+
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+
+        assertEquals(alternative.getHost(), exchange.getResponse().getHeaders().getFirst(BACKEND_HEADER));
+        assertEquals(1.0, count("gateway.hedging.requests", "retry"));
+        assertEquals(1.0, count("gateway.hedging.wins", "retry"));
+    }
+
+    @Test
+    void otherFailuresAreNotRetried() {
+        backends.get(primary.getHost()).error = new IllegalStateException("boom");
+        MockServerWebExchange exchange = newExchange();
+
+        assertThrows(IllegalStateException.class, () -> filter.filter(exchange, chain).block(Duration.ofSeconds(5)));
+        assertEquals(0, backends.get(alternative.getHost()).calls.get());
+    }
+
+    @Test
+    void exhaustedBudgetSkipsExtraRequest() {
+        properties.setBudgetRatio(0);
+        backends.get(primary.getHost()).error = new ConnectException("Connection refused");
+        MockServerWebExchange exchange = newExchange();
+
+        assertThrows(RuntimeException.class, () -> filter.filter(exchange, chain).block(Duration.ofSeconds(5)));
+        assertEquals(0, backends.get(alternative.getHost()).calls.get());
+        assertEquals(1.0, meterRegistry.get("gateway.hedging.budget-exhausted").counter().count());
+    }
+
+    @Test
+    void cancellingTheCallCancelsBothAttempts() throws InterruptedException {
+        warmUp();
+        backends.get(primary.getHost()).delay = Duration.ofSeconds(2);
+        backends.get(alternative.getHost()).delay = Duration.ofSeconds(2);
+        MockServerWebExchange exchange = newExchange();
+
+        Disposable call = filter.filter(exchange, chain).subscribe();
+        Thread.sleep(200);
+        assertEquals(1, backends.get(alternative.getHost()).calls.get());
+        call.dispose();
+
+        assertTrue(await(backends.get(primary.getHost()).cancelled));
+        assertTrue(await(backends.get(alternative.getHost()).cancelled));
+        // 没有尝试生效，原响应保持不变
+        assertNull(exchange.getResponse().getHeaders().getFirst(BACKEND_HEADER));
+    }
+
+    /**
+     * 模拟的下游实例
+     */
+    private static final class Backend {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private volatile Duration delay = Duration.ZERO;
+        private volatile Throwable error;
+
+        Mono<Void> handle(ServerWebExchange exchange, String host) {
+            calls.incrementAndGet();
+            Mono<Void> response = error != null
+                    ? Mono.error(error)
+                    : Mono.fromRunnable(() -> {
+                        exchange.getResponse().setStatusCode(HttpStatus.OK);
+                        exchange.getResponse().getHeaders().add(BACKEND_HEADER, host);
+                    });
+            return Mono.delay(delay).then(response).doOnCancel(() -> cancelled.set(true));
+        }
+
+        void reset() {
+            calls.set(0);
+            cancelled.set(false);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.oneself.gateway.filter;
+
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+import com.oneself.gateway.properties.GatewayPublicPathProperties;
+import com.oneself.gateway.properties.GatewayResponseCacheProperties;
+import com.oneself.gateway.service.impl.ResponseCacheServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.filter
+ * className ResponseCacheGlobalFilterTest
+ * description 网关响应缓存过滤器测试：按用户隔离 / 公共共享的缓存 key、只缓存成功响应、按标签清理
+ * version 1.0
+ */
+class ResponseCacheGlobalFilterTest {
+
+    private static final String ROUTE_ID = "oneself-system";
+    private static final String PATH = "/oneself-system/dept/tree";
+
+    private ResponseCacheServiceImpl cacheService;
+    private ResponseCacheGlobalFilter filter;
+    private AtomicInteger downstreamCalls;
+    private volatile String downstreamBody;
+
+    @BeforeEach
+    void setUp() {
+        cacheService = new ResponseCacheServiceImpl(new GatewayResponseCacheProperties(), null, new SimpleMeterRegistry());
+        filter = new ResponseCacheGlobalFilter(new GatewayResponseCacheProperties(), new GatewayPublicPathProperties(),
+                cacheService);
+        downstreamCalls = new AtomicInteger();
+        downstreamBody = "{\"msgCode\":200,\"data\":[]}";
+    }
+
+    /**
+     * 下游：返回 200 + JSON 响应体
+     */
+    private final GatewayFilterChain chain = exchange -> {
+        downstreamCalls.incrementAndGet();
+        exchange.getResponse().setStatusCode(HttpStatus.OK);
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer buffer = exchange.getResponse().bufferFactory().wrap(downstreamBody.getBytes(StandardCharsets.UTF_8));
+        return exchange.getResponse().writeWith(Mono.just(buffer));
+    };
+
+    private static Route route(String scope) {
+        return Route.async()
+                .id(ROUTE_ID)
+                .uri(URI.create("lb://oneself-system"))
+                .predicate(e -> true)
+                .metadata("response-cache", Map.of("ttl-seconds", 60, "scope", scope))
+                .build();
+    }
+
+    /**
+     * 发起一次请求，返回 X-Cache 响应头
+     */
+    private String request(Route route, String userId, String query) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(PATH + query));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        if (userId != null) {
+            exchange.getAttributes().put(JwtAuthenticationGlobalFilter.SESSION_ATTR,
+                    JwtSessionBO.builder().userId(userId).build());
+        }
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+        return exchange.getResponse().getHeaders().getFirst("X-Cache");
+    }
+
+    @Test
+    void userScopedEntriesAreNotSharedBetweenUsers() {
+        Route route = route("user");
+
+        assertEquals("MISS", request(route, "1", ""));
+        assertEquals("HIT", request(route, "1", ""));
+        // 其他用户与未登录请求各自使用独立的缓存
+        assertEquals("MISS", request(route, "2", ""));
+        assertEquals("MISS", request(route, null, ""));
+        assertEquals("HIT", request(route, null, ""));
+        assertEquals(3, downstreamCalls.get());
+    }
+
+    @Test
+    void publicEntriesAreSharedBetweenUsers() {
+        Route route = route("public");
+
+        assertEquals("MISS", request(route, "1", ""));
+        assertEquals("HIT", request(route, "2", ""));
+        assertEquals("HIT", request(route, null, ""));
+        assertEquals(1, downstreamCalls.get());
+    }
+
+    @Test
+    void queryParameterOrderDoesNotChangeKey() {
+        Route route = route("public");
+
+        assertEquals("MISS", request(route, "1", "?b=2&a=1"));
+        assertEquals("HIT", request(route, "1", "?a=1&b=2"));
+        assertEquals("MISS", request(route, "1", "?a=1&b=3"));
+    }
+
+    @Test
+    void failedRespEnvelopeIsNotCached() {
+        Route route = route("user");
+        downstreamBody = "{\"msgCode\":500,\"message\":\"error\"}";
+
+        assertEquals("MISS", request(route, "1", ""));
+        assertEquals("MISS", request(route, "1", ""));
+        assertEquals(2, downstreamCalls.get());
+    }
+
+    @Test
+    void purgeByResourceTagEvictsStoredResponses() {
+        Route route = route("user");
+        assertEquals("MISS", request(route, "1", ""));
+        assertEquals("MISS", request(route, "2", ""));
+
+        // 标签：{路由 ID}:{资源名}
+        cacheService.purge(List.of(ROUTE_ID + ":dept"));
+
+        assertEquals("MISS", request(route, "1", ""));
+        assertEquals("MISS", request(route, "2", ""));
+        assertEquals(4, downstreamCalls.get());
+    }
+}
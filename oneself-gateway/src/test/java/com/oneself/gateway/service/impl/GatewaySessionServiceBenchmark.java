@@ -0,0 +1,266 @@
+package com.oneself.gateway.service.impl;
+
+import com.oneself.common.core.utils.JacksonUtils;
+import com.oneself.common.feature.security.config.JwtConfig;
+import com.oneself.common.feature.security.model.bo.JwtSessionBO;
+import com.oneself.common.feature.security.utils.JwtUtils;
+import com.oneself.common.infra.redis.model.enums.RedisKeyPrefixEnum;
+import com.oneself.common.infra.redis.script.LuaScriptRegistry;
+import com.oneself.gateway.model.AuthenticatedSession;
+import com.oneself.gateway.properties.GatewayAuthProperties;
+import com.oneself.gateway.service.SessionNearCacheService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import reactor.blockhound.BlockHound;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className GatewaySessionServiceBenchmark
+ * description
+ * 网关会话校验基准测试，对比改造前后的 p99 延迟与事件循环线程上的阻塞调用：
+ * - blockingRedisTemplate：改造前的实现，在事件循环线程上经 RedisTemplate 逐条同步执行 ZREMRANGEBYSCORE、PTTL、GET 等命令
+ * - reactiveScript：GatewaySessionServiceImpl 关闭批量读取，每个请求执行一次 login-session-validate 脚本
+ * - reactiveBatched：GatewaySessionServiceImpl 默认配置，经 SessionBatchService 合并读取
+ * 校验在 4 个 NonBlocking 线程（模拟 Netty 事件循环）上执行，32 个线程并发调用；SampleTime 模式输出 p50 / p99 / p99.9 延迟，
+ * BlockHound 只记录不抛出，每轮迭代结束时打印事件循环线程上的阻塞调用次数。
+ * 需要可写入的 Redis（默认 localhost:6379，可用 -Dbenchmark.redis.host / -Dbenchmark.redis.port 指定），
+ * 运行前写入 10000 个 bench- 开头的测试会话，结束后删除。运行方式：
+ * mvn -pl oneself-gateway test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-cp %classpath com.oneself.gateway.service.impl.GatewaySessionServiceBenchmark"
+ * version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(32)
+@Fork(value = 1, jvmArgsAppend = "-XX:+AllowRedefinitionToAddDeleteMethods") // JDK 13+ 安装 BlockHound 需要
+public class GatewaySessionServiceBenchmark {
+
+    private static final String SECRET = "oneself-jwt-benchmark-secret-32chars!!";
+    private static final int SESSIONS = 10_000;
+    private static final int USERS = 1_000;
+    private static final int EVENT_LOOP_THREADS = 4;
+
+    /**
+     * 改造前的滑动续期参数
+     */
+    private static final long SESSION_TIMEOUT_HOURS = 1;
+    private static final long RENEW_THRESHOLD_MINUTES = 10;
+
+    private static final LongAdder BLOCKING_CALLS = new LongAdder();
+    private static final Set<String> BLOCKING_METHODS = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 不使用会话本地缓存，每次校验都访问 Redis
+     */
+    private static final SessionNearCacheService NO_NEAR_CACHE = new SessionNearCacheService() {
+        @Override
+        public String getIfPresent(String sessionId) {
+            return null;
+        }
+
+        @Override
+        public long markRead() {
+            return 0;
+        }
+
+        @Override
+        public void put(String sessionId, String payload, long readStartedAt) {
+        }
+    };
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private Scheduler eventLoop;
+    private SessionBatchServiceImpl batchService;
+    private GatewaySessionServiceImpl scriptService;
+    private GatewaySessionServiceImpl batchedService;
+    private String[] tokens;
+    private List<String> seededKeys;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GatewaySessionServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 只记录阻塞调用，不中断请求，前后两种实现都能完整跑完
+        BlockHound.install(builder -> builder.blockingMethodCallback(method -> {
+            BLOCKING_CALLS.increment();
+            BLOCKING_METHODS.add(method.toString());
+        }));
+
+        connectionFactory = new LettuceConnectionFactory(System.getProperty("benchmark.redis.host", "localhost"),
+                Integer.getInteger("benchmark.redis.port", 6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        ReactiveStringRedisTemplate reactiveRedisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+        LuaScriptRegistry luaScriptRegistry = new LuaScriptRegistry(connectionFactory,
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        luaScriptRegistry.afterSingletonsInstantiated();
+
+        new JwtUtils().setJwtConfig(new JwtConfig(SECRET, "oneself", "", "", 0, ""));
+        seedSessions();
+
+        eventLoop = Schedulers.newParallel("event-loop", EVENT_LOOP_THREADS);
+
+        GatewayAuthProperties scriptProperties = new GatewayAuthProperties();
+        scriptProperties.getBatch().setEnabled(false);
+        scriptService = new GatewaySessionServiceImpl(reactiveRedisTemplate, luaScriptRegistry, scriptProperties,
+                NO_NEAR_CACHE, null, null);
+
+        GatewayAuthProperties batchedProperties = new GatewayAuthProperties();
+        batchService = new SessionBatchServiceImpl(reactiveRedisTemplate, luaScriptRegistry, batchedProperties,
+                new SimpleMeterRegistry());
+        batchService.start();
+        batchedService = new GatewaySessionServiceImpl(reactiveRedisTemplate, luaScriptRegistry, batchedProperties,
+                NO_NEAR_CACHE, batchService, null);
+    }
+
+    /**
+     * 写入测试会话：会话内容设置 1 小时过期，用户会话集合记录过期时间
+     */
+    private void seedSessions() {
+        tokens = new String[SESSIONS];
+        seededKeys = new ArrayList<>(SESSIONS + USERS);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < SESSIONS; i++) {
+            String sessionId = "bench-" + i;
+            String userId = "bench-user-" + (i % USERS);
+            JwtSessionBO sessionBO = JwtSessionBO.builder()
+                    .userId(userId)
+                    .username(userId)
+                    .sessionId(sessionId)
+                    .loginTime(now)
+                    .build();
+            String sessionKey = RedisKeyPrefixEnum.LOGIN_SESSION.getPrefix() + sessionId;
+            String userKey = RedisKeyPrefixEnum.LOGIN_USER.getPrefix() + userId;
+            redisTemplate.opsForValue().set(sessionKey,
+                    "{\"userId\":\"" + userId + "\",\"roleCodes\":[\"user\"],\"permissionCodes\":[\"system:dept:list\"]}",
+                    Duration.ofHours(SESSION_TIMEOUT_HOURS));
+            redisTemplate.opsForZSet().add(userKey, sessionId, now + TimeUnit.HOURS.toMillis(SESSION_TIMEOUT_HOURS));
+            tokens[i] = JwtUtils.createJWT(JacksonUtils.toJsonString(sessionBO));
+            seededKeys.add(sessionKey);
+            if (i < USERS) {
+                seededKeys.add(userKey);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batchService.stop();
+        eventLoop.dispose();
+        redisTemplate.delete(seededKeys);
+        connectionFactory.destroy();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetBlockingCalls() {
+        BLOCKING_CALLS.reset();
+        BLOCKING_METHODS.clear();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportBlockingCalls() {
+        System.out.printf("%n事件循环线程上的阻塞调用：%d 次，方法：%s%n", BLOCKING_CALLS.sum(), BLOCKING_METHODS);
+    }
+
+    private String nextToken() {
+        return tokens[ThreadLocalRandom.current().nextInt(tokens.length)];
+    }
+
+    @Benchmark
+    public JwtSessionBO blockingRedisTemplate() {
+        String token = nextToken();
+        return Mono.fromCallable(() -> validateBlocking(token))
+                .subscribeOn(eventLoop)
+                .block();
+    }
+
+    @Benchmark
+    public AuthenticatedSession reactiveScript() {
+        String token = nextToken();
+        return Mono.defer(() -> scriptService.validate(token))
+                .subscribeOn(eventLoop)
+                .block();
+    }
+
+    @Benchmark
+    public AuthenticatedSession reactiveBatched() {
+        String token = nextToken();
+        return Mono.defer(() -> batchedService.validate(token))
+                .subscribeOn(eventLoop)
+                .block();
+    }
+
+    /**
+     * 改造前 JwtAuthenticationGlobalFilter 的会话校验：每次验签、解析 subject，并同步执行多条 Redis 命令
+     */
+    private JwtSessionBO validateBlocking(String token) throws Exception {
+        Claims claims = JwtUtils.parseJWT(token);
+        JwtSessionBO sessionBO = JacksonUtils.fromJson(claims.getSubject(), JwtSessionBO.class);
+        String sessionId = sessionBO.getSessionId();
+        String redisKey = RedisKeyPrefixEnum.LOGIN_SESSION.getPrefix() + sessionId;
+        String userKey = RedisKeyPrefixEnum.LOGIN_USER.getPrefix() + sessionBO.getUserId();
+
+        redisTemplate.opsForZSet().removeRangeByScore(userKey, 0, System.currentTimeMillis());
+        Long expire = redisTemplate.getExpire(redisKey, TimeUnit.MILLISECONDS);
+        if (expire == null || expire <= 0) {
+            redisTemplate.opsForZSet().remove(userKey, sessionId);
+            return null;
+        }
+
+        Long ttlMinutes = redisTemplate.getExpire(redisKey, TimeUnit.MINUTES);
+        if (ttlMinutes != null && ttlMinutes > 0 && ttlMinutes < RENEW_THRESHOLD_MINUTES) {
+            redisTemplate.expire(redisKey, SESSION_TIMEOUT_HOURS, TimeUnit.HOURS);
+            redisTemplate.expire(userKey, SESSION_TIMEOUT_HOURS, TimeUnit.HOURS);
+            redisTemplate.opsForZSet().add(userKey, sessionId,
+                    System.currentTimeMillis() + TimeUnit.HOURS.toMillis(SESSION_TIMEOUT_HOURS));
+        }
+
+        String sessionJson = redisTemplate.opsForValue().get(redisKey);
+        return StringUtils.isBlank(sessionJson) ? null : sessionBO;
+    }
+}
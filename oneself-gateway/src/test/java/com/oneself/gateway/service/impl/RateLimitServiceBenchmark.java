@@ -0,0 +1,176 @@
+package com.oneself.gateway.service.impl;
+
+import com.oneself.common.infra.redis.script.LuaScriptRegistry;
+import com.oneself.gateway.model.RateLimitDecision;
+import com.oneself.gateway.model.RateLimitQuota;
+import com.oneself.gateway.properties.GatewayRateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className RateLimitServiceBenchmark
+ * description
+ * 限流算法基准测试：模拟 50000 个客户端 IP 的随机请求，每个请求同时检查 IP 配额与接口配额（按路由归一化的 key），
+ * 对比三种模式的吞吐量与 Redis 内存占用：
+ * - SLIDING_WINDOW：ZSET 滑动窗口（旧实现），每个放行请求一个成员
+ * - GCRA：每个请求执行一次 GCRA 脚本，每个 key 只保存一个理论到达时间
+ * - GCRA_LOCAL_LEASE：GCRA + 本地租约（默认配置），本地许可用完才访问 Redis
+ * 每个模式结束时打印 Redis used_memory 增量、限流 key 数、平均每 key 字节数以及每个请求的 Redis 命令数。
+ * 需要可写入的 Redis（默认 localhost:6379，可用 -Dbenchmark.redis.host / -Dbenchmark.redis.port 指定），
+ * 只写入 bench:rate-limit: 开头的 key，结束后删除。运行方式：
+ * mvn -pl oneself-gateway test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-cp %classpath com.oneself.gateway.service.impl.RateLimitServiceBenchmark"
+ * version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(32)
+@Fork(1)
+public class RateLimitServiceBenchmark {
+
+    private static final String KEY_PREFIX = "bench:rate-limit:";
+    private static final int CLIENT_IPS = 50_000;
+
+    /**
+     * 与默认配置一致：每个 IP 每分钟 100 次
+     */
+    private static final int LIMIT = 100;
+    private static final long WINDOW_MS = TimeUnit.SECONDS.toMillis(60);
+
+    @Param({"SLIDING_WINDOW", "GCRA", "GCRA_LOCAL_LEASE"})
+    public String mode;
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private RateLimitServiceImpl rateLimitService;
+    private List<List<RateLimitQuota>> quotasByIp;
+    private final LongAdder requests = new LongAdder();
+    private long usedMemoryBefore;
+    private long commandsBefore;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimitServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        connectionFactory = new LettuceConnectionFactory(System.getProperty("benchmark.redis.host", "localhost"),
+                Integer.getInteger("benchmark.redis.port", 6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        LuaScriptRegistry luaScriptRegistry = new LuaScriptRegistry(connectionFactory,
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        luaScriptRegistry.afterSingletonsInstantiated();
+
+        GatewayRateLimitProperties properties = new GatewayRateLimitProperties();
+        properties.setAlgorithm("SLIDING_WINDOW".equals(mode)
+                ? GatewayRateLimitProperties.Algorithm.SLIDING_WINDOW
+                : GatewayRateLimitProperties.Algorithm.GCRA);
+        properties.getLocal().setEnabled("GCRA_LOCAL_LEASE".equals(mode));
+        rateLimitService = new RateLimitServiceImpl(new ReactiveStringRedisTemplate(connectionFactory), properties,
+                luaScriptRegistry);
+        rateLimitService.init();
+
+        // 每个 IP 两个配额：IP 配额 + 按路由归一化的接口配额
+        quotasByIp = new ArrayList<>(CLIENT_IPS);
+        for (int i = 0; i < CLIENT_IPS; i++) {
+            String ip = "10." + (i >> 16) + "." + ((i >> 8) & 0xFF) + "." + (i & 0xFF);
+            quotasByIp.add(List.of(
+                    new RateLimitQuota(KEY_PREFIX + "ip:" + ip, WINDOW_MS, LIMIT, LIMIT),
+                    new RateLimitQuota(KEY_PREFIX + "api:ip:" + ip + ":route:oneself-system", WINDOW_MS, LIMIT, LIMIT)));
+        }
+
+        deleteBenchmarkKeys();
+        usedMemoryBefore = info("memory", "used_memory");
+        commandsBefore = info("stats", "total_commands_processed");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long usedMemory = info("memory", "used_memory") - usedMemoryBefore;
+        long commands = info("stats", "total_commands_processed") - commandsBefore;
+        long keys = deleteBenchmarkKeys();
+        long total = requests.sum();
+        System.out.printf("%n[%s] 请求数：%d，限流 key 数：%d，Redis 内存增量：%.1f MB（平均每 key %d 字节），"
+                        + "每个请求的 Redis 命令数：%.3f%n",
+                mode, total, keys, usedMemory / 1024.0 / 1024.0, keys > 0 ? usedMemory / keys : 0,
+                total > 0 ? (double) commands / total : 0);
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public RateLimitDecision tryAcquire() {
+        requests.increment();
+        return rateLimitService.tryAcquire(quotasByIp.get(ThreadLocalRandom.current().nextInt(CLIENT_IPS))).block();
+    }
+
+    /**
+     * 读取 INFO 中的数值指标
+     */
+    private long info(String section, String name) {
+        Properties info = redisTemplate.execute((RedisConnection connection) -> connection.serverCommands().info(section));
+        return info != null ? Long.parseLong(info.getProperty(name, "0").trim()) : 0L;
+    }
+
+    /**
+     * 删除基准测试写入的 key
+     *
+     * @return 删除的 key 数
+     */
+    private long deleteBenchmarkKeys() {
+        long deleted = 0;
+        List<String> batch = new ArrayList<>(1000);
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build())) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == 1000) {
+                    deleted += redisTemplate.delete(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            deleted += redisTemplate.delete(batch);
+        }
+        return deleted;
+    }
+}
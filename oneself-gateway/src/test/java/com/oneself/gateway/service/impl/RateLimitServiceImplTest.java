@@ -0,0 +1,203 @@
+package com.oneself.gateway.service.impl;
+
+import com.oneself.common.infra.redis.script.LuaScriptRegistry;
+import com.oneself.gateway.model.RateLimitDecision;
+import com.oneself.gateway.model.RateLimitQuota;
+import com.oneself.gateway.properties.GatewayRateLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className RateLimitServiceImplTest
+ * description 两级限流租约记账测试，Redis 端由按 rate-limit-lease.lua 逻辑实现的内存脚本代替
+ * version 1.0
+ */
+class RateLimitServiceImplTest {
+
+    private FakeLeaseScripts scripts;
+    private GatewayRateLimitProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        scripts = new FakeLeaseScripts();
+        properties = new GatewayRateLimitProperties();
+        properties.setAlgorithm(GatewayRateLimitProperties.Algorithm.GCRA);
+        properties.getLocal().setEnabled(true);
+        properties.getLocal().setLeaseSize(10);
+        properties.getLocal().setLeaseTtl(Duration.ofMillis(20));
+        properties.getLocal().setRedisTimeout(Duration.ofSeconds(1));
+    }
+
+    private RateLimitServiceImpl newService() {
+        RateLimitServiceImpl service = new RateLimitServiceImpl(null, properties, scripts);
+        service.init();
+        return service;
+    }
+
+    @Test
+    void clientBelowLimitIsNeverRejected() throws InterruptedException {
+        RateLimitServiceImpl service = newService();
+        // 100 次 / 秒，突发 20；每次租约都在下一次请求前过期
+        List<RateLimitQuota> quotas = List.of(new RateLimitQuota("ip:10.0.0.1", 1000, 100, 20));
+
+        // 先以约 33 次 / 秒的频率请求，再连续突发 10 次：平均速率与突发量都在配额之内
+        for (int i = 0; i < 20; i++) {
+            assertTrue(service.tryAcquire(quotas).block().allowed(), "第 " + (i + 1) + " 次请求被拒绝");
+            Thread.sleep(30);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertTrue(service.tryAcquire(quotas).block().allowed(), "突发第 " + (i + 1) + " 次请求被拒绝");
+        }
+    }
+
+    @Test
+    void unusedPermitsAreReturnedWhenLeaseExpires() throws InterruptedException {
+        RateLimitServiceImpl service = newService();
+        List<RateLimitQuota> quotas = List.of(new RateLimitQuota("user:1", 1000, 100, 10));
+
+        assertTrue(service.tryAcquire(quotas).block().allowed());
+        assertEquals(List.of(0L), scripts.lastRefunds());
+        Thread.sleep(40);
+        assertTrue(service.tryAcquire(quotas).block().allowed());
+        // 第一次领取 10 个只用了 1 个，过期后归还 9 个
+        assertEquals(List.of(9L), scripts.lastRefunds());
+    }
+
+    @Test
+    void concurrentLeaseIsSharedOnlyByTheSameQuotaTuple() {
+        scripts.delay = Duration.ofMillis(50);
+        RateLimitServiceImpl service = newService();
+        RateLimitQuota ip = new RateLimitQuota("ip:10.0.0.2", 1000, 100, 100);
+        RateLimitQuota exhausted = new RateLimitQuota("api:page", 60_000, 1, 1);
+        RateLimitQuota open = new RateLimitQuota("api:tree", 1000, 100, 100);
+        scripts.exhaust(exhausted);
+
+        CompletableFuture<RateLimitDecision> first = service.tryAcquire(List.of(ip, exhausted)).toFuture();
+        CompletableFuture<RateLimitDecision> second = service.tryAcquire(List.of(ip, open)).toFuture();
+
+        assertFalse(first.join().allowed());
+        // 与被拒绝的请求共享 ip 配额，但自己的配额组合有余量，不能沿用对方的租约结果
+        assertTrue(second.join().allowed());
+        assertEquals(2, scripts.calls.get());
+    }
+
+    @Test
+    void concurrentRequestsWithTheSameQuotasShareOneRedisCall() {
+        scripts.delay = Duration.ofMillis(50);
+        RateLimitServiceImpl service = newService();
+        List<RateLimitQuota> quotas = List.of(new RateLimitQuota("ip:10.0.0.3", 1000, 100, 100));
+
+        List<CompletableFuture<RateLimitDecision>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(service.tryAcquire(quotas).toFuture());
+        }
+        for (CompletableFuture<RateLimitDecision> future : futures) {
+            assertTrue(future.join().allowed());
+        }
+        assertEquals(1, scripts.calls.get());
+    }
+
+    /**
+     * 内存版 rate-limit-lease 脚本（与 lua/rate-limit-lease.lua 逻辑一致），时间取本机时钟
+     */
+    private static final class FakeLeaseScripts extends LuaScriptRegistry {
+
+        private final Map<String, Double> tats = new ConcurrentHashMap<>();
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile List<Long> lastRefunds = List.of();
+        private volatile Duration delay = Duration.ZERO;
+
+        FakeLeaseScripts() {
+            super(null, null);
+        }
+
+        void exhaust(RateLimitQuota quota) {
+            double interval = (double) quota.windowMs() / quota.limit();
+            tats.put(quota.key(), nowMillis() + interval * quota.burst());
+        }
+
+        List<Long> lastRefunds() {
+            return lastRefunds;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Mono<T> execute(ReactiveRedisTemplate<String, ?> template, String name, Class<T> resultType,
+                                   List<String> keys, List<?> args) {
+            Mono<List<Long>> result = Mono.fromSupplier(() -> lease(keys, args));
+            if (!delay.isZero()) {
+                result = Mono.delay(delay).then(result);
+            }
+            return (Mono<T>) result;
+        }
+
+        private synchronized List<Long> lease(List<String> keys, List<?> args) {
+            calls.incrementAndGet();
+            double now = nowMillis();
+            long requested = Long.parseLong(args.get(0).toString());
+            int n = keys.size();
+            double[] intervals = new double[n];
+            double[] tolerances = new double[n];
+            double[] current = new double[n];
+            List<Long> refunds = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                double window = Double.parseDouble(args.get(4 * i + 1).toString());
+                double limit = Double.parseDouble(args.get(4 * i + 2).toString());
+                double burst = Double.parseDouble(args.get(4 * i + 3).toString());
+                long refund = Long.parseLong(args.get(4 * i + 4).toString());
+                refunds.add(refund);
+                intervals[i] = window / limit;
+                tolerances[i] = intervals[i] * burst;
+                double tat = tats.getOrDefault(keys.get(i), now);
+                if (tat < now) {
+                    tat = now;
+                }
+                if (refund > 0 && tat > now) {
+                    tat = Math.max(now, tat - intervals[i] * refund);
+                }
+                current[i] = tat;
+            }
+            lastRefunds = refunds;
+
+            List<Long> result = new ArrayList<>(n + 1);
+            result.add(1L);
+            for (int i = 0; i < n; i++) {
+                long available = (long) Math.floor((now + tolerances[i] - current[i]) / intervals[i]);
+                if (available < 1) {
+                    for (int j = 0; j < n; j++) {
+                        tats.put(keys.get(j), current[j]);
+                    }
+                    return List.of(0L, (long) Math.ceil(current[i] + intervals[i] - tolerances[i] - now), (long) i);
+                }
+                long granted = Math.min(available, requested);
+                current[i] += intervals[i] * granted;
+                result.add(granted);
+            }
+            for (int i = 0; i < n; i++) {
+                tats.put(keys.get(i), current[i]);
+            }
+            return result;
+        }
+
+        private static double nowMillis() {
+            return System.nanoTime() / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.oneself.gateway.service.impl;
+
+import com.oneself.gateway.model.CachedResponse;
+import com.oneself.gateway.properties.GatewayResponseCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.service.impl
+ * className ResponseCacheServiceImplTest
+ * description 网关响应缓存服务测试（只启用本地缓存）：写入、过期与按标签清理
+ * version 1.0
+ */
+class ResponseCacheServiceImplTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseCacheServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // 未启用 Redis 二级缓存，不访问 Redis
+        service = new ResponseCacheServiceImpl(new GatewayResponseCacheProperties(), null, meterRegistry);
+    }
+
+    private static CachedResponse response(String body, long ttlMillis, String... tags) {
+        long now = System.currentTimeMillis();
+        return new CachedResponse(200, Map.of(), body.getBytes(StandardCharsets.UTF_8), "\"etag\"",
+                Set.of(tags), now, now + ttlMillis);
+    }
+
+    @Test
+    void storedResponseIsReturnedUntilExpired() throws InterruptedException {
+        service.put("u:1 /oneself-system/dept/tree", response("tree", 60_000, "system"));
+        service.put("u:1 /oneself-system/dept/page", response("page", 20, "system"));
+
+        CachedResponse hit = service.get("u:1 /oneself-system/dept/tree").block();
+        assertNotNull(hit);
+        assertEquals("tree", new String(hit.body(), StandardCharsets.UTF_8));
+        assertNull(service.get("u:2 /oneself-system/dept/tree").block());
+
+        Thread.sleep(40);
+        assertNull(service.get("u:1 /oneself-system/dept/page").block());
+        assertEquals(1.0, meterRegistry.get("gateway.response-cache.hits").tag("tier", "local").counter().count());
+        assertEquals(2.0, meterRegistry.get("gateway.response-cache.misses").counter().count());
+    }
+
+    @Test
+    void purgeRemovesOnlyEntriesWithMatchingTags() {
+        service.put("u:1 /oneself-system/dept/tree", response("dept", 60_000, "system", "system:dept"));
+        service.put("u:2 /oneself-system/dept/tree", response("dept", 60_000, "system", "system:dept"));
+        service.put("u:1 /oneself-system/role/list", response("role", 60_000, "system", "system:role"));
+
+        service.purge(List.of(" system:dept ", ""));
+
+        assertNull(service.get("u:1 /oneself-system/dept/tree").block());
+        assertNull(service.get("u:2 /oneself-system/dept/tree").block());
+        assertNotNull(service.get("u:1 /oneself-system/role/list").block());
+        assertEquals(2.0, meterRegistry.get("gateway.response-cache.purges").counter().count());
+    }
+
+    @Test
+    void purgeByRouteTagRemovesAllEntriesOfRoute() {
+        service.put("* /oneself-system/dept/tree", response("dept", 60_000, "system", "system:dept"));
+        service.put("* /oneself-demo/item/list", response("item", 60_000, "demo", "demo:item"));
+
+        service.purge(List.of("system"));
+
+        assertNull(service.get("* /oneself-system/dept/tree").block());
+        assertNotNull(service.get("* /oneself-demo/item/list").block());
+    }
+}
@@ -0,0 +1,87 @@
+package com.oneself.gateway.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author liuhuan
+ * date 2026/10/17
+ * packageName com.oneself.gateway.utils
+ * className RotatingBloomFilterTest
+ * description 两代轮换布隆过滤器测试：记录保留一到两个轮换周期、不漏判、误判率在预期范围内
+ * version 1.0
+ */
+class RotatingBloomFilterTest {
+
+    @Test
+    void recordSurvivesOneRotationAndIsDroppedAfterTwo() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(1000, 0.01);
+        filter.put("s:session-1");
+        assertTrue(filter.mightContain("s:session-1"));
+
+        filter.rotate();
+        // 上一代仍参与查询
+        assertTrue(filter.mightContain("s:session-1"));
+        assertEquals(0, filter.insertions());
+
+        filter.rotate();
+        assertFalse(filter.mightContain("s:session-1"));
+    }
+
+    @Test
+    void recordWrittenAfterRotationIsKeptInCurrentGeneration() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(1000, 0.01);
+        filter.put("e:1:0");
+        filter.rotate();
+        filter.put("e:2:0");
+        filter.rotate();
+
+        assertFalse(filter.mightContain("e:1:0"));
+        assertTrue(filter.mightContain("e:2:0"));
+        assertEquals(0, filter.insertions());
+    }
+
+    @Test
+    void clearDropsBothGenerations() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(1000, 0.01);
+        filter.put("s:old");
+        filter.rotate();
+        filter.put("s:new");
+        assertEquals(1, filter.insertions());
+
+        filter.clear();
+        assertFalse(filter.mightContain("s:old"));
+        assertFalse(filter.mightContain("s:new"));
+        assertEquals(0, filter.insertions());
+    }
+
+    @Test
+    void noFalseNegativesAndFalsePositiveRateWithinBound() {
+        int n = 10_000;
+        RotatingBloomFilter filter = new RotatingBloomFilter(n, 0.01);
+        for (int i = 0; i < n; i++) {
+            filter.put("s:" + i);
+        }
+        filter.rotate();
+        for (int i = 0; i < n; i++) {
+            filter.put("e:" + i + ":0");
+        }
+        for (int i = 0; i < n; i++) {
+            assertTrue(filter.mightContain("s:" + i), "上一代记录漏判：s:" + i);
+            assertTrue(filter.mightContain("e:" + i + ":0"), "当前代记录漏判：e:" + i + ":0");
+        }
+
+        // 两代各写满一个周期时，查询同时检查两代，误判率约为单代的两倍
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("x:" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < probes * 0.03, "误判率过高：" + falsePositives + "/" + probes);
+    }
+}
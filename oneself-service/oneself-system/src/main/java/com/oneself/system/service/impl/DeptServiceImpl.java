@@ -18,6 +18,7 @@ import com.oneself.common.feature.web.req.PageReq;
 import com.oneself.common.feature.web.resp.PageResp;
 import com.oneself.system.service.DeptService;
 import com.oneself.common.core.utils.BeanCopyUtils;
+import com.oneself.common.infra.redis.cache.ResponseCachePurger;
 import com.oneself.common.infra.jdbc.utils.DuplicateCheckUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -49,10 +50,16 @@ import java.util.*;
 @Service
 public class DeptServiceImpl implements DeptService {
 
+    /**
+     * 网关响应缓存清理标签，写操作在事务提交后按该标签清理网关缓存的部门查询响应
+     */
+    private static final String RESPONSE_CACHE_TAG = "oneself-system:dept";
+
     private final DeptMapper deptMapper;
     private final UserMapper userMapper;
 
     private final CacheManager cacheManager;
+    private final ResponseCachePurger responseCachePurger;
 
 
     /**
@@ -85,6 +92,8 @@ public class DeptServiceImpl implements DeptService {
             throw new OneselfException("部门添加失败");
         }
         log.info("部门添加成功, ID: {}", dept.getId());
+        responseCachePurger.purge(RESPONSE_CACHE_TAG);
+
         return dept.getId();
     }
 
@@ -160,7 +169,10 @@ public class DeptServiceImpl implements DeptService {
         );
         
         // 5. 更新部门
-        return deptMapper.updateById(dept) > 0;
+        boolean updated = deptMapper.updateById(dept) > 0;
+
+        responseCachePurger.purge(RESPONSE_CACHE_TAG);
+        return updated;
     }
 
     /**
@@ -201,6 +213,8 @@ public class DeptServiceImpl implements DeptService {
             }
         });
 
+        responseCachePurger.purge(RESPONSE_CACHE_TAG);
+
         return deleted > 0;
     }
 
@@ -240,6 +254,8 @@ public class DeptServiceImpl implements DeptService {
             }
         });
 
+        responseCachePurger.purge(RESPONSE_CACHE_TAG);
+
         return updated > 0;
     }
 
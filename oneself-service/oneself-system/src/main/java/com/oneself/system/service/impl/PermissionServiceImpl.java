@@ -18,14 +18,20 @@ import com.oneself.common.feature.web.req.PageReq;
 import com.oneself.common.feature.web.resp.PageResp;
 import com.oneself.system.service.PermissionService;
 import com.oneself.common.core.utils.BeanCopyUtils;
+import com.oneself.common.infra.redis.cache.ResponseCachePurger;
+import com.oneself.common.infra.redis.permission.ApiPermissionPublisher;
+import com.oneself.common.infra.redis.permission.ApiPermissionRule;
+import com.oneself.system.model.enums.ResourceTypeEnum;
 import com.oneself.common.infra.jdbc.utils.DuplicateCheckUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
@@ -50,9 +56,16 @@ import java.util.stream.Collectors;
 @Service
 public class PermissionServiceImpl implements PermissionService {
 
+    /**
+     * 网关响应缓存清理标签，写操作在事务提交后按该标签清理网关缓存的权限查询响应
+     */
+    private static final String RESPONSE_CACHE_TAG = "oneself-system:permission";
+
     private final PermissionMapper permissionMapper;
     private final RolePermissionMapper rolePermissionMapper;
     private final CacheManager cacheManager;
+    private final ResponseCachePurger responseCachePurger;
+    private final ApiPermissionPublisher apiPermissionPublisher;
 
     /**
      * 新增权限
@@ -80,6 +93,9 @@ public class PermissionServiceImpl implements PermissionService {
             throw new OneselfException("新增权限失败");
         }
         log.info("权限添加成功, ID: {}", permission.getId());
+        responseCachePurger.purge(RESPONSE_CACHE_TAG);
+        publishApiPermissions();
+
         return permission.getId();
     }
 
@@ -136,6 +152,9 @@ public class PermissionServiceImpl implements PermissionService {
             throw new OneselfException("更新权限失败");
         }
         log.info("权限更新成功, ID: {}", id);
+        responseCachePurger.purge(RESPONSE_CACHE_TAG);
+        publishApiPermissions();
+
         return true;
     }
 
@@ -179,6 +198,9 @@ public class PermissionServiceImpl implements PermissionService {
         });
 
         log.info("批量删除权限成功, 删除数量: {}", deleteCount);
+        responseCachePurger.purge(RESPONSE_CACHE_TAG);
+        publishApiPermissions();
+
         return true;
     }
 
@@ -223,6 +245,9 @@ public class PermissionServiceImpl implements PermissionService {
         });
 
         log.info("批量更新权限状态成功, 更新数量: {}, 状态: {}", updateCount, status);
+        responseCachePurger.purge(RESPONSE_CACHE_TAG);
+        publishApiPermissions();
+
         return true;
     }
 
@@ -363,4 +388,26 @@ public class PermissionServiceImpl implements PermissionService {
                 })
                 .collect(Collectors.toList());
     }
+
+    /**
+     * 启动时发布一次接口权限规则，保证网关能读取到最新规则
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        publishApiPermissions();
+    }
+
+    /**
+     * 发布启用中的接口权限规则，网关据此在转发前预先鉴权（存在事务时在提交后发布）
+     */
+    private void publishApiPermissions() {
+        apiPermissionPublisher.publish(() -> permissionMapper.selectList(
+                        new LambdaQueryWrapper<Permission>()
+                                .eq(Permission::getResourceType, ResourceTypeEnum.API)
+                                .eq(Permission::getStatus, StatusEnum.NORMAL)
+                                .isNotNull(Permission::getResourcePath))
+                .stream()
+                .map(permission -> new ApiPermissionRule(permission.getPermCode(), permission.getResourcePath()))
+                .toList());
+    }
 }
@@ -18,6 +18,7 @@ import com.oneself.common.feature.web.req.PageReq;
 import com.oneself.common.feature.web.resp.PageResp;
 import com.oneself.system.service.RoleService;
 import com.oneself.common.core.utils.BeanCopyUtils;
+import com.oneself.common.infra.redis.cache.ResponseCachePurger;
 import com.oneself.common.infra.jdbc.utils.DuplicateCheckUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -47,9 +48,15 @@ import java.util.stream.Collectors;
 @Service
 public class RoleServiceImpl implements RoleService {
 
+    /**
+     * 网关响应缓存清理标签，写操作在事务提交后按该标签清理网关缓存的角色查询响应
+     */
+    private static final String RESPONSE_CACHE_TAG = "oneself-system:role";
+
     private final RoleMapper roleMapper;
     private final UserRoleMapper userRoleMapper;
     private final CacheManager cacheManager;
+    private final ResponseCachePurger responseCachePurger;
     /**
      * 新增角色
      *
@@ -81,6 +88,8 @@ public class RoleServiceImpl implements RoleService {
             throw new OneselfException("新增角色失败");
         }
         log.info("角色添加成功, ID: {}", role.getId());
+        responseCachePurger.purge(RESPONSE_CACHE_TAG);
+
         return role.getId();
     }
 
@@ -142,6 +151,8 @@ public class RoleServiceImpl implements RoleService {
             throw new OneselfException("更新角色失败");
         }
         log.info("角色更新成功, ID: {}", id);
+        responseCachePurger.purge(RESPONSE_CACHE_TAG);
+
         return true;
     }
 
@@ -185,6 +196,8 @@ public class RoleServiceImpl implements RoleService {
         });
 
         log.info("批量删除角色成功, 删除数量: {}", deleteCount);
+        responseCachePurger.purge(RESPONSE_CACHE_TAG);
+
         return true;
     }
 
@@ -229,6 +242,8 @@ public class RoleServiceImpl implements RoleService {
         });
 
         log.info("批量更新角色状态成功, 更新数量: {}, 状态: {}", updateCount, status);
+        responseCachePurger.purge(RESPONSE_CACHE_TAG);
+
         return true;
     }
 
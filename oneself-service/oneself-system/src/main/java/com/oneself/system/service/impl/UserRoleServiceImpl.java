@@ -9,6 +9,8 @@ import com.oneself.system.model.vo.RoleVO;
 import com.oneself.system.service.ConstraintService;
 import com.oneself.system.service.UserRoleService;
 import com.oneself.common.core.utils.BeanCopyUtils;
+import com.oneself.common.feature.security.config.JwtConfig;
+import com.oneself.common.infra.redis.session.LoginSessionRevoker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
@@ -16,6 +18,8 @@ import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -36,6 +40,9 @@ public class UserRoleServiceImpl implements UserRoleService {
     private final UserRoleMapper userRoleMapper;
     private final RoleMapper roleMapper;
     private final ConstraintService constraintService;
+    private final LoginSessionRevoker loginSessionRevoker;
+    private final JwtConfig jwtConfig;
+
     /**
      * 给用户分配角色
      *
@@ -78,6 +85,8 @@ public class UserRoleServiceImpl implements UserRoleService {
             userRoleMapper.insert(userRole);
         }
 
+        revokeAccessTokens(userId);
+
         log.info("用户角色分配成功, 用户ID: {}, 角色数量: {}", userId, roleIds.size());
         return true;
     }
@@ -132,6 +141,10 @@ public class UserRoleServiceImpl implements UserRoleService {
             new LambdaQueryWrapper<UserRole>().eq(UserRole::getUserId, userId)
         );
 
+        if (deleteCount > 0) {
+            revokeAccessTokens(userId);
+        }
+
         log.info("删除用户所有角色关联成功, 用户ID: {}, 删除数量: {}", userId, deleteCount);
         return true;
     }
@@ -157,7 +170,29 @@ public class UserRoleServiceImpl implements UserRoleService {
                 .in(UserRole::getRoleId, roleIds)
         );
 
+        if (deleteCount > 0) {
+            revokeAccessTokens(userId);
+        }
+
         log.info("删除用户指定角色关联成功, 用户ID: {}, 角色数量: {}, 删除数量: {}", userId, roleIds.size(), deleteCount);
         return true;
     }
+
+    /**
+     * 启用短时访问令牌时，令牌中的角色、权限在网关直接生效，角色变化后使用户已登录的会话失效（事务提交后执行）；
+     * 未启用时与原有行为一致，会话中的角色、权限保持登录时的快照，不踢下线
+     *
+     * @param userId 用户ID
+     */
+    private void revokeAccessTokens(String userId) {
+        if (jwtConfig.getAccessTokenTtl().isZero()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                loginSessionRevoker.revokeAll(List.of(userId));
+            }
+        });
+    }
 }
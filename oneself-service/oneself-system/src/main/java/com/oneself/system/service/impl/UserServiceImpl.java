@@ -17,6 +17,7 @@ import com.oneself.system.service.RoleService;
 import com.oneself.system.service.UserService;
 import com.oneself.common.core.utils.BeanCopyUtils;
 import com.oneself.common.infra.jdbc.utils.DuplicateCheckUtils;
+import com.oneself.common.infra.redis.session.LoginSessionRevoker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
@@ -58,6 +59,7 @@ public class UserServiceImpl implements UserService {
     private final ConfigurationMapper configurationMapper;
     private final CacheManager cacheManager;
     private final RoleService roleService;
+    private final LoginSessionRevoker loginSessionRevoker;
 
 
     /**
@@ -268,10 +270,11 @@ public class UserServiceImpl implements UserService {
         // 删除用户角色关联
         userRoleMapper.delete(new LambdaQueryWrapper<UserRole>().in(UserRole::getUserId, ids));
 
-        // 事务提交后清理缓存（避免回滚导致数据不一致）
+        // 事务提交后使已删除用户的会话全部失效并清理缓存（避免回滚导致数据不一致）
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
+                loginSessionRevoker.revokeAll(ids);
                 Cache userCache = cacheManager.getCache("sysUser");
                 if (userCache != null) {
                     ids.forEach(userCache::evict);
@@ -315,10 +318,13 @@ public class UserServiceImpl implements UserService {
             throw new OneselfException("更新用户状态失败");
         }
 
-        // 事务提交后清理缓存（避免回滚导致数据不一致）
+        // 事务提交后清理缓存，锁定的用户立即下线（避免回滚导致数据不一致）
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
+                if (status == StatusEnum.LOCKED) {
+                    loginSessionRevoker.revokeAll(ids);
+                }
                 Cache userCache = cacheManager.getCache("sysUser");
                 if (userCache != null) {
                     ids.forEach(userCache::evict);